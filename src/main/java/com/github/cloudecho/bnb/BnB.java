@@ -1,9 +1,13 @@
 package com.github.cloudecho.bnb;
 
+import com.github.cloudecho.bnb.math.Buffers;
+import com.github.cloudecho.bnb.math.CsrMatrix;
 import com.github.cloudecho.bnb.util.*;
 
 import java.util.Arrays;
 import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -59,7 +63,31 @@ public class BnB extends GeneralLP implements Solver {
      *                      e.g. {1,2} represents x1,x2 are restricted to be 0 or 1.
      */
     public BnB(ObjectiveType objectiveType, double c0, double[] c, double[][] a, Sign[] signs, double[] b, int[] freeVars, int[] intVars, int[] binVars) {
-        super(objectiveType, c0, c, a, signs, b, freeVars);
+        this(objectiveType, c0, c, a, null, signs, b, freeVars, intVars, binVars);
+    }
+
+    /**
+     * Constructor of a sparse problem, whose node LPs are in compressed rows.
+     * All variables are default to be non-negative.
+     *
+     * @param a The matrix A in compressed rows, m rows, n columns
+     * @see #BnB(ObjectiveType, double, double[], double[][], Sign[], double[], int[], int[], int[])
+     */
+    public BnB(ObjectiveType objectiveType, double c0, double[] c, CsrMatrix a, Sign[] signs, double[] b, int[] freeVars, int[] intVars, int[] binVars) {
+        this(objectiveType, c0, c, null, a, signs, b, freeVars, intVars, binVars);
+    }
+
+    /**
+     * Constructor of a sparse problem. All variables are default to be non-negative.
+     *
+     * @see #BnB(ObjectiveType, double, double[], CsrMatrix, Sign[], double[], int[], int[], int[])
+     */
+    public BnB(ObjectiveType objectiveType, double c0, double[] c, CsrMatrix a, Sign[] signs, double[] b, int[] freeVars, int[] intVars) {
+        this(objectiveType, c0, c, a, signs, b, freeVars, intVars, Maths.EMPTY_INT_ARRAY);
+    }
+
+    private BnB(ObjectiveType objectiveType, double c0, double[] c, double[][] a, CsrMatrix csr, Sign[] signs, double[] b, int[] freeVars, int[] intVars, int[] binVars) {
+        super(objectiveType, c0, c, a, csr, signs, b, freeVars);
         this.intVars = Maths.unique(Maths.union(binVars, intVars));
         this.nBinVars = Maths.length(Maths.unique(binVars));
         this.nBinVars2 = nBinVars;
@@ -96,20 +124,40 @@ public class BnB extends GeneralLP implements Solver {
         return r;
     }
 
+    /**
+     * csr with binary constraints
+     */
+    private CsrMatrix csr2() {
+        final CsrMatrix.Builder r = new CsrMatrix.Builder(n, m + nBinVars, csr.nonZeros() + nBinVars)
+                .addRows(csr, 0, m);
+        for (int j = 0; j < nBinVars; j++) {
+            final int v = intVars[j];
+            if (existsBinConstraint(v)) {
+                LOG.debug("existsBinConstraint", v);
+                this.nBinVars2--;
+                continue;
+            }
+            r.add(v - 1, 1d).endRow();
+        }
+        return r.build();
+    }
+
     /**
      * Return {@code true} if binary constraint for x(v) already exists.
      */
     private boolean existsBinConstraint(int v) {
         final int c = v - 1; // column
+        final int[] index = new int[n];
+        final double[] value = new double[n];
         // for each row
         for (int i = 0; i < m; i++) {
-            if (b[i] != 1d || a[i][c] != 1d) {
+            if (b[i] != 1d || a(i, c) != 1d) {
                 continue;
             }
             if (Sign.GE == signs[i]) {
                 continue;
             }
-            if (existsNegativeNumOrFreeVar(a[i], n)) {
+            if (existsNegativeNumOrFreeVar(index, value, row(i, index, value))) {
                 continue;
             }
             return true;
@@ -117,12 +165,12 @@ public class BnB extends GeneralLP implements Solver {
         return false;
     }
 
-    private boolean existsNegativeNumOrFreeVar(double[] row, int endIndex) {
-        for (int j = 0; j < endIndex; j++) {
-            if (row[j] < 0) {
+    private boolean existsNegativeNumOrFreeVar(int[] index, double[] value, int size) {
+        for (int k = 0; k < size; k++) {
+            if (value[k] < 0) {
                 return true;
             }
-            if (row[j] != 0 && Maths.contains(freeVars, j)) {
+            if (Maths.contains(freeVars, index[k])) {
                 return true;
             }
         }
@@ -163,6 +211,12 @@ public class BnB extends GeneralLP implements Solver {
 
         int binVar = -1;
 
+        /**
+         * The bound added by this node, e.g. {@code x3=1} or {@code x5<=2}
+         */
+        int boundVar = -1;
+        String bound;
+
         public Node(GeneralLP lp, Node parent, char branch) {
             this.lp = lp;
             this.parent = parent;
@@ -184,9 +238,31 @@ public class BnB extends GeneralLP implements Solver {
 
         Node binary(int binVar) {
             this.binVar = binVar;
+            return bound(binVar, (LEFT == branch) ? "=0" : "=1");
+        }
+
+        Node bound(int var, String bound) {
+            this.boundVar = var;
+            this.bound = bound;
             return this;
         }
 
+        /**
+         * The canonical bound/fixing set from the root to this node, ordered by var.
+         */
+        String fixings() {
+            Map<Integer, String> bounds = new TreeMap<>();
+            for (Node n = this; n != null; n = n.parent) {
+                if (-1 == n.boundVar) {
+                    continue;
+                }
+                bounds.merge(n.boundVar, n.bound, (b1, b2) -> b2 + b1);
+            }
+            StringBuilder b = new StringBuilder();
+            bounds.forEach((var, bound) -> b.append('x').append(var).append(bound).append(';'));
+            return b.toString();
+        }
+
         @Override
         public String toString() {
             return (parent == null ? "" : parent + "-") + level + branch;
@@ -208,6 +284,45 @@ public class BnB extends GeneralLP implements Solver {
     private final ExecutorService executor = Executors.newFixedThreadPool(
             nThreads, new NamedThreadFactory().namePrefix("bnb-solver"));
 
+    public static final String LP_CACHE_SIZE_PROP = "com.github.cloudecho.bnb.LP_CACHE_SIZE";
+
+    /**
+     * Solved subproblems shared by the trees of all instances, so that a model solved again hits.
+     * Disabled unless {@link #LP_CACHE_SIZE_PROP} is set.
+     */
+    static final LpCache sharedLpCache = new LpCache(Integer.parseInt(System.getProperty(LP_CACHE_SIZE_PROP, "0")));
+
+    public static LpCache getSharedLpCache() {
+        return sharedLpCache;
+    }
+
+    /**
+     * The cache of the node LPs, {@link #sharedLpCache} by default
+     */
+    private LpCache lpCache = sharedLpCache;
+
+    /**
+     * The root problem, which together with the fixings of a node identifies its LP
+     */
+    private LpCache.Problem problem;
+
+    /**
+     * Verify the root LP and the final incumbent in exact arithmetic, see {@link SimplexRefinement}
+     */
+    public static final String REFINE_PROP = "com.github.cloudecho.bnb.REFINE";
+    static final boolean REFINE = Boolean.parseBoolean(System.getProperty(REFINE_PROP, "false"));
+
+    /**
+     * Prune by the {@link SafeBound} of the nodes instead of their objectives
+     */
+    public static final String SAFE_BOUND_PROP = "com.github.cloudecho.bnb.SAFE_BOUND";
+    static final boolean SAFE_BOUND = Boolean.parseBoolean(System.getProperty(SAFE_BOUND_PROP, "false"));
+
+    /**
+     * The node of the incumbent
+     */
+    private Node incumbent;
+
     @Override
     public void solve() {
         this.objective = objectiveType.isMax() ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
@@ -216,8 +331,12 @@ public class BnB extends GeneralLP implements Solver {
         this.state = State.SOLVING;
 
         // create root node
-        final double[][] a2 = a2();
-        GeneralLP lp0 = new GeneralLP(objectiveType, c0, c, a2, signs2(), b2(), freeVars);
+        final double[][] a2 = null == csr ? a2() : null;
+        final CsrMatrix csr2 = null == csr ? null : csr2();
+        GeneralLP lp0 = new GeneralLP(objectiveType, c0, c, a2, csr2, signs2(), b2(), freeVars);
+        lp0.setRefine(REFINE);
+        this.problem = lpCache.isEnabled() ? lpCache.intern(new LpCache.Problem(lp0, intVars, nBinVars, precision)) : null;
+        this.incumbent = null;
         nodes.add(new Node(lp0, null, Node.ROOT));
         this.submitTasks(1);
 
@@ -236,10 +355,36 @@ public class BnB extends GeneralLP implements Solver {
         if (State.SOLVING == this.state) {
             this.state = State.NO_SOLUTION;
         }
+        if (REFINE && State.SOLVED == this.state) {
+            refineIncumbent();
+        }
 
+        LOG.debug(lpCache);
         LOG.trace(this);
     }
 
+    /**
+     * Solve the LP of the incumbent again, verified in exact arithmetic
+     */
+    private void refineIncumbent() {
+        final Node node = this.incumbent;
+        if (null == node || node.lp.refine) {
+            return;
+        }
+        node.lp.setRefine(true);
+        node.solve();
+        if (!node.lp.state.isSolved() || !isFeasible(node.lp.x)) {
+            LOG.warn("refined incumbent", node, node.lp.state);
+            return;
+        }
+        LOG.debug("refined incumbent", node, this.objective, "->", node.lp.objective);
+        this.objective = node.lp.objective;
+        this.x = node.lp.x;
+        this.reducedCost = node.lp.reducedCost;
+        this.slack = node.lp.slack;
+        this.shadowPrice = node.lp.shadowPrice;
+    }
+
     private void submitTasks(int nTasks) {
         for (int i = 0; i < nTasks; i++) {
             taskCounter.incrementAndGet();
@@ -250,6 +395,8 @@ public class BnB extends GeneralLP implements Solver {
     private void doWork() {
         final Node node = nodes.pollLast();
         try {
+            Buffers.enable(); // the node LPs of a worker reuse the tableaus
+
             if (null != node) {
                 solve(node);
             }
@@ -268,7 +415,17 @@ public class BnB extends GeneralLP implements Solver {
             this.iterations++;
         }
         node.lp.setPrecision(this.precision);
-        node.solve();
+        final LpCache.Key key = null == problem ? null : new LpCache.Key(problem, node.fixings());
+        final LpCache.Entry cached = null == key ? null : lpCache.get(key);
+        if (cached != null) {
+            LOG.debug(node, "cached", key);
+            cached.applyTo(node.lp);
+        } else {
+            node.solve();
+            if (key != null) {
+                lpCache.put(key, node.lp);
+            }
+        }
 
         LOG.debug(node, node.lp.state);
 
@@ -288,15 +445,21 @@ public class BnB extends GeneralLP implements Solver {
         }
 
         // case 1
-        if (this.betterOrEq(node.lp.objective)) {
-            LOG.debug(node, "prune", "worse", node.lp.objective);
+        final double bound = SAFE_BOUND ? SafeBound.of(node.lp) : node.lp.objective;
+        if (this.betterOrEq(bound)) {
+            LOG.debug(node, "prune", "worse", node.lp.objective, bound);
             return;
         }
 
         // case 2
         if (isFeasible(node.lp.x)) {
             synchronized (this) {
+                if (this.betterOrEq(node.lp.objective)) { // the bound is above, or another thread
+                    LOG.debug(node, "prune", "not better", node.lp.objective);
+                    return;
+                }
                 this.state = State.SOLVED;
+                this.incumbent = node;
                 this.objective = node.lp.objective; // incumbent
                 this.x = node.lp.x;
                 this.reducedCost = node.lp.reducedCost;
@@ -337,24 +500,32 @@ public class BnB extends GeneralLP implements Solver {
         Maths.CnF cf = new Maths.CnF(lp0.x[v - 1]);
 
         // add a constraint to parent.A
-        final double[] constraint = new double[n];
-        constraint[v - 1] = 1;
-        final double[][] a2 = Maths.append(lp0.a, constraint);
+        final double[][] a2;
+        final CsrMatrix csr2;
+        if (null == lp0.csr) {
+            final double[] constraint = new double[n];
+            constraint[v - 1] = 1;
+            a2 = Maths.append(lp0.a, constraint);
+            csr2 = null;
+        } else {
+            a2 = null;
+            csr2 = lp0.csr.appendRow(new int[]{v - 1}, new double[]{1d});
+        }
 
         // LP1: left branch (<= floor)
         LOG.debug(parent, "left branch x(", v, ") <=", cf.floor);
         Sign[] signs1 = Maths.append(lp0.signs, Sign.LE);
         double[] b1 = Maths.append(lp0.b, cf.floor);
-        GeneralLP lp1 = new GeneralLP(lp0.objectiveType, lp0.c0, lp0.c, a2, signs1, b1, lp0.freeVars);
-        Node child1 = new Node(lp1, parent, Node.LEFT);
+        GeneralLP lp1 = new GeneralLP(lp0.objectiveType, lp0.c0, lp0.c, a2, csr2, signs1, b1, lp0.freeVars);
+        Node child1 = new Node(lp1, parent, Node.LEFT).bound(v, "<=" + cf.floor);
         nodes.addLast(child1);
 
         // LP2: right branch (>= ceil)
         LOG.debug(parent, "right branch x(", v, ") >=", cf.ceil);
         Sign[] signs2 = Maths.append(lp0.signs, Sign.GE);
         double[] b2 = Maths.append(lp0.b, cf.ceil);
-        GeneralLP lp2 = new GeneralLP(lp0.objectiveType, lp0.c0, lp0.c, a2, signs2, b2, lp0.freeVars);
-        Node child2 = new Node(lp2, parent, Node.RIGHT);
+        GeneralLP lp2 = new GeneralLP(lp0.objectiveType, lp0.c0, lp0.c, a2, csr2, signs2, b2, lp0.freeVars);
+        Node child2 = new Node(lp2, parent, Node.RIGHT).bound(v, ">=" + cf.ceil);
         nodes.addLast(child2);
 
         parent.lp = null; // release memory
@@ -368,7 +539,8 @@ public class BnB extends GeneralLP implements Solver {
         final int v = intVars[parent.level];
         Maths.CnF cf = new Maths.CnF(lp0.x[v - 1]);
 
-        double[][] a2 = Arrays.copyOf(lp0.a, lp0.m);
+        double[][] a2 = null == lp0.csr ? Arrays.copyOf(lp0.a, lp0.m) : null;
+        CsrMatrix csr2 = null == lp0.csr ? null : lp0.csr.withoutColumn(v - 1);
         double[] bLeft = lp0.b; // left branch
         double[] bRight = Arrays.copyOf(lp0.b, lp0.m); // right branch
         double[] c2 = Arrays.copyOf(lp0.c, lp0.n);
@@ -377,29 +549,35 @@ public class BnB extends GeneralLP implements Solver {
 
         // LP1: left branch (=0)
         LOG.debug(parent, "left branch x(", v, ") =", 0);
-        GeneralLP lp1 = new GeneralLP(lp0.objectiveType, lp0.c0, c2, a2, lp0.signs, bLeft, lp0.freeVars);
+        GeneralLP lp1 = new GeneralLP(lp0.objectiveType, lp0.c0, c2, a2, csr2, lp0.signs, bLeft, lp0.freeVars);
         Node child1 = new Node(lp1, parent, Node.LEFT).binary(v);
         nodes.addLast(child1);
 
         // LP2: right branch (=1)
         LOG.debug(parent, "right branch x(", v, ") =", 1);
-        GeneralLP lp2 = new GeneralLP(lp0.objectiveType, c0Right, c2, a2, lp0.signs, bRight, lp0.freeVars);
+        GeneralLP lp2 = new GeneralLP(lp0.objectiveType, c0Right, c2, a2, csr2, lp0.signs, bRight, lp0.freeVars);
         Node child2 = new Node(lp2, parent, Node.RIGHT).binary(v);
         nodes.addLast(child2);
 
         parent.lp = null; // release memory
     }
 
+    /**
+     * The arguments of the 0-1 branches, a2 is {@code null} if the LP is sparse
+     */
     private void branch01Arguments(final double[] c2, final double[][] a2, final double[] bRight, GeneralLP lp0, final int binVar) {
         final int j = binVar - 1;
         c2[j] = 0;
         for (int i = 0; i < lp0.m; i++) {
-            if (0d == lp0.a[i][j]) {
+            final double a = lp0.a(i, j);
+            if (0d == a) {
                 continue;
             }
-            a2[i] = Arrays.copyOf(lp0.a[i], lp0.n);
-            a2[i][j] = 0;
-            bRight[i] -= lp0.a[i][j];
+            if (a2 != null) {
+                a2[i] = Arrays.copyOf(lp0.a[i], lp0.n);
+                a2[i][j] = 0;
+            }
+            bRight[i] -= a;
         }
     }
 
@@ -416,6 +594,13 @@ public class BnB extends GeneralLP implements Solver {
         return true;
     }
 
+    /**
+     * Cache the node LPs in the given cache instead of the shared one, {@code null} for no cache
+     */
+    public void setLpCache(LpCache lpCache) {
+        this.lpCache = null == lpCache ? new LpCache(0) : lpCache;
+    }
+
     @Override
     protected void toStringExtra(StringBuilder b) {
         b.append("\n intVars=").append(Arrays.toString(intVars));
@@ -0,0 +1,27 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.LuFactorizedMatrix;
+import com.github.cloudecho.bnb.math.Matrix;
+
+/**
+ * Revised simplex with an LU factorized basis, the original matrix A is kept untouched.
+ *
+ * @see LuFactorizedMatrix
+ */
+public class FactorizedSimplex extends Simplex {
+    /**
+     * Constructor.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected FactorizedSimplex(double[] c, double[][] a, double[] b) {
+        super(c, a, b);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[][] table, int max_n) {
+        return new LuFactorizedMatrix(table, max_n);
+    }
+}
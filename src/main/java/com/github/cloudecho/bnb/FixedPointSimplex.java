@@ -0,0 +1,26 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.FixedPointMatrix;
+import com.github.cloudecho.bnb.math.Matrix;
+
+/**
+ * Fixed-point version of Simplex, the same values as {@link BigSimplex}, mostly in longs on decimal data
+ * with a few fractional digits.
+ */
+public class FixedPointSimplex extends Simplex {
+    /**
+     * Constructor.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected FixedPointSimplex(double[] c, double[][] a, double[] b) {
+        super(c, a, b);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[][] table, int max_n) {
+        return new FixedPointMatrix(table, max_n);
+    }
+}
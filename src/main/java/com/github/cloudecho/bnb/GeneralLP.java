@@ -1,5 +1,7 @@
 package com.github.cloudecho.bnb;
 
+import com.github.cloudecho.bnb.math.Buffers;
+import com.github.cloudecho.bnb.math.CsrMatrix;
 import com.github.cloudecho.bnb.util.Log;
 import com.github.cloudecho.bnb.util.LogFactory;
 import com.github.cloudecho.bnb.util.Maths;
@@ -34,7 +36,14 @@ public class GeneralLP implements Solver {
     protected final ObjectiveType objectiveType;
     protected final double c0;
     protected final double[] c;
+    /**
+     * The matrix A, or {@code null} if the LP is given in compressed rows, see {@link #csr}
+     */
     protected final double[][] a;
+    /**
+     * The matrix A in compressed rows, or {@code null} if the LP is dense
+     */
+    protected final CsrMatrix csr;
     protected final Sign[] signs;
     protected final double[] b;
     protected final int[] freeVars;
@@ -43,6 +52,7 @@ public class GeneralLP implements Solver {
     private int n2;
     private double[] c2;
     private double[][] a2;
+    private CsrMatrix csr2;
 
     /**
      * Objective value
@@ -60,9 +70,24 @@ public class GeneralLP implements Solver {
      * Slack or Surplus
      */
     protected double[] slack;
+    /**
+     * The dual of the max form: the reduced costs of the slack (surplus) vars on &le; (&ge;) rows,
+     * the shadow prices of the simplex on = rows. See {@link SafeBound}
+     */
+    protected double[] dual;
 
     protected int precision = DEFAULT_PRECISION;
 
+    /**
+     * Verify the optimum in exact arithmetic, see {@link SimplexRefinement}
+     */
+    protected boolean refine = false;
+
+    /**
+     * The scaling of the standard LP, see {@link Scaling}
+     */
+    protected Scaling.ScalingType scaling = Scaling.SCALING_TYPE;
+
     /**
      * Constructor. All variables are default to be non-negative.
      *
@@ -77,8 +102,26 @@ public class GeneralLP implements Solver {
      *                      e.g. {1,2} represents x1,x2 are unrestricted.
      */
     public GeneralLP(ObjectiveType objectiveType, double c0, double[] c, double[][] a, Sign[] signs, double[] b, int[] freeVars) {
-        this.m = a.length;
-        this.n = a[0].length;
+        this(objectiveType, c0, c, a, null, signs, b, freeVars);
+    }
+
+    /**
+     * Constructor of a sparse LP, which is standardized and solved in compressed rows, never as a dense A.
+     * All variables are default to be non-negative.
+     *
+     * @param a The matrix A in compressed rows, m rows, n columns
+     * @see #GeneralLP(ObjectiveType, double, double[], double[][], Sign[], double[], int[])
+     */
+    public GeneralLP(ObjectiveType objectiveType, double c0, double[] c, CsrMatrix a, Sign[] signs, double[] b, int[] freeVars) {
+        this(objectiveType, c0, c, null, a, signs, b, freeVars);
+    }
+
+    /**
+     * Constructor of a dense LP if csr is {@code null}, else of a sparse LP and a is {@code null}
+     */
+    protected GeneralLP(ObjectiveType objectiveType, double c0, double[] c, double[][] a, CsrMatrix csr, Sign[] signs, double[] b, int[] freeVars) {
+        this.m = null == csr ? a.length : csr.getRows();
+        this.n = null == csr ? a[0].length : csr.getColumns();
 
         // check length
         if (m != b.length) {
@@ -95,6 +138,7 @@ public class GeneralLP implements Solver {
         this.c0 = c0;
         this.c = c;
         this.a = a;
+        this.csr = csr;
         this.signs = signs;
         this.b = b;
         this.freeVars = Maths.unique(freeVars);
@@ -104,6 +148,7 @@ public class GeneralLP implements Solver {
         this.reducedCost = new double[n];
         this.shadowPrice = new double[m];
         this.slack = new double[m];
+        this.dual = new double[m];
     }
 
     protected int iterations = 0;
@@ -114,24 +159,50 @@ public class GeneralLP implements Solver {
         LOG.trace(this);
         standardize();
 
-        Simplex simplex = SimplexFactory.newSimplex(c2, a2, b); //new Simplex
-        simplex.setPrecision(this.precision);
-        simplex.solve();
+        // the exact engines of the refinement need no scaling
+        Scaling s = refine || Scaling.ScalingType.NONE == scaling ? null
+                : null == csr2 ? Scaling.of(scaling, a2) : Scaling.of(scaling, csr2);
+        if (s != null && s.isIdentity()) {
+            s = null;
+        }
+        final Simplex simplex;
+        if (refine) {
+            // the exact engines are dense
+            simplex = SimplexRefinement.solve(c2, null == csr2 ? a2 : csr2.toArray(), b, this.precision);
+        } else if (null == s) {
+            simplex = null == csr2 ? SimplexFactory.solve(c2, a2, b, this.precision)
+                    : SimplexFactory.solve(c2, csr2, b, this.precision);
+        } else if (null == csr2) {
+            // a2 is not used after, so it is scaled in place rather than copied
+            s.scale(a2);
+            simplex = SimplexFactory.solve(s.scaleColumns(c2), a2, s.scaleRows(b),
+                    this.precision + s.digits());
+        } else {
+            simplex = SimplexFactory.solve(s.scaleColumns(c2), s.scale(csr2), s.scaleRows(b),
+                    this.precision + s.digits());
+        }
+        // the simplex copied them
+        Buffers.give(a2);
+        Buffers.give(c2);
+        this.a2 = null;
+        this.csr2 = null;
+        this.c2 = null;
 
         this.iterations = simplex.getIterations();
         this.state = simplex.getState();
-        setXnObjective(simplex);
+        setXnObjective(simplex, s);
         LOG.trace(this);
     }
 
-    private void setXnObjective(Simplex simplex) {
+    private void setXnObjective(Simplex simplex, Scaling s) {
         if (!simplex.getState().isSolved()) {
             return;
         }
 
-        this.objective = c0 + (objectiveType.isMax() ? simplex.getMax() : -simplex.getMax());
-        final double[] x2 = simplex.getX();
-        final double[] rc2 = simplex.getReducedCost();
+        final double max = null == s ? simplex.getMax() : Maths.round(simplex.getMax(), precision);
+        this.objective = c0 + (objectiveType.isMax() ? max : -max);
+        final double[] x2 = null == s ? simplex.getX() : round(s.unscaleX(simplex.getX()));
+        final double[] rc2 = null == s ? simplex.getReducedCost() : round(s.unscaleReducedCost(simplex.getReducedCost()));
 
         // X & reduced cost
         System.arraycopy(x2, 0, this.x, 0, n);
@@ -143,7 +214,7 @@ public class GeneralLP implements Solver {
         }
 
         // (slack or surplus) & shadow price
-        final double[] y2 = simplex.getShadowPrice();
+        final double[] y2 = null == s ? simplex.getShadowPrice() : round(s.unscaleShadowPrice(simplex.getShadowPrice()));
         for (int i = 0, j = n + freeVars.length; i < m; i++) {
             final Sign sign = signs[i];
             this.shadowPrice[i] = (Sign.GE == sign) ? -y2[i] : y2[i];
@@ -151,19 +222,36 @@ public class GeneralLP implements Solver {
             // slack or surplus
             if (Sign.LE == sign || Sign.GE == sign) {
                 this.slack[i] = x2[j];
+                this.dual[i] = (Sign.GE == sign) ? -rc2[j] : rc2[j];
             } else {
+                this.dual[i] = y2[i];
                 continue;
             }
             j++;
         }
     }
 
+    /**
+     * Round the unscaled values to the precision, as the simplex does, which solved the scaled LP with more digits
+     */
+    private double[] round(double[] v) {
+        for (int j = 0; j < v.length; j++) {
+            v[j] = Maths.round(v[j], precision);
+        }
+        return v;
+    }
+
     private void standardize() {
         // compute n2 for standard LP
         computeN2();
 
         // compute c2 & a2
-        computeC2A2();
+        computeC2();
+        if (null == csr) {
+            computeA2();
+        } else {
+            computeCsr2();
+        }
     }
 
     private void computeN2() {
@@ -179,13 +267,9 @@ public class GeneralLP implements Solver {
         LOG.debug("n2", n2);
     }
 
-    private void computeC2A2() {
-        // init c2 & a2
-        this.c2 = Arrays.copyOf(c, n2); // newLength == n2
-        this.a2 = new double[m][]; // a2[i] == null
-        for (int i = 0; i < m; i++) {
-            this.a2[i] = Arrays.copyOf(a[i], n2);
-        }
+    private void computeC2() {
+        this.c2 = Buffers.take(n2);
+        System.arraycopy(c, 0, c2, 0, n);
 
         // if minimize
         if (!this.objectiveType.isMax()) {
@@ -203,6 +287,19 @@ public class GeneralLP implements Solver {
             }
 
             this.c2[n + j] = -c2[k - 1];
+        }
+        LOG.trace("c2", c2);
+    }
+
+    private void computeA2() {
+        this.a2 = Buffers.take(m, n2);
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(a[i], 0, a2[i], 0, n);
+        }
+
+        // for free vars
+        for (int j = 0; j < freeVars.length; j++) {
+            int k = freeVars[j]; // free var: x_k
             for (int i = 0; i < m; i++) { // for each row
                 this.a2[i][n + j] = -a[i][k - 1];
             }
@@ -221,10 +318,71 @@ public class GeneralLP implements Solver {
             j++;
         }
 
-        LOG.trace("c2", c2);
         LOG.trace("a2", a2);
     }
 
+    /**
+     * The standard A in compressed rows: [A -A<sub>free</sub> &plusmn;I<sub>slack</sub>]
+     */
+    private void computeCsr2() {
+        // the column of the negative part of x_k, k a free var
+        final int[] negative = new int[n];
+        Arrays.fill(negative, -1);
+        for (int j = 0; j < freeVars.length; j++) {
+            negative[freeVars[j] - 1] = n + j;
+        }
+
+        final CsrMatrix.Builder builder = new CsrMatrix.Builder(n2, m, csr.nonZeros() + m);
+        for (int i = 0, j = n + freeVars.length; i < m; i++) {
+            for (int k = csr.rowStart(i); k < csr.rowEnd(i); k++) {
+                final int col = csr.columnAt(k);
+                builder.add(col, csr.valueAt(k));
+                if (negative[col] >= 0) {
+                    builder.add(negative[col], -csr.valueAt(k));
+                }
+            }
+            // slack/surplus var
+            final Sign sign = signs[i];
+            if (Sign.LE == sign) {
+                builder.add(j++, 1d);
+            } else if (Sign.GE == sign) {
+                builder.add(j++, -1d);
+            }
+            builder.endRow();
+        }
+        this.csr2 = builder.build();
+        LOG.trace("a2", csr2);
+    }
+
+    /**
+     * a(i,j) of the matrix A, dense or not
+     */
+    double a(int i, int j) {
+        return null == csr ? a[i][j] : csr.getAsDouble(i, j);
+    }
+
+    /**
+     * Copy the non-zeros of the row i of A, by ascending column, into index and value of length n at least.
+     * Return the number of them.
+     */
+    int row(int i, int[] index, double[] value) {
+        int size = 0;
+        if (null == csr) {
+            for (int j = 0; j < n; j++) {
+                if (0d != a[i][j]) {
+                    index[size] = j;
+                    value[size++] = a[i][j];
+                }
+            }
+        } else {
+            for (int k = csr.rowStart(i); k < csr.rowEnd(i); k++) {
+                index[size] = csr.columnAt(k);
+                value[size++] = csr.valueAt(k);
+            }
+        }
+        return size;
+    }
+
     @Override
     public ObjectiveType getObjectiveType() {
         return objectiveType;
@@ -272,6 +430,20 @@ public class GeneralLP implements Solver {
         return precision;
     }
 
+    /**
+     * Solve in doubles and verify the optimum in exact arithmetic, see {@link SimplexRefinement}
+     */
+    public void setRefine(boolean refine) {
+        this.refine = refine;
+    }
+
+    /**
+     * Scale the standard LP before solving, see {@link Scaling}
+     */
+    public void setScaling(Scaling.ScalingType scaling) {
+        this.scaling = null == scaling ? Scaling.ScalingType.NONE : scaling;
+    }
+
     protected void toStringExtra(StringBuilder b) {
     }
 
@@ -340,7 +512,7 @@ public class GeneralLP implements Solver {
             b.append(String.format("%3d:", i + 1));
             // print a[i]
             for (int j = 0; j < n; j++) {
-                b.append(String.format(" %-8.3f", a[i][j])).append(' ');
+                b.append(String.format(" %-8.3f", a(i, j))).append(' ');
             }
             b.append(String.format(" %-2s  ", signs[i].getString())).append(this.b[i]);
         }
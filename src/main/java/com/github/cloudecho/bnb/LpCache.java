@@ -0,0 +1,312 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.util.Sign;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded LRU cache of solved LP relaxations.
+ * <p>
+ * Entries are keyed by the data of the original problem and the canonical bound/fixing set of a node,
+ * so the nodes of a model solved again return the cached state and objective at once.
+ * Within one tree a fixing set is never reached twice: two nodes which are not on one path
+ * differ in the var branched at their common ancestor. So the cache only pays for its copy of the problem
+ * and the keys of the nodes when a model is solved again, and it is off unless a capacity is given.
+ */
+public class LpCache {
+    private final int capacity;
+    private final Lru entries;
+
+    /**
+     * The problems of the keys, so that the keys of a problem share one instance, see {@link #intern(Problem)}
+     */
+    private final Map<Problem, WeakReference<Problem>> problems = new WeakHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of entries, {@code 0} disables the cache
+     */
+    public LpCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("negative capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new Lru(capacity, evictions);
+    }
+
+    /**
+     * Return the problem equal to p of the cached keys, or p if none. Then the keys compare it by identity,
+     * instead of by all its data.
+     */
+    Problem intern(Problem p) {
+        synchronized (problems) {
+            final WeakReference<Problem> r = problems.get(p);
+            final Problem q = null == r ? null : r.get();
+            if (q != null) {
+                return q;
+            }
+            problems.put(p, new WeakReference<>(p));
+            return p;
+        }
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Return the cached result, or {@code null} if absent.
+     */
+    Entry get(Key key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Entry e;
+        synchronized (entries) {
+            e = entries.get(key);
+        }
+        (null == e ? misses : hits).incrementAndGet();
+        return e;
+    }
+
+    void put(Key key, GeneralLP lp) {
+        if (!isEnabled()) {
+            return;
+        }
+        Entry e = new Entry(lp);
+        synchronized (entries) {
+            entries.put(key, e);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        synchronized (problems) {
+            problems.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "LpCache{" +
+                "size=" + size() +
+                ", capacity=" + capacity +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                '}';
+    }
+
+    /**
+     * The LRU map of the entries
+     */
+    private static final class Lru extends LinkedHashMap<Key, LpCache.Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        private final AtomicLong evictions;
+
+        Lru(int capacity, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, LpCache.Entry> eldest) {
+            if (size() > capacity) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The root problem of a tree: all its data, copied, and compared by equals, never by a hash alone
+     */
+    static final class Problem {
+        final ObjectiveType objectiveType;
+        final double c0;
+        final double[] c;
+        final double[][] a;
+        final CsrMatrix csr;
+        final Sign[] signs;
+        final double[] b;
+        final int[] freeVars;
+        final int[] intVars;
+        final int nBinVars;
+        final int precision;
+        private final int hash;
+
+        /**
+         * @param lp0 The root LP, whose A is dense or in compressed rows, which are immutable
+         */
+        Problem(GeneralLP lp0, int[] intVars, int nBinVars, int precision) {
+            this.objectiveType = lp0.objectiveType;
+            this.c0 = lp0.c0;
+            this.c = lp0.c.clone();
+            this.a = null == lp0.a ? null : copy(lp0.a);
+            this.csr = lp0.csr;
+            this.signs = lp0.signs.clone();
+            this.b = lp0.b.clone();
+            this.freeVars = lp0.freeVars.clone();
+            this.intVars = intVars.clone();
+            this.nBinVars = nBinVars;
+            this.precision = precision;
+            this.hash = hash();
+        }
+
+        private static double[][] copy(double[][] a) {
+            final double[][] r = new double[a.length][];
+            for (int i = 0; i < a.length; i++) {
+                r[i] = a[i].clone();
+            }
+            return r;
+        }
+
+        private int hash() {
+            int h = objectiveType.ordinal();
+            h = 31 * h + Double.hashCode(c0);
+            h = 31 * h + Arrays.hashCode(c);
+            h = 31 * h + (null == a ? csr.hashCode() : Arrays.deepHashCode(a));
+            h = 31 * h + Arrays.hashCode(signs);
+            h = 31 * h + Arrays.hashCode(b);
+            h = 31 * h + Arrays.hashCode(freeVars);
+            h = 31 * h + Arrays.hashCode(intVars);
+            h = 31 * h + nBinVars;
+            return 31 * h + precision;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Problem)) {
+                return false;
+            }
+            Problem p = (Problem) o;
+            return hash == p.hash
+                    && objectiveType == p.objectiveType
+                    && Double.compare(c0, p.c0) == 0
+                    && nBinVars == p.nBinVars
+                    && precision == p.precision
+                    && Arrays.equals(c, p.c)
+                    && Arrays.equals(signs, p.signs)
+                    && Arrays.equals(b, p.b)
+                    && Arrays.equals(freeVars, p.freeVars)
+                    && Arrays.equals(intVars, p.intVars)
+                    && Arrays.deepEquals(a, p.a)
+                    && (null == csr ? null == p.csr : csr.equals(p.csr));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static final class Key {
+        final Problem problem;
+        final String fixings;
+
+        Key(Problem problem, String fixings) {
+            this.problem = problem;
+            this.fixings = fixings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return fixings.equals(key.fixings) && problem.equals(key.problem);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * problem.hashCode() + fixings.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toHexString(problem.hashCode()) + '[' + fixings + ']';
+        }
+    }
+
+    /**
+     * The result of a solved LP, arrays are copied in and out, so a caller never modifies the cached ones.
+     */
+    static final class Entry {
+        final State state;
+        final int iterations;
+        final double objective;
+        final double[] x;
+        final double[] reducedCost;
+        final double[] shadowPrice;
+        final double[] slack;
+        final double[] dual;
+
+        Entry(GeneralLP lp) {
+            this.state = lp.state;
+            this.iterations = lp.iterations;
+            this.objective = lp.objective;
+            this.x = lp.x.clone();
+            this.reducedCost = lp.reducedCost.clone();
+            this.shadowPrice = lp.shadowPrice.clone();
+            this.slack = lp.slack.clone();
+            this.dual = lp.dual.clone();
+        }
+
+        void applyTo(GeneralLP lp) {
+            lp.state = state;
+            lp.iterations = iterations;
+            lp.objective = objective;
+            lp.x = x.clone();
+            lp.reducedCost = reducedCost.clone();
+            lp.shadowPrice = shadowPrice.clone();
+            lp.slack = slack.clone();
+            lp.dual = dual.clone();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.math.Matrix;
+import com.github.cloudecho.bnb.math.MappedDoubleMatrix;
+
+/**
+ * Primal simplex on a tableau in a memory-mapped temporary file, for the LPs which do not fit in memory.
+ * The tableau is written into the file from the data of the LP, never staged on the heap.
+ * The file is deleted at the end of {@link #solve()}.
+ *
+ * @see MappedDoubleMatrix
+ */
+public class MappedSimplex extends Simplex {
+    /**
+     * Constructor.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected MappedSimplex(double[] c, double[][] a, double[] b) {
+        super(c, a, b);
+    }
+
+    /**
+     * Constructor of a sparse LP, which is never dense on the heap.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A in compressed rows, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected MappedSimplex(double[] c, CsrMatrix a, double[] b) {
+        super(c, a, b);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[] c, double[][] a, double[] b, int max_n) {
+        return new MappedDoubleMatrix(c, a, b, max_n);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[][] table, int max_n) {
+        return new MappedDoubleMatrix(table, max_n);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(CsrMatrix table, int max_n) {
+        return new MappedDoubleMatrix(table, max_n);
+    }
+}
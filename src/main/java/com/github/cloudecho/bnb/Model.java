@@ -1,5 +1,6 @@
 package com.github.cloudecho.bnb;
 
+import com.github.cloudecho.bnb.math.CsrMatrix;
 import com.github.cloudecho.bnb.util.*;
 
 import java.util.ArrayList;
@@ -10,10 +11,24 @@ import java.util.Map;
 public class Model {
     static final Log LOG = LogFactory.getLog(Model.class);
 
+    public static final String DENSE_MAX_CELLS_PROP = "com.github.cloudecho.bnb.MODEL_DENSE_MAX_CELLS";
+
+    /**
+     * A larger model has no dense {@link #a}, and is solved in compressed rows
+     */
+    static final long DENSE_MAX_CELLS = Long.parseLong(System.getProperty(DENSE_MAX_CELLS_PROP, "16777216"));
+
     public ObjectiveType objectiveType;
     public double c0 = 0;
     public double[] c;
+    /**
+     * The matrix A, or {@code null} if m*n &gt; {@link #DENSE_MAX_CELLS}
+     */
     public double[][] a;
+    /**
+     * The matrix A in compressed rows, {@code null} if there is no constraint
+     */
+    public CsrMatrix csr;
     public Sign[] signs;
     public double[] b;
     public int[] freeVars;
@@ -27,6 +42,9 @@ public class Model {
     }
 
     public Solver newSolver() {
+        if (null == a) {
+            return new BnB(objectiveType, c0, c, csr, signs, b, freeVars, intVars, binVars);
+        }
         return new BnB(objectiveType, c0, c, a, signs, b, freeVars, intVars, binVars);
     }
 
@@ -323,8 +341,8 @@ public class Model {
                               List<String> intVars,
                               List<String> freeVars) {
             final int n = varIndexes.size();
+            final int rows = aMatrix.size();
             double[] c = new double[n];
-            double[][] a = new double[bVector.size()][n];
 
             cVector.forEach((var, v) -> {
                 Integer j = varIndexes.get(var);
@@ -333,19 +351,31 @@ public class Model {
                 }
             });
 
-            for (int k = 0; k < aMatrix.size(); k++) {
-                final int i = k;
-                Map<String, Double> row = aMatrix.get(i);
-                row.forEach((var, v) -> {
-                    Integer j = varIndexes.get(var);
-                    if (j != null) {
-                        a[i][j] = v;
-                    }
-                });
+            // A in compressed rows, from the parsed rows
+            final CsrMatrix csr;
+            if (rows > 0 && n > 0) {
+                final CsrMatrix.Builder builder = new CsrMatrix.Builder(n);
+                for (Map<String, Double> row : aMatrix) {
+                    row.forEach((var, v) -> {
+                        Integer j = varIndexes.get(var);
+                        if (j != null) {
+                            builder.add(j, v);
+                        }
+                    });
+                    builder.endRow();
+                }
+                csr = builder.build();
+            } else {
+                csr = null;
             }
 
             m.c = c;
-            m.a = a;
+            m.csr = csr;
+            if (null == csr) {
+                m.a = new double[rows][n];
+            } else if ((long) rows * n <= DENSE_MAX_CELLS) {
+                m.a = csr.toArray();
+            }
             m.b = Maths.toDoubleArray(bVector);
             m.signs = signs.toArray(new Sign[0]);
             m.binVars = toSubscripts(binVars, varIndexes);
@@ -0,0 +1,51 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.math.Matrix;
+import com.github.cloudecho.bnb.math.OffHeapDoubleMatrix;
+
+/**
+ * Primal simplex on a dense tableau outside of the Java heap, for the large LPs.
+ * The tableau is written into the direct buffers from the data of the LP, never staged on the heap.
+ * The memory is released at the end of {@link #solve()}.
+ *
+ * @see OffHeapDoubleMatrix
+ */
+public class OffHeapSimplex extends Simplex {
+    /**
+     * Constructor.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected OffHeapSimplex(double[] c, double[][] a, double[] b) {
+        super(c, a, b);
+    }
+
+    /**
+     * Constructor of a sparse LP, which is never dense on the heap.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A in compressed rows, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected OffHeapSimplex(double[] c, CsrMatrix a, double[] b) {
+        super(c, a, b);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[] c, double[][] a, double[] b, int max_n) {
+        return new OffHeapDoubleMatrix(c, a, b, max_n);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[][] table, int max_n) {
+        return new OffHeapDoubleMatrix(table, max_n);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(CsrMatrix table, int max_n) {
+        return new OffHeapDoubleMatrix(table, max_n);
+    }
+}
@@ -0,0 +1,416 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.Matrix;
+import com.github.cloudecho.bnb.math.Parallel;
+
+import java.util.Arrays;
+
+/**
+ * The pricing strategy of the primal simplex, i.e. the choice of the entering column.
+ * <p>
+ * Row 0 of the tableau holds the reduced costs d<sub>j</sub>, a column is attractive if d<sub>j</sub> is greater than
+ * the dual tolerance of the matrix.
+ * Weighted strategies choose the column maximizing d<sub>j</sub><sup>2</sup>/w<sub>j</sub>,
+ * the reference weights w<sub>j</sub> are updated incrementally on each pivot.
+ * <p>
+ * Full scans of very wide rows are fork/join reductions (see {@link Parallel#isParallel(int)}),
+ * ties are broken by the smallest index as the sequential scan does.
+ */
+public abstract class Pricing {
+    public static final String PRICING_PROP = "com.github.cloudecho.bnb.PRICING";
+
+    public enum PricingType {
+        /**
+         * The largest reduced cost
+         */
+        DANTZIG,
+        /**
+         * Approximate steepest edge in the reference framework of the initial non-basic variables
+         */
+        DEVEX,
+        /**
+         * Steepest edge, w<sub>j</sub> = 1 + ||B<sup>-1</sup>a<sub>j</sub>||<sup>2</sup>
+         */
+        STEEPEST_EDGE,
+        /**
+         * The largest reduced cost in a rotating window of {@link #PRICING_WINDOW} columns
+         */
+        PARTIAL,
+        /**
+         * The largest reduced cost among {@link #PRICING_CANDIDATES} candidates,
+         * refreshed by a full scan once they are exhausted
+         */
+        MULTIPLE;
+
+        static PricingType of(String name) {
+            for (PricingType t : values()) {
+                if (t.name().equalsIgnoreCase(name)) {
+                    return t;
+                }
+            }
+            return DANTZIG;
+        }
+    }
+
+    public static final String PRICING_WINDOW_PROP = "com.github.cloudecho.bnb.PRICING_WINDOW";
+    public static final String PRICING_CANDIDATES_PROP = "com.github.cloudecho.bnb.PRICING_CANDIDATES";
+
+    static final PricingType PRICING_TYPE = PricingType.of(System.getProperty(PRICING_PROP, "DANTZIG"));
+    /**
+     * The window size of {@link PricingType#PARTIAL}, 0 for max(64, n/8)
+     */
+    static final int PRICING_WINDOW = Integer.parseInt(System.getProperty(PRICING_WINDOW_PROP, "0"));
+    static final int PRICING_CANDIDATES = Integer.parseInt(System.getProperty(PRICING_CANDIDATES_PROP, "8"));
+
+    /**
+     * Create a pricing for a tableau with at most {@code max_n} columns.
+     */
+    static Pricing newPricing(PricingType t, int max_n) {
+        switch (t) {
+            case DEVEX:
+                return new Devex(max_n);
+            case STEEPEST_EDGE:
+                return new SteepestEdge(max_n);
+            case PARTIAL:
+                return new Partial(PRICING_WINDOW);
+            case MULTIPLE:
+                return new Multiple(PRICING_CANDIDATES);
+            case DANTZIG:
+            default:
+                return new Dantzig(max_n);
+        }
+    }
+
+    /**
+     * Return the entering column, or a column with d<sub>j</sub> &le; 0 if optimal.
+     *
+     * @param matrix The tableau
+     * @param n      The index of the b column, which never enters
+     * @param n2     The index of the last column
+     */
+    abstract int enter(Matrix<?> matrix, int n, int n2);
+
+    /**
+     * Called before pivoting on (r,c).
+     *
+     * @param leaving The leaving column
+     * @param m2      The index of the last row
+     */
+    void update(Matrix<?> matrix, int r, int c, int leaving, int m2, int n, int n2) {
+        // no weights
+    }
+
+    /**
+     * Return {@code true} if a row of n2 columns is scanned in parallel
+     */
+    static boolean isParallel(Matrix<?> matrix, int n2) {
+        return Parallel.isParallel(n2) && matrix.isConcurrentReadable();
+    }
+
+    /**
+     * Row 0 of a tableau in doubles is read once into a buffer, exact ones are compared in place
+     */
+    static final class Dantzig extends Pricing {
+        private final double[] row;
+
+        Dantzig(int max_n) {
+            this.row = new double[max_n];
+        }
+
+        @Override
+        int enter(Matrix<?> matrix, int n, int n2) {
+            final boolean buffered = !matrix.getTolerance().isExact();
+            if (buffered) {
+                matrix.copyRow(0, row, 0, n2);
+            }
+            final int w = isParallel(matrix, n2)
+                    ? Parallel.reduce(0, n2, Parallel.grain(1), (from, to) -> enter(matrix, buffered, n, from, to),
+                    (a, b) -> -1 == a || -1 != b && compare(matrix, buffered, a, b) < 0 ? b : a)
+                    : enter(matrix, buffered, n, 0, n2);
+            return w < 0 ? 0 : w;
+        }
+
+        /**
+         * The largest reduced cost in [from, to), the first one on ties, or -1 if none
+         */
+        private int enter(Matrix<?> matrix, boolean buffered, int n, int from, int to) {
+            int w = -1;
+            for (int j = from; j < to; j++) {
+                if (n == j) { // b column
+                    continue;
+                }
+                if (-1 == w || compare(matrix, buffered, w, j) < 0) {
+                    w = j;
+                }
+            }
+            return w;
+        }
+
+        private int compare(Matrix<?> matrix, boolean buffered, int j1, int j2) {
+            return buffered ? Double.compare(row[j1], row[j2]) : matrix.compare(0, j1, 0, j2);
+        }
+    }
+
+    /**
+     * Pricing by d<sub>j</sub><sup>2</sup>/w<sub>j</sub>
+     */
+    abstract static class Weighted extends Pricing {
+        final double[] weights;
+        boolean initialized = false;
+
+        Weighted(int max_n) {
+            this.weights = new double[max_n];
+        }
+
+        /**
+         * Initialize the weights after the initial base is found.
+         */
+        abstract void init(Matrix<?> matrix, int m2, int n, int n2);
+
+        @Override
+        int enter(Matrix<?> matrix, int n, int n2) {
+            if (!initialized) {
+                init(matrix, matrix.getRows() - 1, n, n2);
+                initialized = true;
+            }
+            final int w = isParallel(matrix, n2)
+                    ? Parallel.reduce(0, n2, Parallel.grain(1), (from, to) -> enter(matrix, n, from, to),
+                    (a, b) -> -1 == a || -1 != b && score(matrix, b) > score(matrix, a) ? b : a)
+                    : enter(matrix, n, 0, n2);
+            return w < 0 ? 0 : w; // d(0) <= 0 if none
+        }
+
+        /**
+         * The best score in [from, to), the first one on ties, or -1 if none
+         */
+        private int enter(Matrix<?> matrix, int n, int from, int to) {
+            final double tolerance = matrix.getTolerance().dual;
+            int w = -1;
+            double best = 0d;
+            for (int j = from; j < to; j++) {
+                if (n == j) { // b column
+                    continue;
+                }
+                final double d = matrix.getAsDouble(0, j);
+                if (d <= tolerance) {
+                    continue;
+                }
+                final double score = d * d / weights[j];
+                if (score > best) {
+                    best = score;
+                    w = j;
+                }
+            }
+            return w;
+        }
+
+        private double score(Matrix<?> matrix, int j) {
+            final double d = matrix.getAsDouble(0, j);
+            return d * d / weights[j];
+        }
+    }
+
+    /**
+     * Devex, by P.M.J. Harris (1973)
+     */
+    static final class Devex extends Weighted {
+        Devex(int max_n) {
+            super(max_n);
+        }
+
+        @Override
+        void init(Matrix<?> matrix, int m2, int n, int n2) {
+            Arrays.fill(weights, 1d);
+        }
+
+        @Override
+        void update(Matrix<?> matrix, int r, int c, int leaving, int m2, int n, int n2) {
+            if (!initialized) {
+                return;
+            }
+            final double pivot = matrix.getAsDouble(r, c);
+            final double wc = weights[c];
+            for (int j = 0; j < n2; j++) {
+                if (n == j || c == j) {
+                    continue;
+                }
+                final double alpha = matrix.getAsDouble(r, j);
+                if (0d == alpha) {
+                    continue;
+                }
+                final double ratio = alpha / pivot;
+                weights[j] = Math.max(weights[j], ratio * ratio * wc);
+            }
+            if (leaving >= 0) {
+                weights[leaving] = Math.max(wc / (pivot * pivot), 1d);
+            }
+        }
+    }
+
+    /**
+     * Steepest edge by Goldfarb and Reid (1977), updated with the pivot row and the entering column
+     */
+    static final class SteepestEdge extends Weighted {
+        private double[] column = new double[0];
+        private final double[] dots;
+
+        SteepestEdge(int max_n) {
+            super(max_n);
+            this.dots = new double[max_n];
+        }
+
+        @Override
+        void init(Matrix<?> matrix, int m2, int n, int n2) {
+            Arrays.fill(weights, 1d);
+            this.column = new double[m2 + 1];
+            for (int i = 1; i <= m2; i++) {
+                for (int j = 0; j < n2; j++) {
+                    if (n == j) {
+                        continue;
+                    }
+                    final double alpha = matrix.getAsDouble(i, j);
+                    weights[j] += alpha * alpha;
+                }
+            }
+        }
+
+        /**
+         * w'<sub>j</sub> = w<sub>j</sub> - 2&theta;<sub>j</sub>&alpha;<sub>j</sub><sup>T</sup>&alpha;<sub>c</sub>
+         * + &theta;<sub>j</sub><sup>2</sup>w<sub>c</sub>, where &theta;<sub>j</sub> = &alpha;<sub>rj</sub>/&alpha;<sub>rc</sub>
+         */
+        @Override
+        void update(Matrix<?> matrix, int r, int c, int leaving, int m2, int n, int n2) {
+            if (!initialized) {
+                return;
+            }
+            // dots(j) = alpha(j)' * alpha(c)
+            matrix.copyColumn(c, column, 1, m2 + 1);
+            column[0] = 0d;
+            matrix.multiplyLeft(column, n2, dots);
+
+            final double pivot = matrix.getAsDouble(r, c);
+            final double wc = weights[c];
+            for (int j = 0; j < n2; j++) {
+                if (n == j || c == j) {
+                    continue;
+                }
+                final double alpha = matrix.getAsDouble(r, j);
+                if (0d == alpha) {
+                    continue;
+                }
+                final double theta = alpha / pivot;
+                weights[j] = Math.max(weights[j] - 2d * theta * dots[j] + theta * theta * wc,
+                        1d + theta * theta);
+            }
+            if (leaving >= 0) {
+                weights[leaving] = Math.max(wc / (pivot * pivot), 1d);
+            }
+        }
+    }
+
+    /**
+     * Partial pricing, scanning the columns window by window from where the last scan stopped
+     */
+    static final class Partial extends Pricing {
+        private final int window;
+        private int start = 0;
+
+        Partial(int window) {
+            this.window = window;
+        }
+
+        @Override
+        int enter(Matrix<?> matrix, int n, int n2) {
+            final int size = window > 0 ? window : Math.max(64, n2 / 8);
+            int scanned = 0;
+            while (scanned < n2) {
+                int w = -1;
+                double best = matrix.getTolerance().dual;
+                for (int t = 0; t < size && scanned < n2; t++, scanned++) {
+                    final int j = (start + scanned) % n2;
+                    if (n == j) { // b column
+                        continue;
+                    }
+                    final double d = matrix.getAsDouble(0, j);
+                    if (d > best) {
+                        best = d;
+                        w = j;
+                    }
+                }
+                if (w >= 0) {
+                    this.start = (start + scanned) % n2;
+                    return w;
+                }
+            }
+            return 0; // d(0) <= 0
+        }
+    }
+
+    /**
+     * Multiple pricing, a full scan keeps the best columns as candidates for the next iterations
+     */
+    static final class Multiple extends Pricing {
+        private final int[] candidates;
+        private final double[] values;
+        private int count = 0;
+        private int minor = 0;
+
+        Multiple(int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("no candidates: " + size);
+            }
+            this.candidates = new int[size];
+            this.values = new double[size];
+        }
+
+        @Override
+        int enter(Matrix<?> matrix, int n, int n2) {
+            if (minor < candidates.length) {
+                int w = -1;
+                double best = matrix.getTolerance().dual;
+                for (int k = 0; k < count; k++) {
+                    final int j = candidates[k];
+                    if (j >= n2) { // discarded
+                        continue;
+                    }
+                    final double d = matrix.getAsDouble(0, j);
+                    if (d > best) {
+                        best = d;
+                        w = j;
+                    }
+                }
+                if (w >= 0) {
+                    minor++;
+                    return w;
+                }
+            }
+            refresh(matrix, n, n2);
+            this.minor = 1;
+            return 0 == count ? 0 : candidates[0]; // d(0) <= 0 if none
+        }
+
+        /**
+         * Keep the largest positive reduced costs, in descending order
+         */
+        private void refresh(Matrix<?> matrix, int n, int n2) {
+            final double tolerance = matrix.getTolerance().dual;
+            this.count = 0;
+            for (int j = 0; j < n2; j++) {
+                if (n == j) { // b column
+                    continue;
+                }
+                final double d = matrix.getAsDouble(0, j);
+                if (d <= tolerance || (count == candidates.length && d <= values[count - 1])) {
+                    continue;
+                }
+                int k = count < candidates.length ? count++ : count - 1;
+                for (; k > 0 && values[k - 1] < d; k--) {
+                    candidates[k] = candidates[k - 1];
+                    values[k] = values[k - 1];
+                }
+                candidates[k] = j;
+                values[k] = d;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.Matrix;
+import com.github.cloudecho.bnb.math.RationalMatrix;
+
+/**
+ * Exact version of Simplex, on rational numbers, e.g. to certify an optimum.
+ * Unlike {@link BigSimplex} nothing is rounded; it is faster while the numbers fit in longs, e.g. on small
+ * integer data, and slower once the subdeterminants grow beyond them.
+ */
+public class RationalSimplex extends Simplex {
+    /**
+     * Constructor.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected RationalSimplex(double[] c, double[][] a, double[] b) {
+        super(c, a, b);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[][] table, int max_n) {
+        return new RationalMatrix(table, max_n);
+    }
+}
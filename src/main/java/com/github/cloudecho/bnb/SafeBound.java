@@ -0,0 +1,285 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.util.Maths;
+import com.github.cloudecho.bnb.util.Sign;
+
+/**
+ * A rigorous bound of a solved LP from its dual solution (Neumaier and Shcherbina, 2004).
+ * <p>
+ * In the max form, any y with y<sub>i</sub> &ge; 0 on &le; rows, y<sub>i</sub> &le; 0 on &ge; rows
+ * and r = C - A<sup>T</sup>y gives, for every feasible X,
+ * <pre>
+ * CX &le; b<sup>T</sup>y + sup r<sup>T</sup>X
+ * </pre>
+ * whatever the accuracy of y. The sums are evaluated in interval arithmetic rounded outward,
+ * and the bounds of X, which keep the terms of r finite, are propagated from the rows.
+ * So the bound never cuts off the optimum of the LP, while {@link GeneralLP#getObjective()} may by round-off.
+ */
+public class SafeBound {
+    private SafeBound() {
+    }
+
+    /**
+     * Return an upper bound (max) or a lower bound (min) of the objective of the solved LP,
+     * or the infinity if the dual solution does not bound the LP.
+     */
+    public static double of(GeneralLP lp) {
+        final boolean isMax = lp.objectiveType.isMax();
+        final double infinity = isMax ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        if (!lp.state.isSolved()) {
+            return infinity;
+        }
+
+        final int m = lp.m;
+        final int n = lp.n;
+        final double[] y = dual(lp);
+        final double[] lower = new double[n];
+        final double[] upper = new double[n];
+        bounds(lp, lower, upper);
+
+        // b^T y
+        double u = 0d;
+        for (int i = 0; i < m; i++) {
+            u = addUp(u, mulUp(lp.b[i], y[i]));
+        }
+
+        // A^T y in [lo, hi], summed row by row over the non-zeros
+        final double[] lo = new double[n];
+        final double[] hi = new double[n];
+        final int[] index = new int[n];
+        final double[] value = new double[n];
+        for (int i = 0; i < m; i++) {
+            if (0d == y[i]) {
+                continue;
+            }
+            final int size = lp.row(i, index, value);
+            for (int k = 0; k < size; k++) {
+                final int j = index[k];
+                lo[j] = addDown(lo[j], mulDown(value[k], y[i]));
+                hi[j] = addUp(hi[j], mulUp(value[k], y[i]));
+            }
+        }
+
+        // r = C - A^T y
+        for (int j = 0; j < n; j++) {
+            final double c = isMax ? lp.c[j] : -lp.c[j];
+            u = addUp(u, sup(addDown(c, -hi[j]), addUp(c, -lo[j]), lower[j], upper[j]));
+            if (Double.isInfinite(u) || Double.isNaN(u)) {
+                return infinity;
+            }
+        }
+
+        return isMax ? addUp(lp.c0, u) : addDown(lp.c0, -u);
+    }
+
+    /**
+     * The dual of the max form, with the signs required by the rows
+     */
+    private static double[] dual(GeneralLP lp) {
+        final double[] y = new double[lp.m];
+        for (int i = 0; i < lp.m; i++) {
+            final Sign sign = lp.signs[i];
+            final double v = lp.dual[i];
+            if (Sign.LE == sign) {
+                y[i] = Math.max(v, 0d);
+            } else if (Sign.GE == sign) {
+                y[i] = Math.min(v, 0d);
+            } else {
+                y[i] = v;
+            }
+            if (Double.isNaN(y[i]) || Double.isInfinite(y[i])) {
+                y[i] = 0d;
+            }
+        }
+        return y;
+    }
+
+    /**
+     * The bounds of the vars: 0 or -&infin; and +&infin;, narrowed by the rows
+     */
+    private static void bounds(GeneralLP lp, double[] lower, double[] upper) {
+        for (int j = 0; j < lp.n; j++) {
+            lower[j] = Maths.contains(lp.freeVars, j + 1) ? Double.NEGATIVE_INFINITY : 0d;
+            upper[j] = Double.POSITIVE_INFINITY;
+        }
+        final int[] index = new int[lp.n];
+        final double[] value = new double[lp.n];
+        for (int pass = 0; pass < PROPAGATION_PASSES; pass++) {
+            for (int i = 0; i < lp.m; i++) {
+                final Sign sign = lp.signs[i];
+                final int size = lp.row(i, index, value);
+                if (Sign.GE != sign) {
+                    propagate(index, value, size, lp.b[i], 1d, lower, upper);
+                }
+                if (Sign.LE != sign) {
+                    propagate(index, value, size, lp.b[i], -1d, lower, upper);
+                }
+            }
+        }
+    }
+
+    private static final int PROPAGATION_PASSES = 2;
+
+    /**
+     * Narrow the bounds by the row s * A<sub>i</sub>X &le; s * b<sub>i</sub>, s = &plusmn;1,
+     * whose non-zeros are the first size of index and value
+     */
+    private static void propagate(int[] index, double[] value, int size, double b, double s,
+                                  double[] lower, double[] upper) {
+        // the minimal activity, its infinite terms excluded
+        double min = 0d;
+        int infinite = -1; // the var of the only infinite term, or -2 if more
+        for (int k = 0; k < size; k++) {
+            final int j = index[k];
+            final double t = minTerm(s * value[k], lower[j], upper[j]);
+            if (Double.isInfinite(t)) {
+                infinite = infinite == -1 ? j : -2;
+            } else {
+                min = addDown(min, t);
+            }
+        }
+        if (-2 == infinite) {
+            return;
+        }
+
+        for (int k = 0; k < size; k++) {
+            final int j = index[k];
+            final double a = s * value[k];
+            if (infinite >= 0 && infinite != j) {
+                continue;
+            }
+            final double t = minTerm(a, lower[j], upper[j]);
+            final double others = Double.isInfinite(t) ? min : addDown(min, -minTermUp(a, lower[j], upper[j]));
+            final double r = addUp(s * b, -others); // a x_j <= r
+            if (a > 0) {
+                upper[j] = Math.min(upper[j], divUp(r, a));
+            } else {
+                lower[j] = Math.max(lower[j], divDown(r, a));
+            }
+        }
+    }
+
+    /**
+     * inf { a x : x in [lower, upper] }, rounded down
+     */
+    private static double minTerm(double a, double lower, double upper) {
+        return mulDown(a, a > 0 ? lower : upper);
+    }
+
+    /**
+     * inf { a x : x in [lower, upper] }, rounded up
+     */
+    private static double minTermUp(double a, double lower, double upper) {
+        return mulUp(a, a > 0 ? lower : upper);
+    }
+
+    /**
+     * sup { r x : r in [rlo, rhi], x in [xlo, xhi] }, rounded up
+     */
+    private static double sup(double rlo, double rhi, double xlo, double xhi) {
+        double s = Math.max(mulUp(rlo, xlo), mulUp(rlo, xhi));
+        s = Math.max(s, mulUp(rhi, xlo));
+        return Math.max(s, mulUp(rhi, xhi));
+    }
+
+    // Directed rounding: the error of a result rounded to nearest is computed exactly (TwoSum, TwoProduct),
+    // and the result moves one ulp only if the error points outward, or is unknown (NaN) on overflow and underflow.
+
+    private static final double TINY = 0x1p-960; // below, the error of a product may underflow
+    private static final double HUGE = 0x1p995; // above, the split of a factor may overflow
+    private static final double SPLITTER = 0x1p27 + 1d; // Veltkamp's split into 26 and 27 bits
+
+    static double addUp(double x, double y) {
+        final double s = x + y;
+        return up(s, addError(x, y, s));
+    }
+
+    static double addDown(double x, double y) {
+        final double s = x + y;
+        return down(s, addError(x, y, s));
+    }
+
+    private static double addError(double x, double y, double s) {
+        if (Double.isInfinite(s)) {
+            return Double.isInfinite(x) || Double.isInfinite(y) ? 0d : Double.NaN;
+        }
+        final double bv = s - x;
+        return (x - (s - bv)) + (y - bv);
+    }
+
+    static double mulUp(double x, double y) {
+        if (0d == x || 0d == y) {
+            return 0d;
+        }
+        final double p = x * y;
+        return up(p, mulError(x, y, p));
+    }
+
+    static double mulDown(double x, double y) {
+        if (0d == x || 0d == y) {
+            return 0d;
+        }
+        final double p = x * y;
+        return down(p, mulError(x, y, p));
+    }
+
+    private static double mulError(double x, double y, double p) {
+        if (Double.isInfinite(p)) {
+            return Double.isInfinite(x) || Double.isInfinite(y) ? 0d : Double.NaN;
+        }
+        return Math.abs(p) < TINY ? Double.NaN : productError(x, y, p);
+    }
+
+    /**
+     * x * y - p exactly, p = x * y rounded to nearest (Dekker's TwoProduct, without FMA of Java 9),
+     * or NaN if a part may overflow
+     */
+    private static double productError(double x, double y, double p) {
+        if (Math.abs(x) > HUGE || Math.abs(y) > HUGE || Math.abs(p) > HUGE * 0x1p25) {
+            return Double.NaN;
+        }
+        final double cx = SPLITTER * x;
+        final double xh = cx - (cx - x);
+        final double xl = x - xh;
+        final double cy = SPLITTER * y;
+        final double yh = cy - (cy - y);
+        final double yl = y - yh;
+        return ((xh * yh - p) + xh * yl + xl * yh) + xl * yl;
+    }
+
+    static double divUp(double x, double y) {
+        final double q = x / y;
+        return up(q, divError(x, y, q));
+    }
+
+    static double divDown(double x, double y) {
+        final double q = x / y;
+        return down(q, divError(x, y, q));
+    }
+
+    /**
+     * The sign of x / y - q
+     */
+    private static double divError(double x, double y, double q) {
+        if (Double.isInfinite(q)) {
+            return Double.isInfinite(x) ? 0d : Double.NaN;
+        }
+        if (0d == x) {
+            return 0d;
+        }
+        final double p = q * y;
+        if (Math.abs(q) < TINY || Math.abs(p) < TINY) {
+            return Double.NaN;
+        }
+        // x - p is exact (Sterbenz), x - qy = (x - p) - (qy - p)
+        return Math.signum((x - p) - productError(q, y, p)) * Math.signum(y);
+    }
+
+    private static double up(double v, double error) {
+        return error > 0 || Double.isNaN(error) ? Math.nextUp(v) : v;
+    }
+
+    private static double down(double v, double error) {
+        return error < 0 || Double.isNaN(error) ? Math.nextDown(v) : v;
+    }
+}
@@ -0,0 +1,295 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.util.Log;
+import com.github.cloudecho.bnb.util.LogFactory;
+
+import java.util.Arrays;
+
+/**
+ * Row and column scaling of a standard LP: A' = RAS, b' = Rb, C' = CS with diagonal R and S, so that the non-zeros
+ * of A' are close to 1 and the simplex works on a better conditioned tableau.
+ * The solution of the scaled LP is X = SX', y = Ry' and d = d'/S; the objective is the same.
+ * <p>
+ * The factors are powers of 2, so scaling and unscaling are exact.
+ * A column with a single non-zero, e.g. a slack, is scaled to &plusmn;1 and stays a unit column.
+ */
+public class Scaling {
+    static final Log LOG = LogFactory.getLog(Scaling.class);
+
+    public static final String SCALING_PROP = "com.github.cloudecho.bnb.SCALING";
+
+    public enum ScalingType {
+        NONE,
+        /**
+         * Passes of geometric mean scaling, R<sub>i</sub> = 1/sqrt(min<sub>j</sub>|a<sub>ij</sub>| *
+         * max<sub>j</sub>|a<sub>ij</sub>|) and likewise S<sub>j</sub>, then an equilibration
+         */
+        GEOMETRIC,
+        /**
+         * The largest |a<sub>ij</sub>| of each row, then of each column, is scaled to 1
+         */
+        EQUILIBRATION;
+
+        static ScalingType of(String name) {
+            for (ScalingType t : values()) {
+                if (t.name().equalsIgnoreCase(name)) {
+                    return t;
+                }
+            }
+            return NONE;
+        }
+    }
+
+    /**
+     * The default of {@link GeneralLP#setScaling(ScalingType)}, NONE: scaling pays a pass over A and the unscaling of
+     * the results, and only helps a badly conditioned A
+     */
+    static final ScalingType SCALING_TYPE = ScalingType.of(System.getProperty(SCALING_PROP, "NONE"));
+
+    /**
+     * At most this number of geometric passes, fewer if the spread of |a<sub>ij</sub>| stops improving
+     */
+    static final int GEOMETRIC_PASSES = 8;
+
+    /**
+     * A pass improves the spread by at least this factor, or it is the last one
+     */
+    static final double GEOMETRIC_IMPROVEMENT = 0.9d;
+
+    final double[] row;
+    final double[] column;
+
+    private Scaling(int m, int n) {
+        this.row = new double[m];
+        this.column = new double[n];
+        Arrays.fill(row, 1d);
+        Arrays.fill(column, 1d);
+    }
+
+    /**
+     * Compute the factors of the matrix a, m rows, n columns. The matrix is not changed.
+     */
+    static Scaling of(ScalingType t, double[][] a) {
+        return of(t, a.length, a[0].length, e -> {
+            for (int i = 0; i < a.length; i++) {
+                for (int j = 0; j < a[i].length; j++) {
+                    if (0d != a[i][j]) {
+                        e.accept(i, j, a[i][j]);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Compute the factors of the matrix a in compressed rows
+     */
+    static Scaling of(ScalingType t, CsrMatrix a) {
+        return of(t, a.getRows(), a.getColumns(), e -> {
+            for (int i = 0; i < a.getRows(); i++) {
+                for (int k = a.rowStart(i); k < a.rowEnd(i); k++) {
+                    e.accept(i, a.columnAt(k), a.valueAt(k));
+                }
+            }
+        });
+    }
+
+    private static Scaling of(ScalingType t, int m, int n, NonZeros a) {
+        final Scaling s = new Scaling(m, n);
+        if (ScalingType.GEOMETRIC == t) {
+            double spread = s.spread(a);
+            for (int pass = 0; pass < GEOMETRIC_PASSES; pass++) {
+                s.geometric(a, true);
+                s.geometric(a, false);
+                final double last = spread;
+                spread = s.spread(a);
+                if (spread > GEOMETRIC_IMPROVEMENT * last) {
+                    break;
+                }
+            }
+        }
+        if (ScalingType.NONE != t) {
+            s.equilibrate(a, true);
+            s.equilibrate(a, false);
+        }
+        LOG.debug("scaling", t, "spread", s.spread(a));
+        return s;
+    }
+
+    /**
+     * Return {@code true} if all the factors are 1
+     */
+    boolean isIdentity() {
+        for (double f : row) {
+            if (1d != f) {
+                return false;
+            }
+        }
+        for (double f : column) {
+            if (1d != f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The decimal digits lost by unscaling a value rounded in the scaled LP, i.e. log<sub>10</sub> of the largest
+     * factor of X, y and d
+     */
+    int digits() {
+        double max = 1d;
+        for (double f : row) {
+            max = Math.max(max, f);
+        }
+        for (double f : column) {
+            max = Math.max(max, Math.max(f, 1d / f));
+        }
+        return (int) Math.ceil(Math.log10(max));
+    }
+
+    /**
+     * Scale a to RAS in place
+     */
+    void scale(double[][] a) {
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < a[i].length; j++) {
+                a[i][j] *= row[i] * column[j];
+            }
+        }
+    }
+
+    /**
+     * Return RAS in compressed rows, of the same non-zeros
+     */
+    CsrMatrix scale(CsrMatrix a) {
+        final double[] values = new double[a.nonZeros()];
+        for (int i = 0; i < a.getRows(); i++) {
+            for (int k = a.rowStart(i); k < a.rowEnd(i); k++) {
+                values[k] = a.valueAt(k) * row[i] * column[a.columnAt(k)];
+            }
+        }
+        return a.withValues(values);
+    }
+
+    /**
+     * Return Rb
+     */
+    double[] scaleRows(double[] b) {
+        final double[] r = new double[b.length];
+        for (int i = 0; i < b.length; i++) {
+            r[i] = b[i] * row[i];
+        }
+        return r;
+    }
+
+    /**
+     * Return CS
+     */
+    double[] scaleColumns(double[] c) {
+        final double[] r = new double[c.length];
+        for (int j = 0; j < c.length; j++) {
+            r[j] = c[j] * column[j];
+        }
+        return r;
+    }
+
+    /**
+     * X = SX'
+     */
+    double[] unscaleX(double[] x) {
+        return scaleColumns(x);
+    }
+
+    /**
+     * d = d'/S
+     */
+    double[] unscaleReducedCost(double[] d) {
+        final double[] r = new double[d.length];
+        for (int j = 0; j < d.length; j++) {
+            r[j] = d[j] / column[j];
+        }
+        return r;
+    }
+
+    /**
+     * y = Ry'
+     */
+    double[] unscaleShadowPrice(double[] y) {
+        return scaleRows(y);
+    }
+
+    /**
+     * A geometric pass of the rows, or of the columns
+     */
+    private void geometric(NonZeros a, boolean rows) {
+        final double[] f = rows ? row : column;
+        final double[] min = new double[f.length];
+        final double[] max = new double[f.length];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        a.forEach((i, j, v) -> {
+            final double abs = Math.abs(v * row[i] * column[j]);
+            final int k = rows ? i : j;
+            if (abs > 0d) {
+                min[k] = Math.min(min[k], abs);
+                max[k] = Math.max(max[k], abs);
+            }
+        });
+        for (int k = 0; k < f.length; k++) {
+            if (max[k] > 0d) {
+                f[k] *= pow2(1d / Math.sqrt(min[k] * max[k]));
+            }
+        }
+    }
+
+    /**
+     * Equilibrate the rows, or the columns
+     */
+    private void equilibrate(NonZeros a, boolean rows) {
+        final double[] f = rows ? row : column;
+        final double[] max = new double[f.length];
+        a.forEach((i, j, v) -> {
+            final int k = rows ? i : j;
+            max[k] = Math.max(max[k], Math.abs(v * row[i] * column[j]));
+        });
+        for (int k = 0; k < f.length; k++) {
+            if (max[k] > 0d) {
+                f[k] *= pow2(1d / max[k]);
+            }
+        }
+    }
+
+    /**
+     * max |a'<sub>ij</sub>| / min |a'<sub>ij</sub>| over the non-zeros of the scaled matrix
+     */
+    private double spread(NonZeros a) {
+        final double[] minMax = {Double.POSITIVE_INFINITY, 0d};
+        a.forEach((i, j, v) -> {
+            final double abs = Math.abs(v * row[i] * column[j]);
+            if (abs > 0d) {
+                minMax[0] = Math.min(minMax[0], abs);
+                minMax[1] = Math.max(minMax[1], abs);
+            }
+        });
+        return minMax[1] > 0d ? minMax[1] / minMax[0] : 1d;
+    }
+
+    /**
+     * The non-zeros of a matrix, row by row
+     */
+    private interface NonZeros {
+        void forEach(Element e);
+    }
+
+    private interface Element {
+        void accept(int i, int j, double v);
+    }
+
+    /**
+     * The power of 2 nearest to v &gt; 0, in the log scale
+     */
+    static double pow2(double v) {
+        return Math.scalb(1d, Math.getExponent(v * Math.sqrt(2d)));
+    }
+}
@@ -1,12 +1,18 @@
 package com.github.cloudecho.bnb;
 
-import com.github.cloudecho.bnb.math.DoubleMatrix;
+import com.github.cloudecho.bnb.math.AbstractMatrix;
+import com.github.cloudecho.bnb.math.Buffers;
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.math.FlatDoubleMatrix;
 import com.github.cloudecho.bnb.math.Matrix;
+import com.github.cloudecho.bnb.math.Parallel;
+import com.github.cloudecho.bnb.math.Tolerance;
 import com.github.cloudecho.bnb.util.Log;
 import com.github.cloudecho.bnb.util.LogFactory;
 import com.github.cloudecho.bnb.util.Maths;
 
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Primal Simplex.
@@ -46,6 +52,7 @@ public class Simplex implements Solver {
     private final int m;
     private final int n;
     private final Matrix<?> matrix; // double[m+1][n+1+m]
+    private final Tolerance tolerance;
     private final int[] base; // int[m]
 
     /**
@@ -65,6 +72,14 @@ public class Simplex implements Solver {
 
     private int precision = DEFAULT_PRECISION;
 
+    private Pricing pricing;
+
+    // buffers of the bulk reads, see PrimitiveMatrix
+    private final double[] column;
+    private final double[] rhs;
+    private final double[] row;
+    private final double[] row0;
+
     /**
      * Constructor.
      *
@@ -73,8 +88,23 @@ public class Simplex implements Solver {
      * @param b The vector b, m rows, 1 column
      */
     protected Simplex(double[] c, double[][] a, double[] b) {
-        this.m = a.length;
-        this.n = a[0].length;
+        this(c, a, null, b);
+    }
+
+    /**
+     * Constructor of a sparse LP, whose tableau is created by {@link #createMatrix(CsrMatrix, int)}.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A in compressed rows, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected Simplex(double[] c, CsrMatrix a, double[] b) {
+        this(c, null, a, b);
+    }
+
+    private Simplex(double[] c, double[][] a, CsrMatrix sparse, double[] b) {
+        this.m = null == sparse ? a.length : sparse.getRows();
+        this.n = null == sparse ? a[0].length : sparse.getColumns();
 
         this.cycling = new C(n);
 
@@ -91,58 +121,198 @@ public class Simplex implements Solver {
         this.shadowPrice = new double[m];
         this.yIndexes = new int[m];
         this.base = new int[m];
-        final double[][] table = new double[m + 1][n + 1];
+        // m aVars reserved
+        this.matrix = null == sparse ? createMatrix(c, a, b, n + 1 + m) : createMatrix(table(c, sparse, b), n + 1 + m);
+        this.tolerance = matrix.getTolerance();
+        this.column = Buffers.takeAtLeast(m + 1);
+        this.rhs = Buffers.takeAtLeast(m + 1);
+        this.row = Buffers.takeAtLeast(n + 1 + m);
+        this.row0 = Buffers.takeAtLeast(n + 1 + m);
+        this.pricing = Pricing.newPricing(Pricing.PRICING_TYPE, n + 1 + m);
+    }
+
+    /**
+     * Set the pricing strategy, before solving.
+     */
+    public void setPricing(Pricing.PricingType t) {
+        this.pricing = Pricing.newPricing(t, n + 1 + m);
+    }
+
+    /**
+     * Create the matrix of the initial simplex table, i.e. the row c, then the rows of a with b in the last column.
+     * The table is staged in {@link Buffers} for {@link #createMatrix(double[][], int)}, the engines whose tableau
+     * is not on the heap fill it from c, a and b instead.
+     */
+    protected Matrix<?> createMatrix(double[] c, double[][] a, double[] b, int max_n) {
+        final double[][] table = Buffers.take(m + 1, n + 1);
 
         // table[0]
-        table[0] = Arrays.copyOf(c, n + 1);
+        System.arraycopy(c, 0, table[0], 0, n);
 
         // table[1..m+1]
         for (int i = 1; i <= m; i++) { // for each row
-            table[i] = Arrays.copyOf(a[i - 1], n + 1);
+            System.arraycopy(a[i - 1], 0, table[i], 0, n);
             table[i][n] = b[i - 1];
         }
 
-        this.matrix = createMatrix(table, n + 1 + m); // m aVars reserved
+        final Matrix<?> matrix = createMatrix(table, max_n);
+        Buffers.give(table);
+        return matrix;
+    }
+
+    /**
+     * The initial simplex table of a sparse LP, in compressed rows
+     */
+    private static CsrMatrix table(double[] c, CsrMatrix a, double[] b) {
+        final int n = a.getColumns();
+        final CsrMatrix.Builder builder = new CsrMatrix.Builder(n + 1, a.getRows() + 1, a.nonZeros() + c.length + b.length);
+        for (int j = 0; j < n; j++) {
+            builder.add(j, c[j]);
+        }
+        builder.endRow();
+        for (int i = 0; i < a.getRows(); i++) {
+            for (int k = a.rowStart(i); k < a.rowEnd(i); k++) {
+                builder.add(a.columnAt(k), a.valueAt(k));
+            }
+            builder.add(n, b[i]);
+            builder.endRow();
+        }
+        return builder.build();
     }
 
+    /**
+     * Create the matrix of the table, which is copied, as the table is given back to {@link Buffers} after.
+     */
     protected Matrix<?> createMatrix(double[][] table, int max_n) {
-        return new DoubleMatrix(table, max_n);
+        return new FlatDoubleMatrix(table, max_n);
+    }
+
+    /**
+     * Create the matrix of the table of a sparse LP. The engines on dense tableaus get it dense.
+     */
+    protected Matrix<?> createMatrix(CsrMatrix table, int max_n) {
+        return createMatrix(table.toArray(), max_n);
+    }
+
+    /**
+     * The columns pivoted into the base first, null if none
+     */
+    private int[] startBase;
+
+    /**
+     * Warm start: pivot the columns into the base first, e.g. the base of another simplex on the same LP,
+     * see {@link #getBase()}. Before solving.
+     * <p>
+     * A column is pivoted in the row of its largest element, so a b made infeasible by a wrong base is repaired
+     * by pivots on negative b before the primal pivots.
+     */
+    public void setStartBase(int[] columns) {
+        this.startBase = columns.clone();
+    }
+
+    /**
+     * The structural columns in the base after solving, by row
+     */
+    public int[] getBase() {
+        return Arrays.stream(base, 0, m2()).filter(j -> j >= 0 && j < n).toArray();
     }
 
     private int iterations = 0;
     private State state = State.ZERO;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Stop solving as soon as possible, the state remains {@link State#SOLVING}.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
 
     @Override
     public void solve() {
-        this.state = State.SOLVING;
-        this.cycling.reset();
-        this.preprocess();
-        LOG.trace("preprocess", this);
+        try {
+            this.state = State.SOLVING;
+            this.cycling.reset();
+            this.preprocess();
+            LOG.trace("preprocess", this);
 
-        this.initBase();
-        LOG.debug("success to init base");
-        LOG.trace(this);
+            this.initBase();
+            LOG.debug("success to init base");
+            LOG.trace(this);
 
-        while (this.pivot()) ;
-        if (State.SOLVING == this.state) {
-            this.cycling.reset();
-            while (this.pivotOnNegative()) ;
-        }
-        this.setXnMax();
-        if (State.SOLVING == this.state) {
-            this.state = State.SOLVED;
+            if (startBase != null) {
+                while (this.pivotOnNegative()) ;
+                this.cycling.reset();
+            }
+            if (State.SOLVING == this.state) {
+                while (this.pivot()) ;
+            }
+            this.unperturb();
+            if (State.SOLVING == this.state) {
+                this.cycling.reset();
+                while (this.pivotOnNegative()) ;
+            }
+            if (cancelled) {
+                LOG.debug("cancelled", "iter", iterations);
+                return;
+            }
+            this.setXnMax();
+            if (State.SOLVING == this.state) {
+                this.state = State.SOLVED;
+            }
+
+            LOG.trace(this);
+        } finally {
+            this.release();
         }
+    }
+
+    private boolean released = false;
 
-        LOG.trace(this);
+    /**
+     * Release the matrix if it holds resources (e.g. off-heap memory), or give it and the buffers back to the pool
+     * of the thread, see {@link Buffers}. The results are kept. Also by {@link SimplexPortfolio}, for an engine
+     * which never started solving.
+     */
+    void release() {
+        final boolean pooled = Buffers.isEnabled();
+        if (!(pooled || matrix instanceof AutoCloseable) || released) {
+            return;
+        }
+        this.released = true;
+        if (pooled) {
+            Buffers.give(column);
+            Buffers.give(rhs);
+            Buffers.give(row);
+            Buffers.give(row0);
+            if (matrix instanceof AbstractMatrix) {
+                ((AbstractMatrix<?>) matrix).recycle();
+            }
+        }
+        if (!(matrix instanceof AutoCloseable)) {
+            return;
+        }
+        try {
+            ((AutoCloseable) matrix).close();
+        } catch (Exception e) {
+            LOG.warn("failed to release the matrix", e);
+        }
     }
 
     /**
      * Return {@code true} if continue
      */
     private boolean pivotOnNegative() {
+        if (cancelled) {
+            return false;
+        }
         boolean goOn = false;
         for (int i = 1; i <= m2(); i++) {
-            if (matrix.nonNegative(i, n)) {
+            if (matrix.getAsDouble(i, n) >= -tolerance.primal) {
                 continue;
             }
             // pivot on negative number
@@ -157,25 +327,48 @@ public class Simplex implements Solver {
                 return false; // cycling
             }
 
-            LOG.debug("iter", iterations, "pivot (", i, j, ") on negative", matrix.getAsDouble(i, j), 'b', matrix.getAsDouble(i, n));
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("iter", iterations, "pivot (", i, j, ") on negative", matrix.getAsDouble(i, j), 'b', matrix.getAsDouble(i, n));
+            }
             this.iterations++;
             goOn = true;
             pivot(i, j);
-            LOG.trace(this);
+            if (LOG.isTraceEnabled()) {
+                LOG.trace(this);
+            }
         }
         return goOn;
     }
 
+    /**
+     * Harris two-pass ratio test on the row r (b<sub>r</sub> &lt; 0), keeping row 0 non-positive
+     */
     private int indexOfMinRatioColumn(int r) {
-        double minr = 0;
+        matrix.copyRow(r, row, 0, n);
+        matrix.copyRow(0, row0, 0, n);
+
+        // pass 1: the min ratio, relaxed by the dual tolerance
+        double bound = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < n; j++) {
+            if (row[j] >= -tolerance.pivot || Maths.contains(base, j)) {
+                continue;
+            }
+            final double ratio = tolerance.isExact() ? matrix.divideAsDouble(0, j, r, j)
+                    : (row0[j] - tolerance.dual) / row[j];
+            bound = Math.min(bound, ratio);
+        }
+
+        // pass 2: the largest pivot within the bound, or the first min ratio if exact
+        double maxa = 0;
         int w = -1; // not found
         for (int j = 0; j < n; j++) {
-            if (matrix.nonNegative(r, j) || Maths.contains(base, j)) {
+            final double a = -row[j];
+            if (a <= tolerance.pivot || Maths.contains(base, j)) {
                 continue;
             }
-            final double ratio = matrix.divideAsDouble(0, j, r, j);
-            if (minr > ratio || -1 == w) {
-                minr = ratio;
+            final double ratio = tolerance.isExact() ? matrix.divideAsDouble(0, j, r, j) : row0[j] / row[j];
+            if (ratio <= bound && (tolerance.isExact() ? -1 == w : a > maxa)) {
+                maxa = a;
                 w = j;
             }
         }
@@ -241,7 +434,7 @@ public class Simplex implements Solver {
 
     private void initBase() {
         int[] vars = arr0to(n);
-        int count = 0;
+        int count = startBase != null ? warmStart(vars) : 0;
         for (int j = n - 1; j >= 0 && count < m; j--) {
             int w = baseVar(j);
             if (w > -1 && base[w] < 0) {
@@ -252,6 +445,9 @@ public class Simplex implements Solver {
             }
         }
 
+        if (count < m && crash) {
+            count += crash(vars);
+        }
         if (count < m) {
             for (int j = 0; j < n; j++) {
                 if (vars[j] < 0) { // j selected
@@ -273,6 +469,183 @@ public class Simplex implements Solver {
         addAvars();
     }
 
+    /**
+     * Pivot the columns of {@link #startBase} in the rows of their largest elements, return the number of pivots
+     */
+    private int warmStart(int[] vars) {
+        int count = 0;
+        for (int j : startBase) {
+            if (j < 0 || j >= n || vars[j] < 0) {
+                continue;
+            }
+            double maxa = tolerance.pivot;
+            int r = -1;
+            for (int i = 1; i <= m2(); i++) {
+                final double a = Math.abs(matrix.getAsDouble(i, j));
+                if (base[i - 1] < 0 && a > maxa && !matrix.isZero(i, j)) {
+                    maxa = a;
+                    r = i;
+                }
+            }
+            if (r < 0) {
+                continue;
+            }
+            LOG.trace("warm start", 'r', r, "var", j);
+            vars[j] = -1; // mark selected
+            pivot(r, j);
+            yIndexes[r - 1] = j;
+            count++;
+        }
+        LOG.debug("warm start", count, "of", startBase.length);
+        return count;
+    }
+
+    public static final String CRASH_PROP = "com.github.cloudecho.bnb.CRASH";
+    /**
+     * The default of {@link #setCrash(boolean)}, on
+     */
+    static final boolean CRASH = Boolean.parseBoolean(System.getProperty(CRASH_PROP, "true"));
+    /**
+     * A crash pivot is at least this fraction of the largest element of its column
+     */
+    static final double CRASH_PIVOT = 0.01d;
+    /**
+     * The columns of a row tried by the ratio test of the crash, the sparsest first
+     */
+    static final int CRASH_CANDIDATES = 8;
+
+    private boolean crash = CRASH;
+
+    /**
+     * Crash the initial base or not, before solving. See {@link #crash(int[])}.
+     */
+    public void setCrash(boolean crash) {
+        this.crash = crash;
+    }
+
+    /**
+     * Lower triangular crash (after R. E. Bixby, 1992): the active submatrix is the rows without a base variable and
+     * the structural columns not in the base. The active row of the fewest columns it could be pivoted on, i.e. the
+     * non-zeros if b<sub>r</sub> is zero, the positive elements otherwise, is pivoted on in the column of its sparsest
+     * candidates (the most attractive first) which keeps b feasible, i.e. b<sub>r</sub> is zero or r is the min ratio
+     * row, and whose element is not small compared to its column. Then the row and every column with a non-zero in it
+     * leave the active submatrix, so the crashed columns form a lower triangular basis: a pivot never changes the
+     * active columns, each one is on an element of the initial tableau. The rows left are tried by the natural order
+     * loop of {@link #initBase()}, then by artificials.
+     * <p>
+     * Return the number of pivots.
+     */
+    private int crash(int[] vars) {
+        final int m2 = m2();
+        final double[] a = new double[m2 + 1];
+        final int[] rowCount = new int[m2 + 1];
+        final int[] positiveCount = new int[m2 + 1];
+        final int[] columnCount = new int[n];
+        final double[] columnMax = new double[n];
+        final boolean[] active = new boolean[n];
+        for (int j = 0; j < n; j++) {
+            if (vars[j] < 0) { // j selected
+                continue;
+            }
+            active[j] = true;
+            matrix.copyColumn(j, a, 0, m2 + 1);
+            for (int i = 1; i <= m2; i++) {
+                final double v = Math.abs(a[i]);
+                columnMax[j] = Math.max(columnMax[j], v);
+                if (v > tolerance.pivot && base[i - 1] < 0) {
+                    columnCount[j]++;
+                    rowCount[i]++;
+                    if (a[i] > 0d) {
+                        positiveCount[i]++;
+                    }
+                }
+            }
+        }
+
+        final Integer[] candidates = new Integer[n];
+        int count = 0;
+        while (true) {
+            // the active row of the fewest columns it could be pivoted on
+            int r = -1;
+            int rCount = 0;
+            for (int i = 1; i <= m2; i++) {
+                final int k = matrix.isZero(i, n) ? rowCount[i] : positiveCount[i];
+                if (base[i - 1] < 0 && k > 0 && (r < 0 || k < rCount)) {
+                    r = i;
+                    rCount = k;
+                }
+            }
+            if (r < 0) {
+                break;
+            }
+
+            matrix.copyRow(r, row, 0, n);
+            int k = 0;
+            for (int j = 0; j < n; j++) {
+                final double v = Math.abs(row[j]);
+                if (active[j] && v > tolerance.pivot && v >= CRASH_PIVOT * columnMax[j]) {
+                    candidates[k++] = j;
+                }
+            }
+            matrix.copyRow(0, row0, 0, n);
+            Arrays.sort(candidates, 0, k, (j1, j2) -> columnCount[j1] != columnCount[j2]
+                    ? Integer.compare(columnCount[j1], columnCount[j2])
+                    : Double.compare(row0[j2], row0[j1]));
+            int w = -1;
+            final boolean degenerate = matrix.isZero(r, n);
+            for (int t = 0; t < Math.min(k, CRASH_CANDIDATES); t++) {
+                final int j = candidates[t];
+                if (degenerate || row[j] > 0d && isRatioRow(r, j)) {
+                    w = j;
+                    break;
+                }
+            }
+            // the row leaves the active submatrix, with the columns of non-zeros in it if crashed
+            rowCount[r] = 0;
+            positiveCount[r] = 0;
+            if (w < 0) {
+                for (int t = 0; t < k; t++) {
+                    columnCount[candidates[t]]--;
+                }
+                continue;
+            }
+            for (int j = 0; j < n; j++) {
+                if (active[j] && Math.abs(row[j]) > tolerance.pivot) {
+                    active[j] = false;
+                    matrix.copyColumn(j, a, 0, m2 + 1);
+                    for (int i = 1; i <= m2; i++) {
+                        if (Math.abs(a[i]) > tolerance.pivot && base[i - 1] < 0) {
+                            rowCount[i]--;
+                            if (a[i] > 0d) {
+                                positiveCount[i]--;
+                            }
+                        }
+                    }
+                }
+            }
+
+            LOG.trace("crash", 'r', r, "var", w);
+            vars[w] = -1; // mark selected
+            pivot(r, w);
+            yIndexes[r - 1] = w;
+            count++;
+        }
+        LOG.debug("crash", count);
+        return count;
+    }
+
+    /**
+     * Return {@code true} if a pivot on (r,c) keeps b feasible, i.e. the row r passes the ratio test of the column c:
+     * it is the min ratio row, or a tie within the Harris bound if inexact
+     */
+    private boolean isRatioRow(int r, int c) {
+        final int v = indexOfMinRatio(c);
+        if (v == r || v < 0 || tolerance.isExact()) {
+            return v == r;
+        }
+        return column[r] > tolerance.pivot && rhs[r] / column[r] <= ratioBound(c, 1, m2() + 1);
+    }
+
     private void addAvars() {
         if (nAvars == 0) {
             return;
@@ -316,11 +689,15 @@ public class Simplex implements Solver {
      * Return {@code true} if continue
      */
     private boolean pivot() {
-        final int w = indexOfMaxc();
+        if (cancelled) {
+            return false;
+        }
+        final int w = bland ? indexOfFirstc() : indexOfMaxc();
         if (LOG.isDebugEnabled()) {
             LOG.debug("iter=" + iterations, "e=" + w, "maxc=" + Maths.round(matrix.getAsDouble(0, w), precision));
         }
-        if (matrix.nonPositive(0, w)) {
+        if (matrix.getAsDouble(0, w) <= tolerance.dual) {
+            this.unperturb(); // before the aVars are driven out on their zero rows
             return this.driveAvars();
         }
 
@@ -329,24 +706,50 @@ public class Simplex implements Solver {
         // not found, i.e. each of table[][w] <=0, unbounded
         if (-1 == r) {
             this.state = State.UNBOUNDED;
+            this.unperturb();
             return this.driveAvars();
         }
 
-        // detect cycling
-        if (w < n && cycling.inc(w)) {
-            LOG.debug("cycling detected", '(', r, w, ')');
-            this.state = State.NO_SOLUTION;
-            return false;
+        // degenerate pivot
+        if (null == perturbation && matrix.getAsDouble(r, n) <= tolerance.primal && perturb()) {
+            r = indexOfMinRatio(w);
+        }
+
+        // detect cycling, i.e. the vars enter too often; Bland's rule never cycles, however long it runs
+        if (w < n && !bland && cycling.inc(w)) {
+            if (perturbations < MAX_PERTURBATIONS && perturb()) {
+                LOG.debug("cycling detected", '(', r, w, ')', "perturbation", perturbations);
+                cycling.reset();
+                return true;
+            }
+            LOG.debug("cycling detected", '(', r, w, ')', "Bland's rule");
+            this.bland = true;
+            return true;
         }
 
         this.iterations++;
         pivot(r, w);
-        LOG.trace(this);
+        if (LOG.isTraceEnabled()) {
+            LOG.trace(this);
+        }
 
         return true;
     }
 
     private void pivot(int r, int c) {
+        if (perturbation != null) {
+            // the same row operations as the b column
+            final int m2 = m2();
+            matrix.copyColumn(c, column, 0, m2 + 1);
+            final double dr = perturbation[r] / column[r];
+            for (int i = 0; i <= m2; i++) {
+                if (i != r) {
+                    perturbation[i] -= column[i] * dr;
+                }
+            }
+            perturbation[r] = dr;
+        }
+        pricing.update(matrix, r, c, base[r - 1], m2(), n, n2());
         matrix.gaussian(r, c);
         base[r - 1] = c;
     }
@@ -360,15 +763,22 @@ public class Simplex implements Solver {
             if (base[r - 1] < n) { // non-aVar
                 continue;
             }
+            // the largest element, a tiny one would blow up the other rows
+            int w = -1;
+            double maxa = tolerance.pivot;
             for (int j = 0; j < n; j++) {
-                if (matrix.isZero(r, j) || (matrix.isNegative(r, j) && matrix.isPositive(r, n))) {
+                final double a = Math.abs(matrix.getAsDouble(r, j));
+                if (a <= maxa || (matrix.isNegative(r, j) && matrix.isPositive(r, n))) {
                     continue;
                 }
+                maxa = a;
+                w = j;
+            }
+            if (w != -1) {
                 LOG.debug("driving aVar", base[r - 1]);
                 goOn = true;
-                pivot(r, j);
+                pivot(r, w);
                 LOG.trace(this);
-                break;
             }
         }
         if (!goOn) {
@@ -388,24 +798,110 @@ public class Simplex implements Solver {
     }
 
     private void removeZeroRow() {
-        final int m2 = m2();
+        int m2 = m2();
         for (int r = 1; r <= m2; r++) {
             if (base[r - 1] < n) { // non-aVar
                 continue;
             }
-            if (!matrix.existsNonZeroInRow(r, n + 1)) {
+            if (!existsPivotInRow(r)) {
                 // remove r-th row
                 for (int i = r; i < m2; i++) {
                     base[i - 1] = base[i];
                     yIndexes[i - 1] = yIndexes[i];
                 }
                 base[m2 - 1] = -1;
+                if (perturbation != null) {
+                    System.arraycopy(perturbation, r + 1, perturbation, r, m2 - r);
+                }
                 matrix.removeRow(r);
                 LOG.debug("removeZeroRow", r);
+                r--; // the next row moved to r
+                m2--;
             }
         }
     }
 
+    /**
+     * Return {@code true} if b(r) is not zero or the row r could be pivoted on, within the tolerances
+     */
+    private boolean existsPivotInRow(int r) {
+        if (tolerance.isExact()) {
+            return matrix.existsNonZeroInRow(r, n + 1);
+        }
+        if (Math.abs(matrix.getAsDouble(r, n)) > tolerance.primal) {
+            return true;
+        }
+        for (int j = 0; j < n; j++) {
+            if (Math.abs(matrix.getAsDouble(r, j)) > tolerance.pivot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static final String PERTURBATION_PROP = "com.github.cloudecho.bnb.PERTURBATION";
+    /**
+     * The relative magnitude of the perturbation of b, 0 to disable
+     */
+    static final double PERTURBATION = Double.parseDouble(System.getProperty(PERTURBATION_PROP, "1e-7"));
+    /**
+     * Each perturbation is 10 times the last one
+     */
+    static final int MAX_PERTURBATIONS = 3;
+
+    /**
+     * Perturbation added to the b column (row 0 included) and transformed by the pivots, null if none
+     */
+    private double[] perturbation;
+    private int perturbations = 0;
+    /**
+     * Bland's rule after the last perturbation: the first attractive column enters and on ties the smallest
+     * base var leaves, which never cycles in exact arithmetic
+     */
+    private boolean bland = false;
+    private final Random random = new Random(20211031L);
+
+    /**
+     * Perturb b<sub>i</sub> by a random &epsilon;<sub>i</sub> in [&delta;/2, &delta;] * (1 + |b<sub>i</sub>|),
+     * so that ties in the ratio test are broken and degenerate pivots make progress.
+     * <p>
+     * Return {@code false} if disabled, i.e. exact tolerances or {@link #PERTURBATION_PROP} is 0.
+     */
+    private boolean perturb() {
+        if (tolerance.isExact() || PERTURBATION <= 0d) {
+            return false;
+        }
+        final int m2 = m2();
+        if (null == perturbation) {
+            this.perturbation = new double[m2 + 1];
+        }
+        final double delta = PERTURBATION * Math.pow(10, perturbations++);
+        for (int i = 1; i <= m2; i++) {
+            final double b = matrix.getAsDouble(i, n);
+            final double e = delta * (1d + Math.abs(b)) * (0.5d + 0.5d * random.nextDouble());
+            matrix.set(i, n, b + e);
+            perturbation[i] += e;
+        }
+        LOG.debug("perturb", delta);
+        return true;
+    }
+
+    /**
+     * Remove the perturbation, b may be slightly infeasible afterwards.
+     */
+    private void unperturb() {
+        if (null == perturbation) {
+            return;
+        }
+        for (int i = 0; i <= m2(); i++) {
+            if (0d != perturbation[i]) {
+                matrix.set(i, n, matrix.getAsDouble(i, n) - perturbation[i]);
+            }
+        }
+        this.perturbation = null;
+        LOG.debug("unperturb");
+    }
+
     private static final String CYCLING_THRESHOLD_PROP = "com.github.cloudecho.bnb.CYCLING_THRESHOLD";
     private static final int CYCLING_THRESHOLD = Integer.parseInt(System.getProperty(CYCLING_THRESHOLD_PROP, "5"));
 
@@ -440,40 +936,133 @@ public class Simplex implements Solver {
     }
 
     private int indexOfMaxc() {
-//        Number maxc = matrix.get(0, 0);
-        int w = 0;
-        for (int j = 1; j < n2(); j++) {
-            if (n == j) { // b column
-                continue;
-            }
-            if (matrix.compare(0, w, 0, j) < 0) {
-                w = j;
+        return pricing.enter(matrix, n, n2());
+    }
+
+    /**
+     * The first attractive column in Bland's rule, or {@link #indexOfMaxc()} if none
+     */
+    private int indexOfFirstc() {
+        final int n2 = n2();
+        for (int j = 0; j <= n2; j++) {
+            if (j != n && matrix.getAsDouble(0, j) > tolerance.dual) {
+                return j;
             }
         }
-        return w;
+        return indexOfMaxc();
     }
 
+    /**
+     * Harris two-pass ratio test on the column c.
+     * <p>
+     * Pass 1 finds the min ratio with b relaxed by the primal tolerance, pass 2 chooses the largest pivot
+     * among the rows within it. A slightly infeasible b (b &lt; 0 within the primal tolerance) is treated as 0.
+     * Degenerate steps (ratio 0) and exact tolerances keep the textbook min ratio test with Bland's rule on ties.
+     * The column c and b are read once into buffers.
+     * <p>
+     * Both passes are fork/join reductions on very tall tableaus, combined with the same tie-breaking.
+     */
     private int indexOfMinRatio(int c) {
-        double minv = 0;
-        int w = -1;
-        for (int i = 1; i <= m2(); i++) {
-            // double v = matrix.get(i, c);
-            if (matrix.nonPositive(i, c)) {
+        final int rows = m2() + 1;
+        matrix.copyColumn(c, column, 0, rows);
+        matrix.copyColumn(n, rhs, 0, rows);
+        if (Parallel.isParallel(m2()) && matrix.isConcurrentReadable()) {
+            final double bound = Parallel.reduce(1, rows, Parallel.grain(1),
+                    (from, to) -> ratioBound(c, from, to), Math::min);
+            return Parallel.reduce(1, rows, Parallel.grain(1),
+                    (from, to) -> new RatioTest().scan(c, bound, from, to), RatioTest::combine).leaving();
+        }
+        return ratioTest.reset().scan(c, ratioBound(c, 1, rows), 1, rows).leaving();
+    }
+
+    private final RatioTest ratioTest = new RatioTest();
+
+    /**
+     * Pass 1 of the ratio test over the rows [from, to)
+     */
+    private double ratioBound(int c, int from, int to) {
+        double bound = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            final double a = column[i];
+            if (a <= tolerance.pivot) {
                 continue;
             }
-            double v = matrix.divide(i, n, i, c).doubleValue(); // i.e. b/a(i,c)
-            if (minv > v || -1 == w) {
-                minv = v;
+            final double ratio = tolerance.isExact() ? matrix.divideAsDouble(i, n, i, c)
+                    : (Math.max(rhs[i], 0d) + tolerance.primal) / a;
+            bound = Math.min(bound, ratio);
+        }
+        return bound;
+    }
+
+    /**
+     * Pass 2 of the ratio test
+     */
+    private final class RatioTest {
+        double maxa = 0;
+        int w = -1; // the largest pivot
+        double minv = 0;
+        int v = -1; // the min ratio
+
+        RatioTest reset() {
+            this.maxa = 0;
+            this.w = -1;
+            this.minv = 0;
+            this.v = -1;
+            return this;
+        }
+
+        /**
+         * Scan the rows [from, to)
+         */
+        RatioTest scan(int c, double bound, int from, int to) {
+            for (int i = from; i < to; i++) {
+                final double a = column[i];
+                if (a <= tolerance.pivot) {
+                    continue;
+                }
+                final double ratio = tolerance.isExact() ? matrix.divideAsDouble(i, n, i, c) // i.e. b/a(i,c)
+                        : rhs[i] > 0d ? rhs[i] / a : 0d;
+                if (ratio > bound) {
+                    continue;
+                }
+                accept(i, a, ratio, i);
+            }
+            return this;
+        }
+
+        /**
+         * Take the row i as the largest pivot a, and the row k as the min ratio
+         */
+        private void accept(int i, double a, double ratio, int k) {
+            if (-1 == w || a > maxa || a == maxa && base[w - 1] > base[i - 1]) {
+                maxa = a;
                 w = i;
-            } else if (minv == v) {
+            }
+            if (-1 == v || minv > ratio) {
+                minv = ratio;
+                v = k;
+            } else if (minv == ratio) {
                 // Bland’s anticycling pivoting rule
-                if (base[w - 1] > base[i - 1]) {
-                    // base[i-1] leave
-                    w = i;
+                if (base[v - 1] > base[k - 1]) {
+                    // base[k-1] leave
+                    v = k;
                 }
             }
         }
-        return w;
+
+        /**
+         * Combine with the rows after this one's
+         */
+        RatioTest combine(RatioTest that) {
+            if (that.w != -1) {
+                accept(that.w, that.maxa, that.minv, that.v);
+            }
+            return this;
+        }
+
+        int leaving() {
+            return tolerance.isExact() || 0d == minv || bland ? v : w;
+        }
     }
 
     @Override
@@ -508,6 +1097,13 @@ public class Simplex implements Solver {
         return iterations;
     }
 
+    /**
+     * The number of artificial variables of the initial base
+     */
+    int getAvars() {
+        return nAvars;
+    }
+
     @Override
     public void setPrecision(int precision) {
         this.precision = precision;
@@ -551,6 +1147,9 @@ public class Simplex implements Solver {
                         shadowPrice[i]));
             }
         }
+        if (released) {
+            return b.append("\n released\n}").toString();
+        }
         // table
         b.append("\n\n [  ");
         for (int j = 0; j <= n2(); j++) {
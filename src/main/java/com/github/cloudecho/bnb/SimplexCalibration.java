@@ -0,0 +1,170 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.SimplexFactory.SimplexType;
+
+import java.util.Random;
+
+/**
+ * Measure the thresholds of {@link SimplexSelector} on this machine with random LPs.
+ * <pre>
+ * java -cp target/classes com.github.cloudecho.bnb.SimplexCalibration [maxRows]
+ * </pre>
+ * The output is a list of JVM options, e.g.
+ * <pre>
+ * -Dcom.github.cloudecho.bnb.SELECTOR_DENSE_MAX_CELLS=4096
+ * </pre>
+ */
+public class SimplexCalibration {
+    static final int REPEATS = 5;
+    static final double TOLERANCE = 1e-6;
+
+    private final Random random = new Random(20211031L);
+
+    public static void main(String[] args) {
+        final int maxRows = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+        SimplexCalibration calibration = new SimplexCalibration();
+
+        System.out.println("-D" + SimplexSelector.DENSE_MAX_CELLS_PROP + '=' + calibration.denseMaxCells(maxRows));
+        System.out.println("-D" + SimplexSelector.BIG_MIN_RANGE_PROP + '=' + calibration.bigMinRange());
+        System.out.println("-D" + SimplexSelector.BIG_MAX_CELLS_PROP + '=' + calibration.bigMaxCells(maxRows));
+    }
+
+    /**
+     * The largest m*n on which the dense tableau is still faster than the revised one
+     */
+    long denseMaxCells(int maxRows) {
+        long cells = 0;
+        for (int m = 4; m <= maxRows; m *= 2) {
+            LP lp = randomLP(m, 2 * m, 0.5d, 100d);
+            long normal = time(SimplexType.NORMAL, lp);
+            long revised = time(SimplexType.REVISED, lp);
+            System.err.printf("m=%-5d n=%-5d NORMAL %10d ns, REVISED %10d ns%n", m, lp.n, normal, revised);
+            if (normal <= revised) {
+                cells = (long) m * lp.n;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * The smallest numeric range on which the double engines disagree with {@link SimplexType#BIG}
+     */
+    double bigMinRange() {
+        for (int k = 2; k <= 16; k++) {
+            final double range = Math.pow(10, k);
+            for (int seed = 0; seed < REPEATS; seed++) {
+                LP lp = randomLP(16, 32, 0.5d, range);
+                Simplex big;
+                try {
+                    big = solve(SimplexType.BIG, lp);
+                } catch (ArithmeticException e) {
+                    continue;
+                }
+                for (SimplexType t : new SimplexType[]{SimplexType.NORMAL, SimplexType.REVISED}) {
+                    Simplex s = solve(t, lp);
+                    if (s.getState() != big.getState() ||
+                            Math.abs(s.getMax() - big.getMax()) > TOLERANCE * (1d + Math.abs(big.getMax()))) {
+                        System.err.printf("range=1e%d %s %s %f, BIG %s %f%n",
+                                k, t, s.getState(), s.getMax(), big.getState(), big.getMax());
+                        return range;
+                    }
+                }
+            }
+        }
+        return SimplexSelector.BIG_MIN_RANGE;
+    }
+
+    /**
+     * The largest m*n on which {@link SimplexType#BIG} takes at most 1 second
+     */
+    long bigMaxCells(int maxRows) {
+        long cells = 0;
+        for (int m = 4; m <= maxRows; m *= 2) {
+            LP lp = randomLP(m, 2 * m, 0.5d, 100d);
+            long big = time(SimplexType.BIG, lp);
+            System.err.printf("m=%-5d n=%-5d BIG %10d ns%n", m, lp.n, big);
+            if (big > 1_000_000_000L) {
+                break;
+            }
+            cells = (long) m * lp.n;
+        }
+        return cells;
+    }
+
+    /**
+     * Return the minimum time in nanoseconds, or {@code Long.MAX_VALUE} if the engine fails.
+     */
+    private long time(SimplexType t, LP lp) {
+        long min = Long.MAX_VALUE;
+        for (int k = 0; k < REPEATS; k++) {
+            final long start = System.nanoTime();
+            try {
+                solve(t, lp);
+            } catch (ArithmeticException e) {
+                System.err.println(t + " " + e);
+                return Long.MAX_VALUE;
+            }
+            min = Math.min(min, System.nanoTime() - start);
+        }
+        return min;
+    }
+
+    private static Simplex solve(SimplexType t, LP lp) {
+        Simplex simplex = SimplexFactory.newSimplex(t, lp.c, lp.a, lp.b);
+        simplex.solve();
+        return simplex;
+    }
+
+    /**
+     * Random LP in standard form with slack variables, i.e. {@code max cx s.t. [A I]x = b, x >= 0}.
+     * A &ge; 0 and b &gt; 0 so that it is feasible and bounded.
+     *
+     * @param m       The number of rows
+     * @param n       The number of structural variables
+     * @param density The density of A
+     * @param range   Coefficients are log-uniform in [1, range]
+     */
+    private LP randomLP(int m, int n, double density, double range) {
+        final int n2 = n + m;
+        LP lp = new LP(m, n2);
+        for (int j = 0; j < n; j++) {
+            lp.c[j] = coefficient(range);
+            // at least one non-zero in each column
+            lp.a[random.nextInt(m)][j] = coefficient(range);
+            for (int i = 0; i < m; i++) {
+                if (random.nextDouble() < density) {
+                    lp.a[i][j] = coefficient(range);
+                }
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            lp.a[i][n + i] = 1d;
+            double row = 0d;
+            for (int j = 0; j < n; j++) {
+                row += lp.a[i][j];
+            }
+            lp.b[i] = row * (0.5d + random.nextDouble());
+        }
+        return lp;
+    }
+
+    private double coefficient(double range) {
+        return Math.pow(range, random.nextDouble());
+    }
+
+    private static final class LP {
+        final int m;
+        final int n;
+        final double[] c;
+        final double[][] a;
+        final double[] b;
+
+        LP(int m, int n) {
+            this.m = m;
+            this.n = n;
+            this.c = new double[n];
+            this.a = new double[m][n];
+            this.b = new double[m];
+        }
+    }
+}
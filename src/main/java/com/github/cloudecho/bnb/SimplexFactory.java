@@ -1,12 +1,42 @@
 package com.github.cloudecho.bnb;
 
+import com.github.cloudecho.bnb.math.CsrMatrix;
+
 public class SimplexFactory {
     private SimplexFactory() {
 
     }
 
     public enum SimplexType {
-        REVISED, NORMAL, BIG;
+        REVISED, NORMAL, BIG,
+        /**
+         * Revised simplex with an LU factorized basis
+         */
+        LU,
+        /**
+         * Primal simplex on a sparse tableau
+         */
+        SPARSE,
+        /**
+         * Primal simplex on a dense tableau outside of the Java heap
+         */
+        OFF_HEAP,
+        /**
+         * Primal simplex on an out-of-core tableau in a memory-mapped temporary file
+         */
+        MAPPED,
+        /**
+         * Exact primal simplex on rational numbers, in longs while they fit
+         */
+        RATIONAL,
+        /**
+         * {@link #BIG} in fixed-point longs while the values are exact at their scale
+         */
+        FIXED,
+        /**
+         * Chosen for each LP by {@link SimplexSelector}
+         */
+        AUTO;
 
         static SimplexType of(String name) {
             for (SimplexType t : values()) {
@@ -21,11 +51,65 @@ public class SimplexFactory {
     public static final String SIMPLEX_TYPE_PROP = "com.github.cloudecho.bnb.SIMPLEX_TYPE";
     static final SimplexType SIMPLEX_TYPE = SimplexType.of(System.getProperty(SIMPLEX_TYPE_PROP, "REVISED"));
 
+    /**
+     * The engine of an LP given in compressed rows. Only {@link SimplexType#SPARSE} keeps it sparse,
+     * the others get A dense.
+     */
+    public static final String SPARSE_SIMPLEX_TYPE_PROP = "com.github.cloudecho.bnb.SPARSE_SIMPLEX_TYPE";
+    static final SimplexType SPARSE_SIMPLEX_TYPE = SimplexType.of(System.getProperty(SPARSE_SIMPLEX_TYPE_PROP, "AUTO"));
+
     public static Simplex newSimplex(double[] c, double[][] a, double[] b) {
         return newSimplex(SIMPLEX_TYPE, c, a, b);
     }
 
+    /**
+     * Create and solve a simplex, racing the engines of {@link SimplexPortfolio#getDefault()} if enabled.
+     */
+    public static Simplex solve(double[] c, double[][] a, double[] b, int precision) {
+        final SimplexPortfolio portfolio = SimplexPortfolio.getDefault();
+        if (portfolio.isEnabled()) {
+            return portfolio.solve(c, a, b, precision);
+        }
+        Simplex simplex = newSimplex(c, a, b);
+        simplex.setPrecision(precision);
+        simplex.solve();
+        return simplex;
+    }
+
+    public static Simplex newSimplex(double[] c, CsrMatrix a, double[] b) {
+        return newSimplex(SPARSE_SIMPLEX_TYPE, c, a, b);
+    }
+
+    /**
+     * Create and solve a simplex of an LP given in compressed rows
+     */
+    public static Simplex solve(double[] c, CsrMatrix a, double[] b, int precision) {
+        Simplex simplex = newSimplex(c, a, b);
+        simplex.setPrecision(precision);
+        simplex.solve();
+        return simplex;
+    }
+
+    public static Simplex newSimplex(SimplexType t, double[] c, CsrMatrix a, double[] b) {
+        if (SimplexType.AUTO == t) {
+            t = SimplexSelector.select(a);
+        }
+        if (SimplexType.SPARSE == t) {
+            return new SparseSimplex(c, a, b);
+        }
+        if (SimplexType.OFF_HEAP == t) {
+            return new OffHeapSimplex(c, a, b);
+        }
+        if (SimplexType.MAPPED == t) {
+            return new MappedSimplex(c, a, b);
+        }
+        return newSimplex(t, c, a.toArray(), b);
+    }
+
     public static Simplex newSimplex(SimplexType t, double[] c, double[][] a, double[] b) {
+        if (SimplexType.AUTO == t) {
+            t = SimplexSelector.select(a);
+        }
         switch (t) {
             case BIG:
                 return new BigSimplex(c, a, b);
@@ -34,6 +118,18 @@ public class SimplexFactory {
                 return new RevisedSimplex(c, a, b);
             case NORMAL:
                 return new Simplex(c, a, b);
+            case LU:
+                return new FactorizedSimplex(c, a, b);
+            case SPARSE:
+                return new SparseSimplex(c, a, b);
+            case OFF_HEAP:
+                return new OffHeapSimplex(c, a, b);
+            case MAPPED:
+                return new MappedSimplex(c, a, b);
+            case RATIONAL:
+                return new RationalSimplex(c, a, b);
+            case FIXED:
+                return new FixedPointSimplex(c, a, b);
         }
     }
 }
@@ -0,0 +1,273 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.SimplexFactory.SimplexType;
+import com.github.cloudecho.bnb.util.Log;
+import com.github.cloudecho.bnb.util.LogFactory;
+import com.github.cloudecho.bnb.util.NamedThreadFactory;
+import com.github.cloudecho.bnb.util.Strings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Races two or more simplex engines on the same LP.
+ * <p>
+ * The first engine finishing with a decisive state ({@link State#SOLVED} or {@link State#UNBOUNDED})
+ * wins and the others are cancelled. {@link State#NO_SOLUTION} is only accepted if no engine does better,
+ * as it may be caused by round-off.
+ * <p>
+ * In adaptive mode the winners are counted by problem shape (m and n rounded to powers of 2);
+ * once an engine dominates a shape it is run alone, with a full race every {@link #RERACE_INTERVAL} solves.
+ */
+public class SimplexPortfolio {
+    static final Log LOG = LogFactory.getLog(SimplexPortfolio.class);
+
+    /**
+     * Comma separated engines to race, e.g. {@code NORMAL,REVISED,BIG}. Racing is disabled if empty.
+     */
+    public static final String SIMPLEX_PORTFOLIO_PROP = "com.github.cloudecho.bnb.SIMPLEX_PORTFOLIO";
+    public static final String SIMPLEX_PORTFOLIO_ADAPTIVE_PROP = "com.github.cloudecho.bnb.SIMPLEX_PORTFOLIO_ADAPTIVE";
+
+    static final SimplexPortfolio DEFAULT = new SimplexPortfolio(
+            parseTypes(System.getProperty(SIMPLEX_PORTFOLIO_PROP, "")),
+            Boolean.parseBoolean(System.getProperty(SIMPLEX_PORTFOLIO_ADAPTIVE_PROP, "false")));
+
+    /**
+     * Races needed before an engine could run alone
+     */
+    static final int MIN_RACES = 8;
+    /**
+     * Share of wins needed before an engine could run alone
+     */
+    static final double DOMINANCE = 0.75d;
+    static final int RERACE_INTERVAL = 16;
+
+    /**
+     * The threads of the engines racing, over all the races at once. A race's engines beyond wait for a thread,
+     * and are cancelled before they start if the race is won.
+     */
+    public static final String SIMPLEX_PORTFOLIO_THREADS_PROP = "com.github.cloudecho.bnb.SIMPLEX_PORTFOLIO_THREADS";
+    static final int THREADS = Integer.parseInt(System.getProperty(SIMPLEX_PORTFOLIO_THREADS_PROP,
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+    /**
+     * Bounded, daemon threads ended when idle, so that a cancelled engine still between pivots never keeps the JVM alive
+     */
+    private static final ExecutorService EXECUTOR = newExecutor(Math.max(1, THREADS));
+
+    private static ExecutorService newExecutor(int threads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory().namePrefix("simplex-race").daemon(true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private final SimplexType[] types;
+    private final boolean adaptive;
+    private final ExecutorService executor;
+    private final Map<Long, Stats> stats = new ConcurrentHashMap<>();
+
+    public SimplexPortfolio(SimplexType[] types, boolean adaptive) {
+        this(types, adaptive, EXECUTOR);
+    }
+
+    /**
+     * Race the engines on the threads of the given executor
+     */
+    SimplexPortfolio(SimplexType[] types, boolean adaptive, ExecutorService executor) {
+        this.types = types.clone();
+        this.adaptive = adaptive;
+        this.executor = executor;
+    }
+
+    public static SimplexPortfolio getDefault() {
+        return DEFAULT;
+    }
+
+    static SimplexType[] parseTypes(String names) {
+        if (Strings.isEmpty(names)) {
+            return new SimplexType[0];
+        }
+        return Arrays.stream(names.split(","))
+                .map(String::trim)
+                .filter(Strings::hasLength)
+                .map(SimplexType::of)
+                .distinct()
+                .toArray(SimplexType[]::new);
+    }
+
+    /**
+     * Return {@code true} if there are at least 2 engines to race.
+     */
+    public boolean isEnabled() {
+        return types.length > 1;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Solve the LP and return the winning simplex.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    public Simplex solve(double[] c, double[][] a, double[] b, int precision) {
+        if (!adaptive) {
+            return race(c, a, b, precision).simplex;
+        }
+
+        final Stats s = stats.computeIfAbsent(shape(a.length, c.length), k -> new Stats(types.length));
+        final int k = s.favorite();
+        if (k >= 0) {
+            Simplex simplex = SimplexFactory.newSimplex(types[k], c, a, b);
+            simplex.setPrecision(precision);
+            simplex.solve();
+            if (isDecisive(simplex.getState())) {
+                return simplex;
+            }
+            LOG.debug("favorite", types[k], simplex.getState(), "race");
+        }
+
+        Result r = race(c, a, b, precision);
+        if (r.winner >= 0) {
+            s.win(r.winner);
+        }
+        return r.simplex;
+    }
+
+    private Result race(double[] c, double[][] a, double[] b, int precision) {
+        final CompletionService<Simplex> cs = new ExecutorCompletionService<>(executor);
+        final List<Simplex> simplexes = new ArrayList<>(types.length);
+        final List<Future<Simplex>> futures = new ArrayList<>(types.length);
+        // claimed by the task when it starts, or by the race when it ends, whichever is first
+        final List<AtomicBoolean> claims = new ArrayList<>(types.length);
+        for (SimplexType t : types) {
+            Simplex simplex = SimplexFactory.newSimplex(t, c, a, b);
+            simplex.setPrecision(precision);
+            final AtomicBoolean claim = new AtomicBoolean();
+            simplexes.add(simplex);
+            claims.add(claim);
+            futures.add(cs.submit(() -> {
+                if (claim.compareAndSet(false, true)) {
+                    simplex.solve();
+                }
+                return simplex;
+            }));
+        }
+
+        Simplex fallback = null;
+        Throwable error = null;
+        try {
+            for (int k = 0; k < types.length; k++) {
+                try {
+                    Simplex simplex = cs.take().get();
+                    if (isDecisive(simplex.getState())) {
+                        final int winner = simplexes.indexOf(simplex);
+                        LOG.debug("race won by", types[winner], simplex.getState(), "iter", simplex.getIterations());
+                        return new Result(simplex, winner);
+                    }
+                    if (null == fallback) {
+                        fallback = simplex;
+                    }
+                } catch (ExecutionException e) {
+                    LOG.debug("race", e.getCause());
+                    error = e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while racing", e);
+        } finally {
+            simplexes.forEach(Simplex::cancel);
+            futures.forEach(f -> f.cancel(false));
+            // an engine which never started never releases its matrix, e.g. the file of a mapped one,
+            // a started one releases it at the end of its solve
+            for (int k = 0; k < types.length; k++) {
+                if (claims.get(k).compareAndSet(false, true)) {
+                    simplexes.get(k).release();
+                }
+            }
+        }
+
+        if (null == fallback) {
+            throw new IllegalStateException("all engines failed", error);
+        }
+        return new Result(fallback, -1);
+    }
+
+    static boolean isDecisive(State state) {
+        return State.SOLVED == state || State.UNBOUNDED == state;
+    }
+
+    /**
+     * m and n rounded up to powers of 2
+     */
+    static long shape(int m, int n) {
+        return ((long) ceilLog2(m) << 32) | ceilLog2(n);
+    }
+
+    private static int ceilLog2(int k) {
+        return k <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(k - 1);
+    }
+
+    private static final class Result {
+        final Simplex simplex;
+        final int winner;
+
+        Result(Simplex simplex, int winner) {
+            this.simplex = simplex;
+            this.winner = winner;
+        }
+    }
+
+    /**
+     * Wins of each engine for a problem shape
+     */
+    static final class Stats {
+        final AtomicIntegerArray wins;
+        final AtomicInteger races = new AtomicInteger();
+        final AtomicInteger solves = new AtomicInteger();
+
+        Stats(int nTypes) {
+            this.wins = new AtomicIntegerArray(nTypes);
+        }
+
+        void win(int k) {
+            wins.incrementAndGet(k);
+            races.incrementAndGet();
+        }
+
+        /**
+         * Return the index of the dominant engine, or -1 to race.
+         */
+        int favorite() {
+            final int total = races.get();
+            if (total < MIN_RACES || solves.incrementAndGet() % RERACE_INTERVAL == 0) {
+                return -1;
+            }
+            for (int k = 0; k < wins.length(); k++) {
+                if (wins.get(k) >= DOMINANCE * total) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.SimplexFactory.SimplexType;
+import com.github.cloudecho.bnb.util.Log;
+import com.github.cloudecho.bnb.util.LogFactory;
+
+/**
+ * Solves an LP in doubles, then verifies the optimal base in exact arithmetic.
+ * <p>
+ * The base of {@link SimplexType#REVISED} is the warm start of an exact simplex ({@link #REFINE_TYPE}),
+ * which only pivots if the base is not exactly feasible and optimal, usually a few pivots or none.
+ * If the warm start fails, or the doubles do not find an optimum, the exact simplex solves from scratch.
+ */
+public class SimplexRefinement {
+    static final Log LOG = LogFactory.getLog(SimplexRefinement.class);
+
+    /**
+     * The exact engine, {@code RATIONAL} by default
+     */
+    public static final String REFINE_TYPE_PROP = "com.github.cloudecho.bnb.REFINE_TYPE";
+    static final SimplexType REFINE_TYPE = SimplexType.of(System.getProperty(REFINE_TYPE_PROP, "RATIONAL"));
+
+    private SimplexRefinement() {
+    }
+
+    /**
+     * Solve the LP and return the exact simplex.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    public static Simplex solve(double[] c, double[][] a, double[] b, int precision) {
+        final Simplex fast = SimplexFactory.newSimplex(SimplexType.REVISED, c, a, b);
+        fast.setPrecision(precision);
+        fast.solve();
+
+        if (State.SOLVED == fast.getState()) {
+            final Simplex exact = SimplexFactory.newSimplex(REFINE_TYPE, c, a, b);
+            exact.setPrecision(precision);
+            exact.setStartBase(fast.getBase());
+            exact.solve();
+            if (State.SOLVED == exact.getState()) {
+                LOG.debug("refined", "iter", fast.getIterations(), "+", exact.getIterations(),
+                        "max", fast.getMax(), "->", exact.getMax());
+                return exact;
+            }
+            LOG.debug("warm start failed", exact.getState());
+        }
+
+        final Simplex exact = SimplexFactory.newSimplex(REFINE_TYPE, c, a, b);
+        exact.setPrecision(precision);
+        exact.solve();
+        LOG.debug("solved exactly", fast.getState(), "->", exact.getState(), "iter", exact.getIterations());
+        return exact;
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.SimplexFactory.SimplexType;
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.util.Log;
+import com.github.cloudecho.bnb.util.LogFactory;
+
+/**
+ * Choose a simplex engine by the size, density and numeric range of the matrix A.
+ * <ul>
+ * <li>numeric range (max|a<sub>ij</sub>| / min|a<sub>ij</sub>|, a<sub>ij</sub> &ne; 0) &ge; {@link #BIG_MIN_RANGE}
+ * and m*n &le; {@link #BIG_MAX_CELLS}: {@link SimplexType#BIG}</li>
+ * <li>m*n &le; {@link #DENSE_MAX_CELLS}: {@link SimplexType#NORMAL}</li>
+ * <li>m*n &ge; {@link #SPARSE_MIN_CELLS} and density &le; {@link #SPARSE_MAX_DENSITY}: {@link SimplexType#SPARSE}</li>
+ * <li>otherwise: {@link SimplexType#REVISED}</li>
+ * </ul>
+ * The thresholds could be measured on the target machine by {@link SimplexCalibration}.
+ */
+public class SimplexSelector {
+    static final Log LOG = LogFactory.getLog(SimplexSelector.class);
+
+    public static final String DENSE_MAX_CELLS_PROP = "com.github.cloudecho.bnb.SELECTOR_DENSE_MAX_CELLS";
+    public static final String BIG_MIN_RANGE_PROP = "com.github.cloudecho.bnb.SELECTOR_BIG_MIN_RANGE";
+    public static final String BIG_MAX_CELLS_PROP = "com.github.cloudecho.bnb.SELECTOR_BIG_MAX_CELLS";
+    public static final String SPARSE_MIN_CELLS_PROP = "com.github.cloudecho.bnb.SELECTOR_SPARSE_MIN_CELLS";
+    public static final String SPARSE_MAX_DENSITY_PROP = "com.github.cloudecho.bnb.SELECTOR_SPARSE_MAX_DENSITY";
+
+    static final long DENSE_MAX_CELLS = Long.parseLong(System.getProperty(DENSE_MAX_CELLS_PROP, "786432"));
+    static final double BIG_MIN_RANGE = Double.parseDouble(System.getProperty(BIG_MIN_RANGE_PROP, "1e12"));
+    static final long BIG_MAX_CELLS = Long.parseLong(System.getProperty(BIG_MAX_CELLS_PROP, "1024"));
+    static final long SPARSE_MIN_CELLS = Long.parseLong(System.getProperty(SPARSE_MIN_CELLS_PROP, "8388608"));
+    static final double SPARSE_MAX_DENSITY = Double.parseDouble(System.getProperty(SPARSE_MAX_DENSITY_PROP, "0.01"));
+
+    private SimplexSelector() {
+
+    }
+
+    public static SimplexType select(double[][] a) {
+        final Shape shape = Shape.of(a);
+        final SimplexType t = select(shape);
+        LOG.debug("select", t, shape);
+        return t;
+    }
+
+    public static SimplexType select(CsrMatrix a) {
+        final Shape shape = Shape.of(a);
+        final SimplexType t = select(shape);
+        LOG.debug("select", t, shape);
+        return t;
+    }
+
+    static SimplexType select(Shape shape) {
+        final long cells = shape.cells();
+        if (shape.range() >= BIG_MIN_RANGE && cells <= BIG_MAX_CELLS) {
+            return SimplexType.BIG;
+        }
+        if (cells <= DENSE_MAX_CELLS) {
+            return SimplexType.NORMAL;
+        }
+        if (cells >= SPARSE_MIN_CELLS && shape.density() <= SPARSE_MAX_DENSITY) {
+            return SimplexType.SPARSE;
+        }
+        return SimplexType.REVISED;
+    }
+
+    /**
+     * Statistics of the matrix A
+     */
+    static final class Shape {
+        int m;
+        int n;
+        long nonZeros;
+        double minAbs = Double.POSITIVE_INFINITY;
+        double maxAbs = 0d;
+
+        static Shape of(double[][] a) {
+            Shape s = new Shape();
+            s.m = a.length;
+            s.n = a[0].length;
+            for (double[] row : a) {
+                for (double v : row) {
+                    if (0d == v) {
+                        continue;
+                    }
+                    final double abs = Math.abs(v);
+                    s.nonZeros++;
+                    s.minAbs = Math.min(s.minAbs, abs);
+                    s.maxAbs = Math.max(s.maxAbs, abs);
+                }
+            }
+            return s;
+        }
+
+        static Shape of(CsrMatrix a) {
+            Shape s = new Shape();
+            s.m = a.getRows();
+            s.n = a.getColumns();
+            s.nonZeros = a.nonZeros();
+            for (int k = 0; k < a.nonZeros(); k++) {
+                final double abs = Math.abs(a.valueAt(k));
+                s.minAbs = Math.min(s.minAbs, abs);
+                s.maxAbs = Math.max(s.maxAbs, abs);
+            }
+            return s;
+        }
+
+        long cells() {
+            return (long) m * n;
+        }
+
+        double density() {
+            return 1d * nonZeros / cells();
+        }
+
+        /**
+         * Return {@code max|a(i,j)| / min|a(i,j)|} for non-zeros, or 1 if A is zero
+         */
+        double range() {
+            return 0 == nonZeros ? 1d : maxAbs / minAbs;
+        }
+
+        @Override
+        public String toString() {
+            return "Shape{" +
+                    "m=" + m +
+                    ", n=" + n +
+                    ", density=" + density() +
+                    ", range=" + range() +
+                    '}';
+        }
+    }
+}
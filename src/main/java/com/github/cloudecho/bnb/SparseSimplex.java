@@ -0,0 +1,44 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.math.Matrix;
+import com.github.cloudecho.bnb.math.SparseMatrix;
+
+/**
+ * Primal simplex on a tableau in compressed columns, for the sparse LPs.
+ *
+ * @see SparseMatrix
+ */
+public class SparseSimplex extends Simplex {
+    /**
+     * Constructor.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected SparseSimplex(double[] c, double[][] a, double[] b) {
+        super(c, a, b);
+    }
+
+    /**
+     * Constructor of a sparse LP, which is never dense.
+     *
+     * @param c The coefficient vector C, 1 row, n columns
+     * @param a The matrix A in compressed rows, m rows, n columns
+     * @param b The vector b, m rows, 1 column
+     */
+    protected SparseSimplex(double[] c, CsrMatrix a, double[] b) {
+        super(c, a, b);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(double[][] table, int max_n) {
+        return new SparseMatrix(table, max_n);
+    }
+
+    @Override
+    protected Matrix<?> createMatrix(CsrMatrix table, int max_n) {
+        return new SparseMatrix(table, max_n);
+    }
+}
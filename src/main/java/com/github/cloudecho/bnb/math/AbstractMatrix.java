@@ -1,6 +1,13 @@
 package com.github.cloudecho.bnb.math;
 
 public abstract class AbstractMatrix<T extends Number> implements Matrix<T> {
+    public static final String SPARSIFY_INTERVAL_PROP = "com.github.cloudecho.bnb.SPARSIFY_INTERVAL";
+
+    /**
+     * A double tableau is swept by {@link #sparsify()} once per this number of pivots, 0 for never
+     */
+    static final int SPARSIFY_INTERVAL = Integer.parseInt(System.getProperty(SPARSIFY_INTERVAL_PROP, "50"));
+
     public final int max_m;
     public final int max_n;
 
@@ -22,6 +29,14 @@ public abstract class AbstractMatrix<T extends Number> implements Matrix<T> {
 
     protected final int extend_n;
 
+    protected Tolerance tolerance = Tolerance.DEFAULT;
+
+    /**
+     * The number of pivots, and the sum of the non-zeros of their pivot rows, i.e. the updates per row
+     */
+    protected long pivotCount;
+    protected long pivotNonZeros;
+
     static final int DEFAULT_EXTEND_TIMES = 10;
 
     public AbstractMatrix(int max_m, int max_n) {
@@ -40,8 +55,15 @@ public abstract class AbstractMatrix<T extends Number> implements Matrix<T> {
     }
 
     public AbstractMatrix(double[][] table, int max_n) {
-        this.m = rows(table);
-        this.n = table[0].length;
+        this(rows(table), table[0].length, max_n);
+    }
+
+    /**
+     * A table of m rows and n columns, which could grow to max_n columns
+     */
+    protected AbstractMatrix(int m, int n, int max_n) {
+        this.m = m;
+        this.n = n;
         this.max_m = m;
         this.max_n = max_n;
         this.n2 = n;
@@ -95,6 +117,54 @@ public abstract class AbstractMatrix<T extends Number> implements Matrix<T> {
         return nDelta;
     }
 
+    /**
+     * Count a pivot on a row of {@code nonZeros} non-zeros, and sparsify the tableau once per
+     * {@link #SPARSIFY_INTERVAL} pivots if it is inexact
+     */
+    protected void pivoted(int nonZeros) {
+        pivotNonZeros += nonZeros;
+        if (++pivotCount % Math.max(1, SPARSIFY_INTERVAL) == 0 && SPARSIFY_INTERVAL > 0 && tolerance.zero > 0d) {
+            sparsify();
+        }
+    }
+
+    /**
+     * Set the elements with |v| &le; {@link Tolerance#zero} to 0, so that the round-off left by the pivots, which the
+     * sign tests already treat as 0, is skipped by the following pivots. Return the number of non-zeros, or -1 if not supported.
+     */
+    protected int sparsify() {
+        return -1;
+    }
+
+    /**
+     * Give the storage back to the pool of the thread, see {@link Buffers}. The matrix is not used after.
+     */
+    public void recycle() {
+    }
+
+    public long getPivotCount() {
+        return pivotCount;
+    }
+
+    /**
+     * The mean number of non-zeros of a pivot row
+     */
+    public double getPivotNonZeros() {
+        return 0 == pivotCount ? 0d : (double) pivotNonZeros / pivotCount;
+    }
+
+    @Override
+    public Tolerance getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(Tolerance tolerance) {
+        if (null == tolerance) {
+            throw new IllegalArgumentException("null tolerance");
+        }
+        this.tolerance = tolerance;
+    }
+
     @Override
     public int getRows() {
         return m;
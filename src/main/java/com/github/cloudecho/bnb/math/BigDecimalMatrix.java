@@ -10,6 +10,7 @@ public class BigDecimalMatrix extends AbstractMatrix<BigDecimal> {
 
     public BigDecimalMatrix(double[][] table, int max_n) {
         super(table, max_n);
+        this.tolerance = Tolerance.EXACT;
         this.table = new BigDecimal[m][n];
         for (int i = 0; i < m; i++) {
             for (int j = 0; j < n; j++) {
@@ -76,7 +77,7 @@ public class BigDecimalMatrix extends AbstractMatrix<BigDecimal> {
                 BigDecimal v2 = v.multiply(table[r][j], mathContext)
                         .negate(mathContext)
                         .add(table[i][j], mathContext);
-                table[i][j] = v2;
+                table[i][j] = isRoundOff(v2, table[i][j]) ? BigDecimal.ZERO : v2;
             }
         }
     }
@@ -100,6 +101,16 @@ public class BigDecimalMatrix extends AbstractMatrix<BigDecimal> {
         }
     }
 
+    /**
+     * Return {@code true} if v, updated to v2, cancelled to the last digits of the precision, i.e. v2 is the rounding
+     * error of the math context rather than a value
+     */
+    private boolean isRoundOff(BigDecimal v2, BigDecimal v) {
+        final int precision = mathContext.getPrecision();
+        return precision > 0 && v2.signum() != 0 && v.signum() != 0
+                && v2.abs().compareTo(v.abs().movePointLeft(precision - 2)) <= 0;
+    }
+
     static boolean isZero(BigDecimal num) {
         return BigDecimal.ZERO.equals(num);
     }
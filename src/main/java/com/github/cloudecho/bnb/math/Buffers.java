@@ -0,0 +1,137 @@
+package com.github.cloudecho.bnb.math;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A per-thread pool of double arrays, so that the tableaus and vectors of an LP solve are reused by the next solve
+ * of the same thread instead of being garbage, e.g. the node LPs of a {@code BnB} worker.
+ * <p>
+ * An array is taken from the pool and given back when it is no longer used, a taken array is never shared.
+ * The pool keeps what is given back, up to {@link #BUFFERS_MAX_CELLS} doubles, so it settles at the high-water mark
+ * of the arrays a solve uses at once. It is off unless {@link #enable()}d on the thread: then {@code take} allocates,
+ * and {@code give} drops the array.
+ */
+public final class Buffers {
+    public static final String BUFFERS_MAX_CELLS_PROP = "com.github.cloudecho.bnb.BUFFERS_MAX_CELLS";
+
+    /**
+     * The doubles kept by the pool of a thread, 0 for no pools
+     */
+    static final long BUFFERS_MAX_CELLS = Long.parseLong(System.getProperty(BUFFERS_MAX_CELLS_PROP, "4194304"));
+
+    private static final ThreadLocal<Buffers> POOL = new ThreadLocal<>();
+
+    /**
+     * The free arrays by length
+     */
+    private final TreeMap<Integer, ArrayDeque<double[]>> free = new TreeMap<>();
+    private long cells;
+
+    private Buffers() {
+
+    }
+
+    /**
+     * Enable the pool of the current thread
+     */
+    public static void enable() {
+        if (BUFFERS_MAX_CELLS > 0 && null == POOL.get()) {
+            POOL.set(new Buffers());
+        }
+    }
+
+    /**
+     * Disable the pool of the current thread, and drop its arrays
+     */
+    public static void disable() {
+        POOL.remove();
+    }
+
+    public static boolean isEnabled() {
+        return POOL.get() != null;
+    }
+
+    /**
+     * Return a {@code double[length]} of zeros
+     */
+    public static double[] take(int length) {
+        final Buffers pool = POOL.get();
+        final double[] a = null == pool ? null : pool.poll(length, length);
+        if (null == a) {
+            return new double[length];
+        }
+        Arrays.fill(a, 0d);
+        return a;
+    }
+
+    /**
+     * Return a double array of at least {@code length}, and at most twice, zeros in [0, length).
+     * A new one has room for an eighth more, e.g. the next node LP of a branch, which is a row and a column larger.
+     */
+    public static double[] takeAtLeast(int length) {
+        final Buffers pool = POOL.get();
+        if (null == pool) {
+            return new double[length];
+        }
+        final double[] a = pool.poll(length, 2 * length);
+        if (null == a) {
+            return new double[length + (length >> 3)];
+        }
+        Arrays.fill(a, 0, length, 0d);
+        return a;
+    }
+
+    /**
+     * Return {@code double[rows][columns]} of zeros
+     */
+    public static double[][] take(int rows, int columns) {
+        final double[][] t = new double[rows][];
+        for (int i = 0; i < rows; i++) {
+            t[i] = take(columns);
+        }
+        return t;
+    }
+
+    /**
+     * Give an array back to the pool of the current thread, the caller does not use it any more
+     */
+    public static void give(double[] a) {
+        final Buffers pool = POOL.get();
+        if (null == pool || null == a || 0 == a.length || pool.cells + a.length > BUFFERS_MAX_CELLS) {
+            return;
+        }
+        pool.free.computeIfAbsent(a.length, k -> new ArrayDeque<>()).push(a);
+        pool.cells += a.length;
+    }
+
+    /**
+     * Give the rows back
+     */
+    public static void give(double[][] t) {
+        if (null == t || !isEnabled()) {
+            return;
+        }
+        for (double[] row : t) {
+            give(row);
+        }
+    }
+
+    /**
+     * Remove a free array of length in [min, max], the shortest
+     */
+    private double[] poll(int min, int max) {
+        final Map.Entry<Integer, ArrayDeque<double[]>> e = free.ceilingEntry(min);
+        if (null == e || e.getKey() > max) {
+            return null;
+        }
+        final double[] a = e.getValue().pop();
+        if (e.getValue().isEmpty()) {
+            free.remove(e.getKey());
+        }
+        cells -= a.length;
+        return a;
+    }
+}
@@ -0,0 +1,390 @@
+package com.github.cloudecho.bnb.math;
+
+import java.util.Arrays;
+
+/**
+ * An immutable matrix in compressed sparse rows (CSR): the non-zeros of the row i are
+ * <tt>value[k]</tt> at the columns <tt>index[k]</tt>, k in [<tt>rowStart[i]</tt>, <tt>rowStart[i + 1]</tt>),
+ * sorted by column.
+ * <p>
+ * It is the input of a large sparse LP, which is never materialized as a {@code double[m][n]}.
+ * Build it by {@link Builder} row by row, or by {@link #of(int, int, int[], int[], double[])} from coordinate triplets.
+ */
+public final class CsrMatrix implements PrimitiveMatrix {
+    private final int m;
+    private final int n;
+    private final int[] rowStart;
+    private final int[] index;
+    private final double[] value;
+
+    /**
+     * Constructor. The arrays are not copied.
+     *
+     * @param m        The number of rows
+     * @param n        The number of columns
+     * @param rowStart m + 1 offsets into index and value, non-decreasing from 0
+     * @param index    The columns of the non-zeros, ascending in each row
+     * @param value    The non-zeros
+     */
+    public CsrMatrix(int m, int n, int[] rowStart, int[] index, double[] value) {
+        if (m < 1 || n < 1) {
+            throw new IllegalArgumentException("zero or negative size: " + m + 'x' + n);
+        }
+        if (rowStart.length != m + 1 || 0 != rowStart[0] || rowStart[m] > Math.min(index.length, value.length)) {
+            throw new IllegalArgumentException("wrong row offsets");
+        }
+        for (int i = 0; i < m; i++) {
+            if (rowStart[i] > rowStart[i + 1]) {
+                throw new IllegalArgumentException("wrong row offsets at row " + i);
+            }
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                if (index[k] < 0 || index[k] >= n || k > rowStart[i] && index[k] <= index[k - 1]) {
+                    throw new IllegalArgumentException("column out of range or order at row " + i + ": " + index[k]);
+                }
+            }
+        }
+        this.m = m;
+        this.n = n;
+        this.rowStart = rowStart;
+        this.index = index;
+        this.value = value;
+    }
+
+    /**
+     * The non-zeros of a dense matrix
+     */
+    public static CsrMatrix of(double[][] a) {
+        if (null == a || a.length < 1) {
+            throw new IllegalArgumentException("number of rows < 1");
+        }
+        final Builder builder = new Builder(a[0].length);
+        for (double[] row : a) {
+            for (int j = 0; j < builder.n; j++) {
+                builder.add(j, row[j]);
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * The matrix of coordinate triplets (rows[k], columns[k], values[k]) in any order, the duplicates are summed.
+     */
+    public static CsrMatrix of(int m, int n, int[] rows, int[] columns, double[] values) {
+        if (rows.length != columns.length || rows.length != values.length) {
+            throw new IllegalArgumentException("triplets not matched");
+        }
+        // bucket the triplets by row
+        final int[] start = new int[m + 1];
+        for (int r : rows) {
+            if (r < 0 || r >= m) {
+                throw new IllegalArgumentException("row out of range: " + r);
+            }
+            start[r + 1]++;
+        }
+        for (int i = 0; i < m; i++) {
+            start[i + 1] += start[i];
+        }
+        final int[] next = Arrays.copyOf(start, m);
+        final int[] order = new int[rows.length];
+        for (int k = 0; k < rows.length; k++) {
+            order[next[rows[k]]++] = k;
+        }
+
+        final Builder builder = new Builder(n);
+        for (int i = 0; i < m; i++) {
+            for (int p = start[i]; p < start[i + 1]; p++) {
+                builder.add(columns[order[p]], values[order[p]]);
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int getRows() {
+        return m;
+    }
+
+    @Override
+    public int getColumns() {
+        return n;
+    }
+
+    public int nonZeros() {
+        return rowStart[m];
+    }
+
+    /**
+     * The first position of the row i, see {@link #columnAt(int)} and {@link #valueAt(int)}
+     */
+    public int rowStart(int i) {
+        return rowStart[i];
+    }
+
+    /**
+     * The position after the last of the row i
+     */
+    public int rowEnd(int i) {
+        return rowStart[i + 1];
+    }
+
+    public int columnAt(int k) {
+        return index[k];
+    }
+
+    public double valueAt(int k) {
+        return value[k];
+    }
+
+    @Override
+    public double getAsDouble(int r, int c) {
+        final int k = Arrays.binarySearch(index, rowStart[r], rowStart[r + 1], c);
+        return k >= 0 ? value[k] : 0d;
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        return getAsDouble(r1, c1) / getAsDouble(r2, c2);
+    }
+
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        return Double.compare(getAsDouble(r1, c1), getAsDouble(r2, c2));
+    }
+
+    @Override
+    public void copyRow(int r, double[] dst, int from, int to) {
+        Arrays.fill(dst, from, to, 0d);
+        for (int k = rowStart[r]; k < rowStart[r + 1]; k++) {
+            if (index[k] >= from && index[k] < to) {
+                dst[index[k]] = value[k];
+            }
+        }
+    }
+
+    @Override
+    public void multiplyLeft(double[] y, int endIndex, double[] dst) {
+        Arrays.fill(dst, 0, endIndex, 0d);
+        for (int i = 0; i < m; i++) {
+            if (0d == y[i]) {
+                continue;
+            }
+            for (int k = rowStart[i]; k < rowStart[i + 1] && index[k] < endIndex; k++) {
+                dst[index[k]] += y[i] * value[k];
+            }
+        }
+    }
+
+    /**
+     * Return the dense matrix
+     */
+    public double[][] toArray() {
+        final double[][] a = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            copyRow(i, a[i], 0, n);
+        }
+        return a;
+    }
+
+    /**
+     * Return this matrix with a row appended, the columns need not be sorted
+     */
+    public CsrMatrix appendRow(int[] columns, double[] values) {
+        final Builder builder = new Builder(n, m + 1, nonZeros() + columns.length);
+        builder.addRows(this, 0, m);
+        for (int k = 0; k < columns.length; k++) {
+            builder.add(columns[k], values[k]);
+        }
+        builder.endRow();
+        return builder.build();
+    }
+
+    /**
+     * Return this matrix with the column c set to 0
+     */
+    public CsrMatrix withoutColumn(int c) {
+        final Builder builder = new Builder(n, m, nonZeros());
+        for (int i = 0; i < m; i++) {
+            for (int k = rowStart[i]; k < rowStart[i + 1]; k++) {
+                if (index[k] != c) {
+                    builder.add(index[k], value[k]);
+                }
+            }
+            builder.endRow();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Return the matrix of the same non-zero pattern, with the values given by the position k
+     */
+    public CsrMatrix withValues(double[] values) {
+        if (values.length < nonZeros()) {
+            throw new IllegalArgumentException("values not matched");
+        }
+        return new CsrMatrix(m, n, rowStart, index, values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CsrMatrix)) {
+            return false;
+        }
+        final CsrMatrix that = (CsrMatrix) o;
+        final int nz = nonZeros();
+        return m == that.m && n == that.n
+                && Arrays.equals(rowStart, that.rowStart)
+                && Arrays.equals(Arrays.copyOf(index, nz), Arrays.copyOf(that.index, nz))
+                && Arrays.equals(Arrays.copyOf(value, nz), Arrays.copyOf(that.value, nz));
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 31 * m + n;
+        for (int i = 0; i < m; i++) {
+            h = 31 * h + rowStart[i + 1];
+        }
+        for (int k = 0; k < nonZeros(); k++) {
+            h = 31 * h + index[k];
+            h = 31 * h + Double.hashCode(value[k]);
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "CsrMatrix{" +
+                "m=" + m +
+                ", n=" + n +
+                ", nonZeros=" + nonZeros() +
+                '}';
+    }
+
+    /**
+     * Build a {@link CsrMatrix} row by row: {@link #add(int, double)} the elements of a row in any order,
+     * then {@link #endRow()}. The zeros are dropped and the duplicates are summed.
+     */
+    public static final class Builder {
+        final int n;
+        private int m = 0;
+        private int[] rowStart;
+        private int[] index;
+        private double[] value;
+        private int size = 0;
+        private boolean sorted = true;
+
+        // for sorting a row by column: column << 32 | position
+        private long[] keys = new long[0];
+
+        public Builder(int n) {
+            this(n, 16, 16);
+        }
+
+        public Builder(int n, int rows, int nonZeros) {
+            if (n < 1) {
+                throw new IllegalArgumentException("zero or negative n: " + n);
+            }
+            this.n = n;
+            this.rowStart = new int[Math.max(1, rows) + 1];
+            this.index = new int[Math.max(1, nonZeros)];
+            this.value = new double[Math.max(1, nonZeros)];
+        }
+
+        /**
+         * Add the element (current row, j)
+         */
+        public Builder add(int j, double v) {
+            if (j < 0 || j >= n) {
+                throw new IllegalArgumentException("column out of range: " + j);
+            }
+            if (0d == v) {
+                return this;
+            }
+            if (size == index.length) {
+                final int capacity = size + (size >> 1) + 1;
+                index = Arrays.copyOf(index, capacity);
+                value = Arrays.copyOf(value, capacity);
+            }
+            sorted &= size == rowStart[m] || j > index[size - 1];
+            index[size] = j;
+            value[size++] = v;
+            return this;
+        }
+
+        /**
+         * Add the rows [from, to) of the matrix a
+         */
+        public Builder addRows(CsrMatrix a, int from, int to) {
+            for (int i = from; i < to; i++) {
+                for (int k = a.rowStart[i]; k < a.rowStart[i + 1]; k++) {
+                    add(a.index[k], a.value[k]);
+                }
+                endRow();
+            }
+            return this;
+        }
+
+        /**
+         * End the current row, and begin the next
+         */
+        public Builder endRow() {
+            if (!sorted) {
+                sortRow();
+            }
+            if (m + 1 == rowStart.length) {
+                rowStart = Arrays.copyOf(rowStart, rowStart.length + (rowStart.length >> 1) + 1);
+            }
+            rowStart[++m] = size;
+            sorted = true;
+            return this;
+        }
+
+        /**
+         * Sort the current row by column, sum the duplicates and drop the zeros of the sums
+         */
+        private void sortRow() {
+            final int start = rowStart[m];
+            final int length = size - start;
+            if (keys.length < length) {
+                keys = new long[length];
+            }
+            for (int k = 0; k < length; k++) {
+                keys[k] = (long) index[start + k] << 32 | k;
+            }
+            Arrays.sort(keys, 0, length);
+            final double[] values = Arrays.copyOfRange(value, start, size);
+            int p = start;
+            for (int k = 0; k < length; k++) {
+                final int j = (int) (keys[k] >>> 32);
+                final double v = values[(int) keys[k]];
+                if (p > start && index[p - 1] == j) {
+                    value[p - 1] += v;
+                } else {
+                    index[p] = j;
+                    value[p++] = v;
+                }
+            }
+            // the sums cancelled to 0
+            int q = start;
+            for (int k = start; k < p; k++) {
+                if (0d != value[k]) {
+                    index[q] = index[k];
+                    value[q++] = value[k];
+                }
+            }
+            this.size = q;
+        }
+
+        public CsrMatrix build() {
+            if (size > rowStart[m]) {
+                throw new IllegalStateException("row not ended");
+            }
+            return new CsrMatrix(m, n, Arrays.copyOf(rowStart, m + 1), Arrays.copyOf(index, size),
+                    Arrays.copyOf(value, size));
+        }
+    }
+}
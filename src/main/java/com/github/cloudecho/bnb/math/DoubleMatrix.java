@@ -59,12 +59,50 @@ public class DoubleMatrix extends AbstractMatrix<Double> {
 
         normalize(r, c);
 
-        // for each row except r-th
+        if (Parallel.isParallel(m, n)) {
+            Parallel.forEach(0, m, Parallel.grain(n), (from, to) -> eliminate(r, c, from, to));
+        } else {
+            eliminate(r, c, 0, m);
+        }
+        pivoted(nonZeros(table[r]));
+    }
+
+    private int nonZeros(double[] row) {
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            if (0d != row[j]) {
+                k++;
+            }
+        }
+        return k;
+    }
+
+    @Override
+    protected int sparsify() {
+        int k = 0;
         for (int i = 0; i < m; i++) {
+            final double[] row = table[i];
+            for (int j = 0; j < n; j++) {
+                if (tolerance.isZero(row[j])) {
+                    row[j] = 0d;
+                } else {
+                    k++;
+                }
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Eliminate the column c from the rows in [from, to) except r-th
+     */
+    private void eliminate(int r, int c, int from, int to) {
+        // for each row except r-th
+        for (int i = from; i < to; i++) {
             if (r == i) {
                 continue;
             }
-            v = table[i][c];
+            final double v = table[i][c];
             if (0d == v) {
                 continue;
             }
@@ -79,7 +117,7 @@ public class DoubleMatrix extends AbstractMatrix<Double> {
                     continue;
                 }
                 double v2 = -v * table[r][j] + table[i][j];
-                table[i][j] = Double.isNaN(v2) ? 0 : v2;
+                table[i][j] = tolerance.drop(v2, table[i][j]);
             }
         }
     }
@@ -120,22 +158,22 @@ public class DoubleMatrix extends AbstractMatrix<Double> {
 
     @Override
     public boolean isPositive(int r, int c) {
-        return table[r][c] > 0d;
+        return table[r][c] > tolerance.zero;
     }
 
     @Override
     public boolean isNegative(int r, int c) {
-        return table[r][c] < 0d;
+        return table[r][c] < -tolerance.zero;
     }
 
     @Override
     public boolean isZero(int r, int c) {
-        return table[r][c] == 0d;
+        return tolerance.isZero(table[r][c]);
     }
 
     public boolean existsPositiveInRow(int r, int endIndex) {
         for (int j = 0; j < endIndex; j++) {
-            if (table[r][j] > 0d) {
+            if (table[r][j] > tolerance.zero) {
                 return true;
             }
         }
@@ -144,13 +182,25 @@ public class DoubleMatrix extends AbstractMatrix<Double> {
 
     public boolean existsNonZeroInRow(int r, int endIndex) {
         for (int j = 0; j < endIndex; j++) {
-            if (table[r][j] != 0d) {
+            if (!tolerance.isZero(table[r][j])) {
                 return true;
             }
         }
         return false;
     }
 
+    @Override
+    public void copyRow(int r, double[] dst, int from, int to) {
+        System.arraycopy(table[r], from, dst, from, to - from);
+    }
+
+    @Override
+    public void copyColumn(int c, double[] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dst[i] = table[i][c];
+        }
+    }
+
     @Override
     public int compare(int r1, int c1, int r2, int c2) {
         return Double.compare(table[r1][c1], table[r2][c2]);
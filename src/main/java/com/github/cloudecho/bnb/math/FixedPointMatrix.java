@@ -0,0 +1,346 @@
+package com.github.cloudecho.bnb.math;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * A decimal tableau in fixed point: a cell is a long v read as v / 10<sup>{@link #FIXED_SCALE}</sup>.
+ * <p>
+ * The arithmetic on the longs checks that the result is exact at that scale and fits; otherwise, e.g. 1/3 or an
+ * overflow, the cell is kept as a BigDecimal computed as {@link BigDecimalMatrix} does, in the same order and
+ * {@link MathContext}. So the values are the ones of {@link BigDecimalMatrix}, and most of the arithmetic is on
+ * longs while the data are decimals with a few fractional digits, e.g. prices and quantities.
+ * The long of a BigDecimal cell holds its sign, so the sign tests never look at the BigDecimals.
+ */
+public class FixedPointMatrix extends AbstractMatrix<BigDecimal> {
+    public static final String FIXED_SCALE_PROP = "com.github.cloudecho.bnb.FIXED_SCALE";
+
+    /**
+     * The number of fractional digits of the longs
+     */
+    static final int FIXED_SCALE = Integer.parseInt(System.getProperty(FIXED_SCALE_PROP, "4"));
+
+    protected final int scale;
+    protected final long unit; // 10^scale
+    protected long[][] table;
+    protected BigDecimal[][] big; // null rows and cells for the longs
+    protected MathContext mathContext = MathContext.DECIMAL128;
+
+    public FixedPointMatrix(double[][] table, int max_n) {
+        this(table, max_n, FIXED_SCALE);
+    }
+
+    public FixedPointMatrix(double[][] table, int max_n, int scale) {
+        super(table, max_n);
+        if (scale < 0 || scale > 18) {
+            throw new IllegalArgumentException("scale out of range: " + scale);
+        }
+        this.tolerance = Tolerance.EXACT;
+        this.scale = scale;
+        this.unit = BigDecimal.ONE.scaleByPowerOfTen(scale).longValueExact();
+        this.table = new long[m][n];
+        this.big = new BigDecimal[m][];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                put(i, j, BigDecimal.valueOf(table[i][j]));
+            }
+        }
+    }
+
+    public void mathContext(MathContext mathContext) {
+        if (mathContext != null) {
+            this.mathContext = mathContext;
+        }
+    }
+
+    private boolean isBig(int r, int c) {
+        final BigDecimal[] row = big[r];
+        return row != null && row[c] != null;
+    }
+
+    private BigDecimal bigValue(int r, int c) {
+        return isBig(r, c) ? big[r][c] : BigDecimal.valueOf(table[r][c], scale);
+    }
+
+    private void putLong(int r, int c, long v) {
+        table[r][c] = v;
+        if (big[r] != null) {
+            big[r][c] = null;
+        }
+    }
+
+    /**
+     * A long if v is exact at the scale and fits
+     */
+    private void put(int r, int c, BigDecimal v) {
+        final int k = v.scale() - scale;
+        if (k > 0 && v.precision() - k < 19 && v.unscaledValue().getLowestSetBit() >= k) {
+            v = v.stripTrailingZeros(); // 10^k may divide the unscaled value
+        }
+        if (v.scale() <= scale && v.precision() - v.scale() + scale < 19) {
+            putLong(r, c, v.setScale(scale).unscaledValue().longValue());
+            return;
+        }
+        if (null == big[r]) {
+            big[r] = new BigDecimal[table[r].length];
+        }
+        big[r][c] = v;
+        table[r][c] = v.signum();
+    }
+
+    @Override
+    public BigDecimal get(int r, int c) {
+        return bigValue(r, c);
+    }
+
+    @Override
+    public double getAsDouble(int r, int c) {
+        final long v = table[r][c];
+        if (!isBig(r, c) && Math.abs(v) < 1L << 53) {
+            return (double) v / unit; // correctly rounded
+        }
+        return bigValue(r, c).doubleValue();
+    }
+
+    @Override
+    public void set(int r, int c, Number num) {
+        put(r, c, num instanceof BigDecimal ? (BigDecimal) num : BigDecimal.valueOf(num.doubleValue()));
+    }
+
+    @Override
+    public void set(int r, int c, double num) {
+        put(r, c, BigDecimal.valueOf(num));
+    }
+
+    @Override
+    public void gaussian(int r, int c) {
+        if (0 == table[r][c]) {
+            return;
+        }
+
+        normalize(r, c);
+
+        final long[] tr = table[r];
+        BigDecimal[] bigRow = null; // the row r in BigDecimals, on demand
+        // for each row except r-th
+        for (int i = 0; i < m; i++) {
+            if (r == i) {
+                continue;
+            }
+            final long[] ti = table[i];
+            final long v = ti[c];
+            if (0 == v) {
+                continue;
+            }
+            final boolean bigCell = isBig(i, c);
+            BigDecimal bigV = bigCell ? big[i][c] : null; // the value v
+
+            // for each element in this row
+            for (int j = 0; j < n; j++) {
+                if (0 == tr[j]) {
+                    continue;
+                }
+                if (j == c) {
+                    putLong(i, j, 0);
+                    continue;
+                }
+                if (!bigCell && !isBig(r, j) && !isBig(i, j) && subtractProduct(ti, j, v, tr[j])) {
+                    continue;
+                }
+                if (null == bigV) {
+                    bigV = BigDecimal.valueOf(v, scale);
+                }
+                if (null == bigRow) {
+                    bigRow = new BigDecimal[n];
+                }
+                if (null == bigRow[j]) {
+                    bigRow[j] = bigValue(r, j);
+                }
+                put(i, j, bigV.multiply(bigRow[j], mathContext)
+                        .negate(mathContext)
+                        .add(bigValue(i, j), mathContext));
+            }
+        }
+    }
+
+    /**
+     * t[j] -= a * b in longs, return {@code false} if inexact or overflow
+     */
+    private boolean subtractProduct(long[] t, int j, long a, long b) {
+        try {
+            final long p = Math.multiplyExact(a, b); // scale * 2
+            if (p % unit != 0) {
+                return false;
+            }
+            t[j] = Math.subtractExact(t[j], p / unit);
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void normalize(int r, int c) {
+        final long v = table[r][c];
+        if (0 == v || v == unit && !isBig(r, c)) {
+            return;
+        }
+
+        final long[] tr = table[r];
+        final boolean bigPivot = isBig(r, c);
+        for (int j = 0; j < n; j++) {
+            if (0 == tr[j] || j == c) {
+                continue;
+            }
+            if (!bigPivot && !isBig(r, j) && quotient(tr, j, v)) {
+                continue;
+            }
+            put(r, j, bigValue(r, j).divide(bigValue(r, c), mathContext));
+        }
+        putLong(r, c, unit);
+    }
+
+    /**
+     * t[j] /= v in longs, return {@code false} if inexact or overflow
+     */
+    private boolean quotient(long[] t, int j, long v) {
+        try {
+            final long a = Math.multiplyExact(t[j], unit);
+            if (a % v != 0) {
+                return false;
+            }
+            t[j] = a / v;
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public BigDecimal[] getRow(int r) {
+        final BigDecimal[] row = new BigDecimal[n];
+        for (int j = 0; j < n; j++) {
+            row[j] = bigValue(r, j);
+        }
+        return row;
+    }
+
+    @Override
+    public void setRow(int r, Object rowData) {
+        final BigDecimal[] row = (BigDecimal[]) rowData;
+        for (int j = 0; j < Math.min(row.length, n); j++) {
+            put(r, j, row[j]);
+        }
+    }
+
+    @Override
+    public void removeRow(int r) {
+        if (r < 0 || m - 1 - r < 0) {
+            return;
+        }
+        System.arraycopy(table, r + 1, table, r, m - 1 - r);
+        System.arraycopy(big, r + 1, big, r, m - 1 - r);
+        table[m - 1] = null;
+        big[m - 1] = null;
+        decreaseRows();
+    }
+
+    @Override
+    public void negate(int r, int c) {
+        if (isBig(r, c) || Long.MIN_VALUE == table[r][c]) {
+            put(r, c, bigValue(r, c).negate(mathContext));
+        } else {
+            table[r][c] = -table[r][c];
+        }
+    }
+
+    @Override
+    public BigDecimal divide(int r1, int c1, int r2, int c2) {
+        return bigValue(r1, c1).divide(bigValue(r2, c2), mathContext);
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        final long a = table[r1][c1];
+        final long b = table[r2][c2];
+        if (!isBig(r1, c1) && !isBig(r2, c2) && Math.abs(a) < 1L << 53 && Math.abs(b) < 1L << 53) {
+            return (double) a / b; // the scales cancel
+        }
+        return divide(r1, c1, r2, c2).doubleValue();
+    }
+
+    @Override
+    public boolean existsPositiveInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            if (table[r][j] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsNonZeroInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            if (table[r][j] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isPositive(int r, int c) {
+        return table[r][c] > 0;
+    }
+
+    @Override
+    public boolean isNegative(int r, int c) {
+        return table[r][c] < 0;
+    }
+
+    @Override
+    public boolean isZero(int r, int c) {
+        return table[r][c] == 0;
+    }
+
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        if (!isBig(r1, c1) && !isBig(r2, c2)) {
+            return Long.compare(table[r1][c1], table[r2][c2]);
+        }
+        return bigValue(r1, c1).compareTo(bigValue(r2, c2));
+    }
+
+    /**
+     * Return the number of cells kept as BigDecimals
+     */
+    public int bigCells() {
+        int count = 0;
+        for (int i = 0; i < m; i++) {
+            if (null == big[i]) {
+                continue;
+            }
+            for (int j = 0; j < n; j++) {
+                if (big[i][j] != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    protected void extendColumn() {
+        if (growColumn(n - table[0].length) <= 0) {
+            return;
+        }
+        for (int i = 0; i < m; i++) {
+            table[i] = Arrays.copyOf(table[i], n2);
+            if (big[i] != null) {
+                big[i] = Arrays.copyOf(big[i], n2);
+            }
+        }
+    }
+}
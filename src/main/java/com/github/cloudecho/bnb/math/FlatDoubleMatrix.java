@@ -0,0 +1,268 @@
+package com.github.cloudecho.bnb.math;
+
+import java.util.Arrays;
+
+/**
+ * A dense tableau in one contiguous array, row-major with a stride of {@link #n2} physical columns:
+ * the element (i,j) is <tt>data[i * stride + j]</tt>.
+ * <p>
+ * The rows are adjacent in memory, so a pivot streams over them without chasing a pointer per row.
+ * {@link #gaussian(int, int)} gathers the non-zeros of the pivot row once, and updates each row by them in a tight
+ * loop, or by the dense {@link Kernels#axpyDrop} if the pivot row is mostly non-zero. Both drop the cancellation
+ * round-off by {@link Tolerance#drop}.
+ */
+public class FlatDoubleMatrix extends AbstractMatrix<Double> {
+    /**
+     * The pivot row is updated densely if more than this fraction of it is non-zero
+     */
+    static final double DENSE_PIVOT_ROW = 0.5d;
+
+    protected double[] data;
+    protected int stride;
+
+    // the non-zeros of the pivot row, gathered by gaussian()
+    private int[] pivotIndex;
+    private double[] pivotValue;
+
+    public FlatDoubleMatrix(double[][] table, int max_n) {
+        super(table, max_n);
+        this.stride = n;
+        this.data = Buffers.takeAtLeast(m * stride);
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(table[i], 0, data, i * stride, n);
+        }
+        this.pivotIndex = new int[stride];
+        this.pivotValue = new double[stride];
+    }
+
+    @Override
+    public Double get(int r, int c) {
+        return data[r * stride + c];
+    }
+
+    @Override
+    public double getAsDouble(int r, int c) {
+        return data[r * stride + c];
+    }
+
+    @Override
+    public double[] getRow(int r) {
+        return Arrays.copyOfRange(data, r * stride, r * stride + n);
+    }
+
+    @Override
+    public void setRow(int r, Object rowData) {
+        final double[] row = (double[]) rowData;
+        System.arraycopy(row, 0, data, r * stride, Math.min(row.length, n));
+    }
+
+    @Override
+    public void removeRow(int r) {
+        if (r < 0 || m - 1 - r < 0) {
+            return;
+        }
+        System.arraycopy(data, (r + 1) * stride, data, r * stride, (m - 1 - r) * stride);
+        Arrays.fill(data, (m - 1) * stride, m * stride, 0d);
+        decreaseRows();
+    }
+
+    @Override
+    public void set(int r, int c, Number num) {
+        data[r * stride + c] = num.doubleValue();
+    }
+
+    @Override
+    public void set(int r, int c, double num) {
+        data[r * stride + c] = num;
+    }
+
+    @Override
+    public void gaussian(int r, int c) {
+        if (0d == data[r * stride + c]) {
+            return;
+        }
+
+        normalize(r, c);
+
+        final double[] data = this.data;
+        final int pr = r * stride;
+        int size = 0;
+        for (int j = 0; j < n; j++) {
+            if (0d != data[pr + j] && j != c) {
+                pivotIndex[size] = j;
+                pivotValue[size++] = data[pr + j];
+            }
+        }
+        final boolean dense = size > DENSE_PIVOT_ROW * n;
+        final int nonZeros = size;
+
+        if (Parallel.isParallel(m, n)) {
+            Parallel.forEach(0, m, Parallel.grain(dense ? n : nonZeros),
+                    (from, to) -> eliminate(r, c, dense, nonZeros, from, to));
+        } else {
+            eliminate(r, c, dense, nonZeros, 0, m);
+        }
+        pivoted(nonZeros + 1);
+    }
+
+    /**
+     * Eliminate the column c from the rows in [from, to) except r-th
+     */
+    private void eliminate(int r, int c, boolean dense, int size, int from, int to) {
+        final double[] data = this.data;
+        final int pr = r * stride;
+        for (int i = from; i < to; i++) {
+            final int pi = i * stride;
+            final double v = data[pi + c];
+            if (r == i || 0d == v) {
+                continue;
+            }
+            if (dense) {
+                Kernels.axpyDrop(-v, data, pr, data, pi, n, tolerance.drop);
+            } else {
+                final Tolerance tolerance = this.tolerance;
+                for (int k = 0; k < size; k++) {
+                    final int p = pi + pivotIndex[k];
+                    data[p] = tolerance.drop(data[p] - v * pivotValue[k], data[p]);
+                }
+            }
+            data[pi + c] = 0d;
+        }
+    }
+
+    @Override
+    public void recycle() {
+        Buffers.give(data);
+        this.data = null;
+    }
+
+    @Override
+    protected int sparsify() {
+        int k = 0;
+        for (int i = 0; i < m; i++) {
+            for (int p = i * stride, end = p + n; p < end; p++) {
+                if (tolerance.isZero(data[p])) {
+                    data[p] = 0d;
+                } else {
+                    k++;
+                }
+            }
+        }
+        return k;
+    }
+
+    @Override
+    public void normalize(int r, int c) {
+        final int pr = r * stride;
+        final double v = data[pr + c];
+        if (1d == v || 0d == v) {
+            return;
+        }
+
+        for (int j = 0; j < n; j++) {
+            data[pr + j] /= v;
+        }
+        data[pr + c] = 1d;
+    }
+
+    @Override
+    public void negate(int r, int c) {
+        data[r * stride + c] *= -1;
+    }
+
+    @Override
+    public Double divide(int r1, int c1, int r2, int c2) {
+        return divideAsDouble(r1, c1, r2, c2);
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        return data[r1 * stride + c1] / data[r2 * stride + c2];
+    }
+
+    @Override
+    public boolean isPositive(int r, int c) {
+        return data[r * stride + c] > tolerance.zero;
+    }
+
+    @Override
+    public boolean isNegative(int r, int c) {
+        return data[r * stride + c] < -tolerance.zero;
+    }
+
+    @Override
+    public boolean isZero(int r, int c) {
+        return tolerance.isZero(data[r * stride + c]);
+    }
+
+    @Override
+    public boolean existsPositiveInRow(int r, int endIndex) {
+        final int pr = r * stride;
+        for (int j = 0; j < endIndex; j++) {
+            if (data[pr + j] > tolerance.zero) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsNonZeroInRow(int r, int endIndex) {
+        final int pr = r * stride;
+        for (int j = 0; j < endIndex; j++) {
+            if (!tolerance.isZero(data[pr + j])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void copyRow(int r, double[] dst, int from, int to) {
+        System.arraycopy(data, r * stride + from, dst, from, to - from);
+    }
+
+    @Override
+    public void copyColumn(int c, double[] dst, int from, int to) {
+        for (int i = from, p = from * stride + c; i < to; i++, p += stride) {
+            dst[i] = data[p];
+        }
+    }
+
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        return Double.compare(data[r1 * stride + c1], data[r2 * stride + c2]);
+    }
+
+    @Override
+    public void multiplyLeft(double[] y, int endIndex, double[] dst) {
+        Arrays.fill(dst, 0, endIndex, 0d);
+        for (int i = 0; i < m; i++) {
+            final double yi = y[i];
+            if (0d == yi) {
+                continue;
+            }
+            Kernels.axpy(yi, data, i * stride, dst, 0, endIndex);
+        }
+    }
+
+    /**
+     * Grow the stride, and move the rows to the new one
+     */
+    @Override
+    protected void extendColumn() {
+        if (growColumn(n - stride) <= 0) {
+            return;
+        }
+
+        final double[] grown = Buffers.takeAtLeast(max_m * n2);
+        for (int i = 0; i < m; i++) {
+            System.arraycopy(data, i * stride, grown, i * n2, stride);
+        }
+        Buffers.give(data);
+        this.data = grown;
+        this.stride = n2;
+        this.pivotIndex = new int[stride];
+        this.pivotValue = new double[stride];
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.cloudecho.bnb.math;
+
+/**
+ * The vector kernels of the dense tableaus, in plain loops.
+ * <p>
+ * On Java 17+ the multi-release jar replaces this class by one using the vector API if the incubator module is
+ * available, i.e. {@code java --add-modules jdk.incubator.vector ...}. Both compute the same values.
+ */
+public final class Kernels {
+    private Kernels() {
+
+    }
+
+    /**
+     * Return {@code true} if the vector API is used
+     */
+    public static boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * y[yOffset + j] += a * x[xOffset + j] for j in [0, length)
+     */
+    public static void axpy(double a, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int j = 0; j < length; j++) {
+            y[yOffset + j] += a * x[xOffset + j];
+        }
+    }
+
+    /**
+     * As {@link #axpy}, and y[yOffset + j] is set to 0 if it is updated from v to |v'| &le; drop * |v| or to NaN,
+     * as by {@link Tolerance#drop}
+     */
+    public static void axpyDrop(double a, double[] x, int xOffset, double[] y, int yOffset, int length, double drop) {
+        for (int j = 0; j < length; j++) {
+            final double v = y[yOffset + j];
+            final double v2 = v + a * x[xOffset + j];
+            y[yOffset + j] = Double.isNaN(v2) || Math.abs(v2) <= drop * Math.abs(v) ? 0d : v2;
+        }
+    }
+}
@@ -0,0 +1,845 @@
+package com.github.cloudecho.bnb.math;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The tableau of the revised simplex method.
+ * <p>
+ * The original matrix <tt>[C 0; A b]</tt> is kept untouched in compressed columns, the tableau is
+ * <pre>
+ *  [C - yA   -yb
+ *   B<sup>-1</sup>A    B<sup>-1</sup>b]  where y = C<sub>B</sub>B<sup>-1</sup>
+ * </pre>
+ * and its elements are computed on demand: the pricing row (row 0) by one BTRAN, a column by one FTRAN,
+ * any other row by one BTRAN. Computed rows and columns are cached until the next pivot.
+ * <p>
+ * The basis B starts from the identity. It is factorized as a permuted block triangular matrix
+ * <pre>
+ *  [D X
+ *   0 K]
+ * </pre>
+ * where D is the diagonal of singleton columns (the identity columns, slacks etc.)
+ * and K is the kernel of the remaining columns, factorized by LU with partial pivoting. The kernel is held and
+ * factorized densely, k&times;k and O(k<sup>3</sup>) per refactorization: a stand-in for sparse factors, which
+ * only pays off while the kernel stays small.
+ * A pivot appends an eta matrix (product form update), the basis is refactorized every
+ * {@link #REFACTOR_INTERVAL} pivots.
+ */
+public class LuFactorizedMatrix extends AbstractMatrix<Double> {
+    public static final int REFACTOR_INTERVAL = 64;
+
+    static final int CACHED_COLUMNS = 16;
+    static final int CACHED_ROWS = 4;
+    static final double SINGULAR = 1e-14;
+    /**
+     * Computed elements below this (relative) magnitude are round-off, and dropped to 0
+     */
+    static final double DROP = 1e-11;
+
+    /**
+     * The number of constraint rows, i.e. the size of B
+     */
+    protected final int size;
+
+    /**
+     * Row 0, i.e. the vector C
+     */
+    protected final double[] cost;
+    /**
+     * Row 1..size in compressed columns, row indexes start from 0
+     */
+    protected final int[][] colIndex;
+    protected final double[][] colValue;
+    protected final int[] colSize;
+
+    /**
+     * Visible row -&gt; physical row, 0 for the objective
+     */
+    protected final int[] rowMap;
+
+    /**
+     * Slot (physical row - 1) -&gt; basic column, -1 for the initial identity column
+     */
+    protected final int[] basis;
+    /**
+     * Column -&gt; slot, -1 if non-basic
+     */
+    protected final int[] slotOf;
+
+    // factorization of B at the last refactorization
+    private final int[] factored; // slot -> basic column at the last refactorization
+    private final int[] singletonRow; // slot -> row or -1 for kernel slots
+    private final double[] singletonValue;
+    private final int[] kernelSlots;
+    private final int[] kernelRows;
+    private int k = 0; // size of kernel
+    private double[][] lu = new double[0][];
+    private int[] luPerm = new int[0];
+
+    // eta file
+    private int etaCount = 0;
+    private final int[] etaRow = new int[REFACTOR_INTERVAL];
+    private final int[][] etaIndex = new int[REFACTOR_INTERVAL][];
+    private final double[][] etaValue = new double[REFACTOR_INTERVAL][];
+
+    // caches
+    private double[] duals; // y = C_B B^-1, null if out of date
+    private final double[] row0; // NaN if not computed
+    private final Lines columns;
+    private final Lines rows;
+    private int lastMissRow = -1;
+
+    private final double[] work;
+
+    public LuFactorizedMatrix(double[][] table, int max_n) {
+        super(table, max_n);
+        this.size = m - 1;
+
+        this.cost = new double[max_n];
+        this.colIndex = new int[max_n][];
+        this.colValue = new double[max_n][];
+        this.colSize = new int[max_n];
+        System.arraycopy(table[0], 0, cost, 0, n);
+        for (int j = 0; j < n; j++) {
+            int count = 0;
+            for (int i = 1; i <= size; i++) {
+                if (0d != table[i][j]) {
+                    count++;
+                }
+            }
+            colIndex[j] = new int[count];
+            colValue[j] = new double[count];
+            for (int i = 1; i <= size; i++) {
+                if (0d != table[i][j]) {
+                    colIndex[j][colSize[j]] = i - 1;
+                    colValue[j][colSize[j]++] = table[i][j];
+                }
+            }
+        }
+
+        this.rowMap = new int[m];
+        for (int i = 0; i < m; i++) {
+            rowMap[i] = i;
+        }
+
+        this.basis = new int[size];
+        this.slotOf = new int[max_n];
+        Arrays.fill(basis, -1);
+        Arrays.fill(slotOf, -1);
+
+        this.factored = new int[size];
+        this.singletonRow = new int[size];
+        this.singletonValue = new double[size];
+        this.kernelSlots = new int[size];
+        this.kernelRows = new int[size];
+        this.row0 = new double[max_n];
+        this.columns = new Lines(CACHED_COLUMNS, max_n);
+        this.rows = new Lines(CACHED_ROWS, m);
+        this.work = new double[size];
+        refactor();
+        invalidateRow0();
+    }
+
+    @Override
+    public double getAsDouble(int r, int c) {
+        final int p = rowMap[r];
+        if (0 == p) {
+            return reducedCost(c);
+        }
+        double[] col = columns.get(c);
+        if (col != null) {
+            return col[p - 1];
+        }
+        double[] row = rows.get(p);
+        if (row != null) {
+            return row[c];
+        }
+        // the 2nd miss on the same row: compute the whole row
+        if (lastMissRow == p) {
+            return row(p)[c];
+        }
+        lastMissRow = p;
+        return column(c)[p - 1];
+    }
+
+    @Override
+    public Double get(int r, int c) {
+        return getAsDouble(r, c);
+    }
+
+    /**
+     * One FTRAN for the rows 1..m
+     */
+    @Override
+    public void copyColumn(int c, double[] dst, int from, int to) {
+        double[] col = null;
+        for (int i = from; i < to; i++) {
+            final int p = rowMap[i];
+            if (0 == p) {
+                dst[i] = reducedCost(c);
+                continue;
+            }
+            if (null == col) {
+                col = column(c);
+            }
+            dst[i] = col[p - 1];
+        }
+    }
+
+    /**
+     * The element c of the pricing row, computed on demand by a single dot product
+     */
+    private double reducedCost(int c) {
+        double d = row0[c];
+        if (Double.isNaN(d)) {
+            if (null == duals) {
+                final double[] cb = new double[size];
+                for (int s = 0; s < size; s++) {
+                    cb[s] = basis[s] < 0 ? 0d : cost[basis[s]];
+                }
+                this.duals = btran(cb);
+            }
+            d = (slotOf[c] >= 0) ? 0d : drop(cost[c] - dot(duals, c), 1d + Math.abs(cost[c]));
+            row0[c] = d;
+        }
+        return d;
+    }
+
+    /**
+     * The pricing row
+     */
+    private double[] row0() {
+        for (int j = 0; j < n; j++) {
+            reducedCost(j);
+        }
+        return row0;
+    }
+
+    /**
+     * The physical row p (p &ge; 1) of the tableau
+     */
+    private double[] row(int p) {
+        double[] row = rows.get(p);
+        if (row != null) {
+            return row;
+        }
+        final double[] e = new double[size];
+        e[p - 1] = 1d;
+        final double[] rho = btran(e);
+        row = new double[n];
+        for (int j = 0; j < n; j++) {
+            final int s = slotOf[j];
+            row[j] = (s >= 0) ? (s == p - 1 ? 1d : 0d) : drop(dot(rho, j), 1d);
+        }
+        rows.put(p, row);
+        return row;
+    }
+
+    /**
+     * The column c of the tableau, except row 0
+     */
+    private double[] column(int c) {
+        double[] col = columns.get(c);
+        if (col != null) {
+            return col;
+        }
+        col = ftran(c);
+        columns.put(c, col);
+        return col;
+    }
+
+    private double dot(double[] y, int j) {
+        final int[] index = colIndex[j];
+        final double[] value = colValue[j];
+        double sum = 0d;
+        for (int t = colSize[j] - 1; t >= 0; t--) {
+            sum += y[index[t]] * value[t];
+        }
+        return sum;
+    }
+
+    /**
+     * Return B<sup>-1</sup>a<sub>j</sub>, indexed by slot
+     */
+    private double[] ftran(int j) {
+        final double[] a = work;
+        Arrays.fill(a, 0d);
+        double scale = 1d;
+        for (int t = 0; t < colSize[j]; t++) {
+            a[colIndex[j][t]] = colValue[j][t];
+            scale = Math.max(scale, Math.abs(colValue[j][t]));
+        }
+
+        // kernel
+        final double[] x = new double[size];
+        if (k > 0) {
+            final double[] rhs = new double[k];
+            for (int ri = 0; ri < k; ri++) {
+                rhs[ri] = a[kernelRows[ri]];
+            }
+            final double[] xk = luSolve(rhs);
+            for (int ki = 0; ki < k; ki++) {
+                final double v = xk[ki];
+                final int s = kernelSlots[ki];
+                x[s] = v;
+                if (0d == v) {
+                    continue;
+                }
+                final int col = factored[s];
+                for (int t = 0; t < colSize[col]; t++) {
+                    a[colIndex[col][t]] -= colValue[col][t] * v;
+                }
+            }
+        }
+
+        // singletons
+        for (int s = 0; s < size; s++) {
+            final int q = singletonRow[s];
+            if (q >= 0) {
+                x[s] = a[q] / singletonValue[s];
+            }
+        }
+
+        for (int e = 0; e < etaCount; e++) {
+            applyEta(e, x);
+        }
+        for (int s = 0; s < size; s++) {
+            x[s] = drop(x[s], scale);
+        }
+        return x;
+    }
+
+    private static double drop(double v, double scale) {
+        return Math.abs(v) < DROP * scale ? 0d : v;
+    }
+
+    /**
+     * Return y, such that yB = v (v indexed by slot)
+     */
+    private double[] btran(double[] v) {
+        final double[] w = v.clone();
+        for (int e = etaCount - 1; e >= 0; e--) {
+            final int r = etaRow[e];
+            final int[] index = etaIndex[e];
+            final double[] value = etaValue[e];
+            double sum = w[r];
+            double pivot = 0d;
+            for (int t = 0; t < index.length; t++) {
+                if (index[t] == r) {
+                    pivot = value[t];
+                } else {
+                    sum -= w[index[t]] * value[t];
+                }
+            }
+            w[r] = sum / pivot;
+        }
+
+        final double[] y = new double[size];
+        for (int s = 0; s < size; s++) {
+            final int q = singletonRow[s];
+            if (q >= 0) {
+                y[q] = w[s] / singletonValue[s];
+            }
+        }
+        if (k > 0) {
+            final double[] rhs = new double[k];
+            for (int ki = 0; ki < k; ki++) {
+                final int s = kernelSlots[ki];
+                final int col = factored[s];
+                double sum = w[s];
+                for (int t = 0; t < colSize[col]; t++) {
+                    sum -= colValue[col][t] * y[colIndex[col][t]]; // y is 0 on kernel rows yet
+                }
+                rhs[ki] = sum;
+            }
+            final double[] z = luSolveTransposed(rhs);
+            for (int ri = 0; ri < k; ri++) {
+                y[kernelRows[ri]] = z[ri];
+            }
+        }
+        return y;
+    }
+
+    /**
+     * x := E<sub>e</sub>x
+     */
+    private void applyEta(int e, double[] x) {
+        final int r = etaRow[e];
+        final int[] index = etaIndex[e];
+        final double[] value = etaValue[e];
+        double pivot = 0d;
+        for (int t = 0; t < index.length; t++) {
+            if (index[t] == r) {
+                pivot = value[t];
+                break;
+            }
+        }
+        final double xr = x[r] / pivot;
+        if (0d == xr) {
+            return;
+        }
+        for (int t = 0; t < index.length; t++) {
+            final int i = index[t];
+            if (i != r) {
+                x[i] -= value[t] * xr;
+            }
+        }
+        x[r] = xr;
+    }
+
+    private void addEta(int r, double[] d) {
+        int count = 0;
+        for (double v : d) {
+            if (0d != v) {
+                count++;
+            }
+        }
+        final int[] index = new int[count];
+        final double[] value = new double[count];
+        for (int i = 0, t = 0; i < size; i++) {
+            if (0d != d[i]) {
+                index[t] = i;
+                value[t++] = d[i];
+            }
+        }
+        etaRow[etaCount] = r;
+        etaIndex[etaCount] = index;
+        etaValue[etaCount] = value;
+        etaCount++;
+    }
+
+    /**
+     * Factorize the current basis, and clear the eta file.
+     */
+    protected void refactor() {
+        System.arraycopy(basis, 0, factored, 0, size);
+        Arrays.fill(singletonRow, -1);
+        final boolean[] covered = new boolean[size];
+        // identity columns
+        for (int s = 0; s < size; s++) {
+            if (basis[s] < 0) {
+                singletonRow[s] = s;
+                singletonValue[s] = 1d;
+                covered[s] = true;
+            }
+        }
+        // singleton columns
+        for (int s = 0; s < size; s++) {
+            final int col = basis[s];
+            if (col < 0 || colSize[col] != 1 || covered[colIndex[col][0]] || 0d == colValue[col][0]) {
+                continue;
+            }
+            singletonRow[s] = colIndex[col][0];
+            singletonValue[s] = colValue[col][0];
+            covered[singletonRow[s]] = true;
+        }
+
+        // kernel
+        int ks = 0, kr = 0;
+        for (int s = 0; s < size; s++) {
+            if (singletonRow[s] < 0) {
+                kernelSlots[ks++] = s;
+            }
+            if (!covered[s]) {
+                kernelRows[kr++] = s;
+            }
+        }
+        if (ks != kr) {
+            throw new IllegalStateException("singular basis");
+        }
+        this.k = ks;
+
+        final int[] rowToKernel = new int[size];
+        Arrays.fill(rowToKernel, -1);
+        for (int ri = 0; ri < k; ri++) {
+            rowToKernel[kernelRows[ri]] = ri;
+        }
+        this.lu = new double[k][k];
+        for (int ki = 0; ki < k; ki++) {
+            final int col = basis[kernelSlots[ki]];
+            for (int t = 0; t < colSize[col]; t++) {
+                final int ri = rowToKernel[colIndex[col][t]];
+                if (ri >= 0) {
+                    lu[ri][ki] = colValue[col][t];
+                }
+            }
+        }
+        luFactorize();
+
+        this.etaCount = 0;
+        Arrays.fill(etaIndex, null);
+        Arrays.fill(etaValue, null);
+    }
+
+    /**
+     * PK = LU, in place
+     */
+    private void luFactorize() {
+        this.luPerm = new int[k];
+        for (int i = 0; i < k; i++) {
+            luPerm[i] = i;
+        }
+        for (int c = 0; c < k; c++) {
+            int p = c;
+            for (int i = c + 1; i < k; i++) {
+                if (Math.abs(lu[i][c]) > Math.abs(lu[p][c])) {
+                    p = i;
+                }
+            }
+            if (Math.abs(lu[p][c]) < SINGULAR) {
+                throw new IllegalStateException("singular basis");
+            }
+            if (p != c) {
+                final double[] row = lu[p];
+                lu[p] = lu[c];
+                lu[c] = row;
+                final int i = luPerm[p];
+                luPerm[p] = luPerm[c];
+                luPerm[c] = i;
+            }
+            final double[] pivotRow = lu[c];
+            for (int i = c + 1; i < k; i++) {
+                final double[] row = lu[i];
+                if (0d == row[c]) {
+                    continue;
+                }
+                final double f = row[c] / pivotRow[c];
+                row[c] = f;
+                for (int j = c + 1; j < k; j++) {
+                    row[j] -= f * pivotRow[j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Solve Kx = b
+     */
+    private double[] luSolve(double[] b) {
+        final double[] x = new double[k];
+        for (int i = 0; i < k; i++) {
+            double sum = b[luPerm[i]];
+            for (int j = 0; j < i; j++) {
+                sum -= lu[i][j] * x[j];
+            }
+            x[i] = sum;
+        }
+        for (int i = k - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int j = i + 1; j < k; j++) {
+                sum -= lu[i][j] * x[j];
+            }
+            x[i] = sum / lu[i][i];
+        }
+        return x;
+    }
+
+    /**
+     * Solve K<sup>T</sup>z = c
+     */
+    private double[] luSolveTransposed(double[] c) {
+        final double[] w = new double[k];
+        for (int i = 0; i < k; i++) {
+            double sum = c[i];
+            for (int j = 0; j < i; j++) {
+                sum -= lu[j][i] * w[j];
+            }
+            w[i] = sum / lu[i][i];
+        }
+        for (int i = k - 1; i >= 0; i--) {
+            double sum = w[i];
+            for (int j = i + 1; j < k; j++) {
+                sum -= lu[j][i] * w[j];
+            }
+            w[i] = sum;
+        }
+        final double[] z = new double[k];
+        for (int i = 0; i < k; i++) {
+            z[luPerm[i]] = w[i];
+        }
+        return z;
+    }
+
+    /**
+     * Pivot on (r,c), i.e. the column c enters the basis at the slot of row r.
+     */
+    @Override
+    public void gaussian(int r, int c) {
+        final int p = rowMap[r];
+        if (0 == p) {
+            throw new UnsupportedOperationException("pivoting on row 0");
+        }
+        final int s = p - 1;
+        final double[] d = column(c);
+        if (0d == d[s]) {
+            return;
+        }
+
+        addEta(s, d);
+        columns.forEach(col -> applyEta(etaCount - 1, col));
+        if (basis[s] >= 0) {
+            slotOf[basis[s]] = -1;
+        }
+        basis[s] = c;
+        slotOf[c] = s;
+
+        invalidateRow0();
+        this.rows.clear();
+        this.lastMissRow = -1;
+
+        if (etaCount == REFACTOR_INTERVAL) {
+            refactor();
+            columns.clear();
+        }
+    }
+
+    @Override
+    public void normalize(int r, int c) {
+        throw new UnsupportedOperationException("normalizing without elimination: (" + r + ',' + c + ')');
+    }
+
+    @Override
+    public void set(int r, int c, double num) {
+        final int p = rowMap[r];
+        final double delta = num - getAsDouble(r, c);
+        if (0d == delta) {
+            return;
+        }
+        if (slotOf[c] >= 0) {
+            throw new UnsupportedOperationException("setting value on basic column: " + c + " (r=" + r + ')');
+        }
+
+        // T(p,c) += delta, i.e. a(c) += delta * B(:,s) and c(c) += delta * C(B(s))
+        if (0 == p) {
+            cost[c] += delta;
+            row0[c] += delta; // computed by getAsDouble()
+        } else {
+            final int s = p - 1;
+            final int col = basis[s];
+            if (col < 0) {
+                addToColumn(c, s, delta);
+            } else {
+                cost[c] += delta * cost[col];
+                for (int t = 0; t < colSize[col]; t++) {
+                    addToColumn(c, colIndex[col][t], delta * colValue[col][t]);
+                }
+            }
+            double[] column = columns.get(c);
+            if (column != null) {
+                column[s] += delta;
+            }
+            double[] row = rows.get(p);
+            if (row != null) {
+                row[c] += delta;
+            }
+            if (isFactored(c)) { // left the basis after the last refactorization
+                refactor();
+            }
+        }
+    }
+
+    private boolean isFactored(int c) {
+        for (int s = 0; s < size; s++) {
+            if (factored[s] == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addToColumn(int j, int i, double delta) {
+        for (int t = 0; t < colSize[j]; t++) {
+            if (colIndex[j][t] == i) {
+                colValue[j][t] += delta;
+                return;
+            }
+        }
+        if (null == colIndex[j]) {
+            colIndex[j] = new int[4];
+            colValue[j] = new double[4];
+        } else if (colSize[j] == colIndex[j].length) {
+            colIndex[j] = Arrays.copyOf(colIndex[j], 2 * colSize[j] + 1);
+            colValue[j] = Arrays.copyOf(colValue[j], 2 * colSize[j] + 1);
+        }
+        colIndex[j][colSize[j]] = i;
+        colValue[j][colSize[j]++] = delta;
+    }
+
+    @Override
+    public void set(int r, int c, Number num) {
+        set(r, c, num.doubleValue());
+    }
+
+    @Override
+    public double[] getRow(int r) {
+        final int p = rowMap[r];
+        return Arrays.copyOf(0 == p ? row0() : row(p), n);
+    }
+
+    /**
+     * One BTRAN for the rows 1..m
+     */
+    @Override
+    public void multiplyLeft(double[] y, int endIndex, double[] dst) {
+        final double[] v = new double[size];
+        double y0 = 0d;
+        for (int i = 0; i < m; i++) {
+            if (0 == rowMap[i]) {
+                y0 = y[i];
+            } else {
+                v[rowMap[i] - 1] = y[i];
+            }
+        }
+        final double[] rho = btran(v);
+        final double[] r0 = 0d == y0 ? null : row0();
+        for (int j = 0; j < endIndex; j++) {
+            final int s = slotOf[j];
+            double sum = s >= 0 ? v[s] : dot(rho, j);
+            if (r0 != null) {
+                sum += y0 * r0[j];
+            }
+            dst[j] = sum;
+        }
+    }
+
+    @Override
+    public void setRow(int r, Object rowData) {
+        throw new UnsupportedOperationException("setting row: " + r);
+    }
+
+    /**
+     * Hide the row r. The row is still in the basis, but never pivoted afterwards.
+     */
+    @Override
+    public void removeRow(int r) {
+        if (r < 1 || m - 1 - r < 0) {
+            return;
+        }
+        System.arraycopy(rowMap, r + 1, rowMap, r, m - 1 - r);
+        decreaseRows();
+    }
+
+    @Override
+    public void negate(int r, int c) {
+        set(r, c, -getAsDouble(r, c));
+    }
+
+    @Override
+    public Double divide(int r1, int c1, int r2, int c2) {
+        return divideAsDouble(r1, c1, r2, c2);
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        return getAsDouble(r1, c1) / getAsDouble(r2, c2);
+    }
+
+    @Override
+    public boolean existsPositiveInRow(int r, int endIndex) {
+        final int p = rowMap[r];
+        final double[] row = 0 == p ? row0() : row(p);
+        for (int j = 0; j < endIndex; j++) {
+            if (row[j] > tolerance.zero) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsNonZeroInRow(int r, int endIndex) {
+        final int p = rowMap[r];
+        final double[] row = 0 == p ? row0() : row(p);
+        for (int j = 0; j < endIndex; j++) {
+            if (!tolerance.isZero(row[j])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isPositive(int r, int c) {
+        return getAsDouble(r, c) > tolerance.zero;
+    }
+
+    @Override
+    public boolean isNegative(int r, int c) {
+        return getAsDouble(r, c) < -tolerance.zero;
+    }
+
+    @Override
+    public boolean isZero(int r, int c) {
+        return tolerance.isZero(getAsDouble(r, c));
+    }
+
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        return Double.compare(getAsDouble(r1, c1), getAsDouble(r2, c2));
+    }
+
+    /**
+     * The elements are computed and cached on demand
+     */
+    @Override
+    public boolean isConcurrentReadable() {
+        return false;
+    }
+
+    @Override
+    protected void extendColumn() {
+        invalidateRow0();
+        this.rows.clear();
+        this.lastMissRow = -1;
+    }
+
+    private void invalidateRow0() {
+        this.duals = null;
+        Arrays.fill(row0, Double.NaN);
+    }
+
+    /**
+     * A FIFO cache of rows or columns
+     */
+    private static final class Lines {
+        final double[][] lines;
+        final int[] order;
+        int size = 0;
+        int next = 0;
+
+        Lines(int capacity, int count) {
+            this.lines = new double[count][];
+            this.order = new int[capacity];
+        }
+
+        double[] get(int k) {
+            return lines[k];
+        }
+
+        void put(int k, double[] line) {
+            if (size == order.length) {
+                lines[order[next]] = null;
+            } else {
+                size++;
+            }
+            order[next] = k;
+            next = (next + 1) % order.length;
+            lines[k] = line;
+        }
+
+        void forEach(Consumer<double[]> action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(lines[order[i]]);
+            }
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                lines[order[i]] = null;
+            }
+            size = 0;
+            next = 0;
+        }
+    }
+}
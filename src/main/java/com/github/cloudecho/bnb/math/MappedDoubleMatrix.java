@@ -0,0 +1,392 @@
+package com.github.cloudecho.bnb.math;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An out-of-core tableau in a memory-mapped temporary file, column-major as {@link RevisedDoubleMatrix}:
+ * the element (i,j) is the double i of the column j, a column has {@link #max_m} cells.
+ * <p>
+ * The file is mapped in segments of whole columns (at most {@link #SEGMENT_BYTES} bytes), and sized for all the
+ * {@link #max_n} columns up front, so the reserved columns cost no disk until written. A pivot updates the columns
+ * one by one, i.e. it streams the file sequentially. {@link #close()} unmaps and deletes the file.
+ */
+public class MappedDoubleMatrix extends AbstractMatrix<Double> implements AutoCloseable {
+    public static final String MAPPED_DIR_PROP = "com.github.cloudecho.bnb.MAPPED_DIR";
+
+    /**
+     * The directory of the temporary files, the default temporary directory if empty
+     */
+    static final String MAPPED_DIR = System.getProperty(MAPPED_DIR_PROP, "");
+
+    /**
+     * The max size of a segment
+     */
+    static final int SEGMENT_BYTES = 1 << 30;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer[] buffers;
+    private DoubleBuffer[] segments;
+    private final int segmentShift; // a segment holds 2^segmentShift columns
+    private final int segmentMask;
+    private final int stride;
+
+    // the pivot column, zero at the pivot row
+    private final double[] pivotColumn;
+
+    public MappedDoubleMatrix(double[][] table, int max_n) {
+        this(rows(table), table[0].length, max_n);
+        for (int j = 0; j < n; j++) {
+            final DoubleBuffer segment = segment(j);
+            final int pj = offset(j);
+            for (int i = 0; i < m; i++) {
+                segment.put(pj + i, table[i][j]);
+            }
+        }
+    }
+
+    /**
+     * The initial simplex table of an LP, i.e. the row c, then the rows of a with b in the last column, written
+     * straight into the file, a column at a time, so the table is never staged in memory
+     *
+     * @param c The coefficient vector C, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows
+     */
+    public MappedDoubleMatrix(double[] c, double[][] a, double[] b, int max_n) {
+        this(a.length + 1, c.length + 1, max_n);
+        final int last = c.length;
+        for (int j = 0; j < n; j++) {
+            final DoubleBuffer segment = segment(j);
+            final int pj = offset(j);
+            if (j < last && 0d != c[j]) {
+                segment.put(pj, c[j]);
+            }
+            for (int i = 1; i < m; i++) {
+                final double v = j < last ? a[i - 1][j] : b[i - 1];
+                if (0d != v) {
+                    segment.put(pj + i, v);
+                }
+            }
+        }
+    }
+
+    /**
+     * The table in compressed rows, its non-zeros are written straight into the file
+     */
+    public MappedDoubleMatrix(CsrMatrix table, int max_n) {
+        this(table.getRows(), table.getColumns(), max_n);
+        for (int i = 0; i < m; i++) {
+            for (int k = table.rowStart(i); k < table.rowEnd(i); k++) {
+                set(i, table.columnAt(k), table.valueAt(k));
+            }
+        }
+    }
+
+    /**
+     * Map a new file of zeros, m rows, n columns
+     */
+    private MappedDoubleMatrix(int m, int n, int max_n) {
+        super(m, n, max_n);
+        this.stride = max_m;
+        int shift = 0;
+        while (shift < 30 && (1L << (shift + 1)) * stride * Double.BYTES <= SEGMENT_BYTES) {
+            shift++;
+        }
+        this.segmentShift = shift;
+        this.segmentMask = (1 << shift) - 1;
+        this.pivotColumn = new double[max_m];
+
+        try {
+            this.file = MAPPED_DIR.isEmpty() ? Files.createTempFile("bnb-", ".tableau")
+                    : Files.createTempFile(Paths.get(MAPPED_DIR), "bnb-", ".tableau");
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map();
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("failed to map the tableau", e);
+        }
+    }
+
+    private void map() throws IOException {
+        final int count = ((max_n - 1) >> segmentShift) + 1;
+        this.buffers = new MappedByteBuffer[count];
+        this.segments = new DoubleBuffer[count];
+        for (int k = 0; k < count; k++) {
+            final long position = ((long) k << segmentShift) * stride * Double.BYTES;
+            final int columns = Math.min(1 << segmentShift, max_n - (k << segmentShift));
+            buffers[k] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) columns * stride * Double.BYTES);
+            buffers[k].order(ByteOrder.nativeOrder());
+            segments[k] = buffers[k].asDoubleBuffer();
+        }
+    }
+
+    private DoubleBuffer segment(int c) {
+        return segments[c >> segmentShift];
+    }
+
+    /**
+     * The index of the element (0,c) in its segment
+     */
+    private int offset(int c) {
+        return (c & segmentMask) * stride;
+    }
+
+    @Override
+    public Double get(int r, int c) {
+        return getAsDouble(r, c);
+    }
+
+    @Override
+    public double getAsDouble(int r, int c) {
+        return segments[c >> segmentShift].get((c & segmentMask) * stride + r);
+    }
+
+    @Override
+    public double[] getRow(int r) {
+        final double[] row = new double[n];
+        for (int j = 0; j < n; j++) {
+            row[j] = getAsDouble(r, j);
+        }
+        return row;
+    }
+
+    @Override
+    public void setRow(int r, Object rowData) {
+        final double[] row = (double[]) rowData;
+        for (int j = 0; j < Math.min(row.length, n); j++) {
+            set(r, j, row[j]);
+        }
+    }
+
+    @Override
+    public void removeRow(int r) {
+        if (r < 0 || m - 1 - r < 0) {
+            return;
+        }
+        final double[] column = new double[m - 1 - r];
+        for (int j = 0; j < n; j++) {
+            final DoubleBuffer d = segment(j).duplicate();
+            final int pj = offset(j);
+            ((Buffer) d).position(pj + r + 1);
+            d.get(column);
+            ((Buffer) d).position(pj + r);
+            d.put(column);
+            d.put(0d);
+        }
+        decreaseRows();
+    }
+
+    @Override
+    public void set(int r, int c, Number num) {
+        set(r, c, num.doubleValue());
+    }
+
+    @Override
+    public void set(int r, int c, double num) {
+        segment(c).put(offset(c) + r, num);
+    }
+
+    @Override
+    public void gaussian(int r, int c) {
+        if (0d == getAsDouble(r, c)) {
+            return;
+        }
+
+        normalize(r, c);
+
+        final DoubleBuffer segment = segment(c);
+        final int pc = offset(c);
+        for (int i = 0; i < m; i++) {
+            pivotColumn[i] = r == i ? 0d : segment.get(pc + i);
+        }
+
+        if (Parallel.isParallel(m, n)) {
+            Parallel.forEach(0, n, Parallel.grain(m), (from, to) -> eliminate(r, c, from, to));
+        } else {
+            eliminate(r, c, 0, n);
+        }
+        pivoted(nonZeros(r));
+    }
+
+    private int nonZeros(int r) {
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            if (0d != getAsDouble(r, j)) {
+                k++;
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Eliminate the column c from the columns in [from, to)
+     */
+    private void eliminate(int r, int c, int from, int to) {
+        final double[] pivotColumn = this.pivotColumn;
+        for (int j = from; j < to; j++) {
+            final DoubleBuffer segment = segment(j);
+            final int pj = offset(j);
+            final double a = segment.get(pj + r);
+            if (0d == a) {
+                continue;
+            }
+            if (j == c) {
+                for (int i = 0; i < m; i++) {
+                    if (i != r) {
+                        segment.put(pj + i, 0d);
+                    }
+                }
+                continue;
+            }
+            for (int i = 0; i < m; i++) {
+                final double v = pivotColumn[i];
+                if (0d == v) {
+                    continue;
+                }
+                final double x = segment.get(pj + i);
+                segment.put(pj + i, tolerance.drop(x - v * a, x));
+            }
+        }
+    }
+
+    @Override
+    public void normalize(int r, int c) {
+        final double v = getAsDouble(r, c);
+        if (1d == v || 0d == v) {
+            return;
+        }
+
+        for (int j = 0; j < n; j++) {
+            final double a = getAsDouble(r, j);
+            if (0d != a) {
+                set(r, j, a / v);
+            }
+        }
+        set(r, c, 1d);
+    }
+
+    @Override
+    public void negate(int r, int c) {
+        set(r, c, -getAsDouble(r, c));
+    }
+
+    @Override
+    public Double divide(int r1, int c1, int r2, int c2) {
+        return divideAsDouble(r1, c1, r2, c2);
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        return getAsDouble(r1, c1) / getAsDouble(r2, c2);
+    }
+
+    @Override
+    public boolean isPositive(int r, int c) {
+        return getAsDouble(r, c) > tolerance.zero;
+    }
+
+    @Override
+    public boolean isNegative(int r, int c) {
+        return getAsDouble(r, c) < -tolerance.zero;
+    }
+
+    @Override
+    public boolean isZero(int r, int c) {
+        return tolerance.isZero(getAsDouble(r, c));
+    }
+
+    @Override
+    public boolean existsPositiveInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            if (getAsDouble(r, j) > tolerance.zero) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsNonZeroInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            if (!isZero(r, j)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        return Double.compare(getAsDouble(r1, c1), getAsDouble(r2, c2));
+    }
+
+    /**
+     * A dot product per column
+     */
+    @Override
+    public void multiplyLeft(double[] y, int endIndex, double[] dst) {
+        for (int j = 0; j < endIndex; j++) {
+            final DoubleBuffer segment = segment(j);
+            final int pj = offset(j);
+            double sum = 0d;
+            for (int i = 0; i < m; i++) {
+                final double yi = y[i];
+                if (0d != yi) {
+                    sum += yi * segment.get(pj + i);
+                }
+            }
+            dst[j] = sum;
+        }
+    }
+
+    /**
+     * The file holds all the {@link #max_n} columns, the hidden ones are cleared
+     */
+    @Override
+    protected void extendColumn() {
+        for (int j = n; j < n2; j++) {
+            final DoubleBuffer segment = segment(j);
+            final int pj = offset(j);
+            for (int i = 0; i < stride; i++) {
+                segment.put(pj + i, 0d);
+            }
+        }
+        this.n2 = n;
+    }
+
+    /**
+     * Unmap and delete the file
+     */
+    @Override
+    public void close() {
+        if (buffers != null) {
+            for (MappedByteBuffer buffer : buffers) {
+                DirectBuffers.release(buffer);
+            }
+            this.buffers = null;
+            this.segments = null;
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+                this.channel = null;
+            }
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to delete " + file, e);
+        }
+    }
+}
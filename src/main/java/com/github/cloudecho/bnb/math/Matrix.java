@@ -1,10 +1,8 @@
 package com.github.cloudecho.bnb.math;
 
-public interface Matrix<T extends Number> {
+public interface Matrix<T extends Number> extends PrimitiveMatrix {
     Number get(int r, int c);
 
-    double getAsDouble(int r, int c);
-
     void set(int r, int c, Number num);
 
     void set(int r, int c, double num);
@@ -23,10 +21,6 @@ public interface Matrix<T extends Number> {
 
     void setColumns(int n);
 
-    int getRows();
-
-    int getColumns();
-
     void increaseRows();
 
     void increaseColumns();
@@ -39,8 +33,6 @@ public interface Matrix<T extends Number> {
 
     T divide(int r1, int c1, int r2, int c2);
 
-    double divideAsDouble(int r1, int c1, int r2, int c2);
-
     boolean existsPositiveInRow(int r, int endIndex);
 
     boolean existsNonZeroInRow(int r, int endIndex);
@@ -63,5 +55,18 @@ public interface Matrix<T extends Number> {
         return !isZero(r, c);
     }
 
-    int compare(int r1, int c1, int r2, int c2);
+    /**
+     * The tolerances used by the sign tests of this matrix, and by the simplex working on it
+     */
+    default Tolerance getTolerance() {
+        return Tolerance.DEFAULT;
+    }
+
+    /**
+     * Return {@code true} if the getters may be called by several threads at once, i.e. they have no side effects
+     * such as filling a cache
+     */
+    default boolean isConcurrentReadable() {
+        return true;
+    }
 }
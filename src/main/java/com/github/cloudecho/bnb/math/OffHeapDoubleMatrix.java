@@ -0,0 +1,346 @@
+package com.github.cloudecho.bnb.math;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * A dense tableau outside of the Java heap, row-major with a stride of {@link #n2} physical columns,
+ * in direct buffers of whole rows (chunks of at most {@link #CHUNK_BYTES} bytes).
+ * <p>
+ * The garbage collector never scans or moves the cells, so a large LP does not pressure it. The memory is
+ * released by {@link #close()}, the matrix must not be used after.
+ */
+public class OffHeapDoubleMatrix extends AbstractMatrix<Double> implements AutoCloseable {
+    /**
+     * The max size of a chunk
+     */
+    static final int CHUNK_BYTES = 1 << 30;
+
+    private ByteBuffer[] buffers;
+    private DoubleBuffer[] chunks;
+    private int chunkShift; // a chunk holds 2^chunkShift rows
+    private int chunkMask;
+    protected int stride;
+
+    // the non-zeros of the pivot row, gathered by gaussian()
+    private int[] pivotIndex;
+    private double[] pivotValue;
+
+    public OffHeapDoubleMatrix(double[][] table, int max_n) {
+        super(table, max_n);
+        allocate(n);
+        for (int i = 0; i < m; i++) {
+            writeRow(i, table[i], n);
+        }
+    }
+
+    /**
+     * The initial simplex table of an LP, i.e. the row c, then the rows of a with b in the last column, written
+     * straight into the direct buffers a row at a time, so the table is never staged on the heap
+     *
+     * @param c The coefficient vector C, n columns
+     * @param a The matrix A, m rows, n columns
+     * @param b The vector b, m rows
+     */
+    public OffHeapDoubleMatrix(double[] c, double[][] a, double[] b, int max_n) {
+        super(a.length + 1, c.length + 1, max_n);
+        allocate(n);
+        final int last = c.length;
+        writeRow(0, c, last);
+        for (int i = 1; i < m; i++) {
+            writeRow(i, a[i - 1], last);
+            set(i, last, b[i - 1]);
+        }
+    }
+
+    /**
+     * The table in compressed rows, its non-zeros are written straight into the direct buffers
+     */
+    public OffHeapDoubleMatrix(CsrMatrix table, int max_n) {
+        super(table.getRows(), table.getColumns(), max_n);
+        allocate(n);
+        for (int i = 0; i < m; i++) {
+            for (int k = table.rowStart(i); k < table.rowEnd(i); k++) {
+                set(i, table.columnAt(k), table.valueAt(k));
+            }
+        }
+    }
+
+    /**
+     * Allocate the chunks of max_m rows with a stride, and the buffers of gaussian()
+     */
+    private void allocate(int stride) {
+        this.stride = stride;
+        int shift = 0;
+        while (shift < 30 && (1L << (shift + 1)) * stride * Double.BYTES <= CHUNK_BYTES) {
+            shift++;
+        }
+        this.chunkShift = shift;
+        this.chunkMask = (1 << shift) - 1;
+
+        final int count = ((max_m - 1) >> shift) + 1;
+        this.buffers = new ByteBuffer[count];
+        this.chunks = new DoubleBuffer[count];
+        for (int k = 0; k < count; k++) {
+            final int rows = Math.min(1 << shift, max_m - (k << shift));
+            buffers[k] = ByteBuffer.allocateDirect(rows * stride * Double.BYTES).order(ByteOrder.nativeOrder());
+            chunks[k] = buffers[k].asDoubleBuffer();
+        }
+        this.pivotIndex = new int[stride];
+        this.pivotValue = new double[stride];
+    }
+
+    private DoubleBuffer chunk(int r) {
+        return chunks[r >> chunkShift];
+    }
+
+    /**
+     * The index of the element (r,0) in its chunk
+     */
+    private int offset(int r) {
+        return (r & chunkMask) * stride;
+    }
+
+    @Override
+    public Double get(int r, int c) {
+        return getAsDouble(r, c);
+    }
+
+    @Override
+    public double getAsDouble(int r, int c) {
+        return chunks[r >> chunkShift].get((r & chunkMask) * stride + c);
+    }
+
+    @Override
+    public double[] getRow(int r) {
+        final double[] row = new double[n];
+        readRow(r, row, n);
+        return row;
+    }
+
+    private void readRow(int r, double[] row, int length) {
+        final DoubleBuffer d = chunk(r).duplicate();
+        ((Buffer) d).position(offset(r));
+        d.get(row, 0, length);
+    }
+
+    private void writeRow(int r, double[] row, int length) {
+        final DoubleBuffer d = chunk(r).duplicate();
+        ((Buffer) d).position(offset(r));
+        d.put(row, 0, length);
+    }
+
+    @Override
+    public void setRow(int r, Object rowData) {
+        final double[] row = (double[]) rowData;
+        writeRow(r, row, Math.min(row.length, n));
+    }
+
+    @Override
+    public void removeRow(int r) {
+        if (r < 0 || m - 1 - r < 0) {
+            return;
+        }
+        final double[] row = new double[stride];
+        for (int i = r; i < m - 1; i++) {
+            readRow(i + 1, row, stride);
+            writeRow(i, row, stride);
+        }
+        writeRow(m - 1, new double[stride], stride);
+        decreaseRows();
+    }
+
+    @Override
+    public void set(int r, int c, Number num) {
+        set(r, c, num.doubleValue());
+    }
+
+    @Override
+    public void set(int r, int c, double num) {
+        chunk(r).put(offset(r) + c, num);
+    }
+
+    @Override
+    public void gaussian(int r, int c) {
+        if (0d == getAsDouble(r, c)) {
+            return;
+        }
+
+        normalize(r, c);
+
+        final DoubleBuffer pivotRow = chunk(r);
+        final int pr = offset(r);
+        int size = 0;
+        for (int j = 0; j < n; j++) {
+            final double a = pivotRow.get(pr + j);
+            if (0d != a && j != c) {
+                pivotIndex[size] = j;
+                pivotValue[size++] = a;
+            }
+        }
+        final int nonZeros = size;
+
+        if (Parallel.isParallel(m, n)) {
+            Parallel.forEach(0, m, Parallel.grain(nonZeros), (from, to) -> eliminate(r, c, nonZeros, from, to));
+        } else {
+            eliminate(r, c, nonZeros, 0, m);
+        }
+        pivoted(nonZeros + 1);
+    }
+
+    /**
+     * Eliminate the column c from the rows in [from, to) except r-th
+     */
+    private void eliminate(int r, int c, int size, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final DoubleBuffer chunk = chunk(i);
+            final int pi = offset(i);
+            final double v = chunk.get(pi + c);
+            if (r == i || 0d == v) {
+                continue;
+            }
+            for (int k = 0; k < size; k++) {
+                final int index = pi + pivotIndex[k];
+                final double x = chunk.get(index);
+                chunk.put(index, tolerance.drop(x - v * pivotValue[k], x));
+            }
+            chunk.put(pi + c, 0d);
+        }
+    }
+
+    @Override
+    public void normalize(int r, int c) {
+        final DoubleBuffer chunk = chunk(r);
+        final int pr = offset(r);
+        final double v = chunk.get(pr + c);
+        if (1d == v || 0d == v) {
+            return;
+        }
+
+        for (int j = 0; j < n; j++) {
+            chunk.put(pr + j, chunk.get(pr + j) / v);
+        }
+        chunk.put(pr + c, 1d);
+    }
+
+    @Override
+    public void negate(int r, int c) {
+        set(r, c, -getAsDouble(r, c));
+    }
+
+    @Override
+    public Double divide(int r1, int c1, int r2, int c2) {
+        return divideAsDouble(r1, c1, r2, c2);
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        return getAsDouble(r1, c1) / getAsDouble(r2, c2);
+    }
+
+    @Override
+    public boolean isPositive(int r, int c) {
+        return getAsDouble(r, c) > tolerance.zero;
+    }
+
+    @Override
+    public boolean isNegative(int r, int c) {
+        return getAsDouble(r, c) < -tolerance.zero;
+    }
+
+    @Override
+    public boolean isZero(int r, int c) {
+        return tolerance.isZero(getAsDouble(r, c));
+    }
+
+    @Override
+    public boolean existsPositiveInRow(int r, int endIndex) {
+        final DoubleBuffer chunk = chunk(r);
+        final int pr = offset(r);
+        for (int j = 0; j < endIndex; j++) {
+            if (chunk.get(pr + j) > tolerance.zero) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsNonZeroInRow(int r, int endIndex) {
+        final DoubleBuffer chunk = chunk(r);
+        final int pr = offset(r);
+        for (int j = 0; j < endIndex; j++) {
+            if (!tolerance.isZero(chunk.get(pr + j))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        return Double.compare(getAsDouble(r1, c1), getAsDouble(r2, c2));
+    }
+
+    @Override
+    public void multiplyLeft(double[] y, int endIndex, double[] dst) {
+        Arrays.fill(dst, 0, endIndex, 0d);
+        for (int i = 0; i < m; i++) {
+            final double yi = y[i];
+            if (0d == yi) {
+                continue;
+            }
+            final DoubleBuffer chunk = chunk(i);
+            final int pi = offset(i);
+            for (int j = 0; j < endIndex; j++) {
+                dst[j] += yi * chunk.get(pi + j);
+            }
+        }
+    }
+
+    /**
+     * Grow the stride, and move the rows to new chunks
+     */
+    @Override
+    protected void extendColumn() {
+        if (growColumn(n - stride) <= 0) {
+            return;
+        }
+
+        final ByteBuffer[] oldBuffers = this.buffers;
+        final DoubleBuffer[] oldChunks = this.chunks;
+        final int oldShift = this.chunkShift;
+        final int oldMask = this.chunkMask;
+        final int oldStride = this.stride;
+        allocate(n2);
+
+        final double[] row = new double[oldStride];
+        for (int i = 0; i < m; i++) {
+            final DoubleBuffer d = oldChunks[i >> oldShift].duplicate();
+            ((Buffer) d).position((i & oldMask) * oldStride);
+            d.get(row, 0, oldStride);
+            writeRow(i, row, oldStride);
+        }
+        for (ByteBuffer buffer : oldBuffers) {
+            DirectBuffers.release(buffer);
+        }
+    }
+
+    /**
+     * Release the off-heap memory
+     */
+    @Override
+    public void close() {
+        if (null == buffers) {
+            return;
+        }
+        for (ByteBuffer buffer : buffers) {
+            DirectBuffers.release(buffer);
+        }
+        this.buffers = null;
+        this.chunks = null;
+    }
+}
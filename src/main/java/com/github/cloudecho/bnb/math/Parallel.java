@@ -0,0 +1,184 @@
+package com.github.cloudecho.bnb.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * The intra-pivot parallelism: a loop over independent rows (or columns) of a large tableau is split into ranges,
+ * which are run by the common fork/join pool. Each element is computed as by the sequential loop, so the results
+ * do not depend on the split.
+ */
+public final class Parallel {
+    public static final String PARALLEL_MIN_CELLS_PROP = "com.github.cloudecho.bnb.PARALLEL_MIN_CELLS";
+    public static final String PARALLEL_MIN_LENGTH_PROP = "com.github.cloudecho.bnb.PARALLEL_MIN_LENGTH";
+
+    /**
+     * A tableau is updated in parallel if it has at least this number of cells, 0 for never
+     */
+    private static volatile long minCells = Long.parseLong(System.getProperty(PARALLEL_MIN_CELLS_PROP, "262144"));
+
+    /**
+     * A scan (e.g. pricing or ratio test) is run in parallel if it has at least this length, 0 for never
+     */
+    private static volatile int minLength = Integer.parseInt(System.getProperty(PARALLEL_MIN_LENGTH_PROP, "65536"));
+
+    /**
+     * The minimum number of cells of a range
+     */
+    private static volatile int grainCells = 16384;
+
+    private Parallel() {
+
+    }
+
+    public interface Range {
+        /**
+         * Run the loop over [from, to)
+         */
+        void run(int from, int to);
+    }
+
+    public interface Reduction<R> {
+        /**
+         * Return the result over [from, to)
+         */
+        R run(int from, int to);
+    }
+
+    /**
+     * Return {@code true} if a scan of {@code length} elements is run in parallel
+     */
+    public static boolean isParallel(int length) {
+        final int min = minLength;
+        return min > 0
+                && length >= min
+                && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Return {@code true} if a tableau of m &times; n cells is updated in parallel
+     */
+    public static boolean isParallel(int m, int n) {
+        final long min = minCells;
+        return min > 0
+                && (long) m * n >= min
+                && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    /**
+     * Set the min number of cells of a parallel tableau update, 0 for never. Return the last one.
+     */
+    static long setMinCells(long cells) {
+        final long last = minCells;
+        minCells = cells;
+        return last;
+    }
+
+    /**
+     * Set the min length of a parallel scan, 0 for never. Return the last one.
+     */
+    static int setMinLength(int length) {
+        final int last = minLength;
+        minLength = length;
+        return last;
+    }
+
+    /**
+     * Set the min number of cells of a range. Return the last one.
+     */
+    static int setGrainCells(int cells) {
+        final int last = grainCells;
+        grainCells = Math.max(1, cells);
+        return last;
+    }
+
+    /**
+     * Run the loop over [from, to) in ranges of at least {@code grain} indices.
+     */
+    public static void forEach(int from, int to, int grain, Range range) {
+        final int g = Math.max(1, grain);
+        if (to - from <= g) {
+            range.run(from, to);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RangeAction(from, to, g, range));
+    }
+
+    /**
+     * Reduce [from, to) in ranges of at least {@code grain} indices. The results of adjacent ranges are combined
+     * in index order, i.e. <tt>combine(left, right)</tt>, so that a combine preferring the left one on ties keeps
+     * the choice of the sequential scan.
+     */
+    public static <R> R reduce(int from, int to, int grain, Reduction<R> reduction, BinaryOperator<R> combine) {
+        final int g = Math.max(1, grain);
+        if (to - from <= g) {
+            return reduction.run(from, to);
+        }
+        return ForkJoinPool.commonPool().invoke(new ReduceTask<>(from, to, g, reduction, combine));
+    }
+
+    /**
+     * The grain of a loop over vectors of {@code length} cells
+     */
+    public static int grain(int length) {
+        return Math.max(1, grainCells / Math.max(1, length));
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final Range range;
+
+        RangeAction(int from, int to, int grain, Range range) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.range = range;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                range.run(from, to);
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            invokeAll(new RangeAction(from, mid, grain, range), new RangeAction(mid, to, grain, range));
+        }
+    }
+
+    private static final class ReduceTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final Reduction<R> reduction;
+        private final BinaryOperator<R> combine;
+
+        ReduceTask(int from, int to, int grain, Reduction<R> reduction, BinaryOperator<R> combine) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.reduction = reduction;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= grain) {
+                return reduction.run(from, to);
+            }
+            final int mid = (from + to) >>> 1;
+            final ReduceTask<R> right = new ReduceTask<>(mid, to, grain, reduction, combine);
+            right.fork();
+            final R left = new ReduceTask<>(from, mid, grain, reduction, combine).compute();
+            return combine.apply(left, right.join());
+        }
+    }
+}
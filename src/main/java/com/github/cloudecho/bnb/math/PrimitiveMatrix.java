@@ -0,0 +1,64 @@
+package com.github.cloudecho.bnb.math;
+
+import java.util.Arrays;
+
+/**
+ * The double-valued access to a tableau, without boxing.
+ * <p>
+ * The bulk accessors copy a row or a column into a buffer of the caller, so that a scan is one call and no garbage.
+ * The defaults read element by element, the tableaus override them where a row or a column is contiguous or
+ * computed at once.
+ */
+public interface PrimitiveMatrix {
+    int getRows();
+
+    int getColumns();
+
+    double getAsDouble(int r, int c);
+
+    double divideAsDouble(int r1, int c1, int r2, int c2);
+
+    int compare(int r1, int c1, int r2, int c2);
+
+    /**
+     * dst[j] = (r,j) for j in [from, to)
+     */
+    default void copyRow(int r, double[] dst, int from, int to) {
+        for (int j = from; j < to; j++) {
+            dst[j] = getAsDouble(r, j);
+        }
+    }
+
+    /**
+     * dst[i] = (i,c) for i in [from, to)
+     */
+    default void copyColumn(int c, double[] dst, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dst[i] = getAsDouble(i, c);
+        }
+    }
+
+    /**
+     * dst = y<sup>T</sup>M restricted to the columns [0, endIndex), y is indexed by row
+     */
+    default void multiplyLeft(double[] y, int endIndex, double[] dst) {
+        Arrays.fill(dst, 0, endIndex, 0d);
+        for (int i = 0; i < getRows(); i++) {
+            if (0d == y[i]) {
+                continue;
+            }
+            for (int j = 0; j < endIndex; j++) {
+                dst[j] += y[i] * getAsDouble(i, j);
+            }
+        }
+    }
+
+    /**
+     * Return y<sup>T</sup>M restricted to the columns [0, endIndex), y is indexed by row
+     */
+    default double[] multiplyLeft(double[] y, int endIndex) {
+        final double[] v = new double[endIndex];
+        multiplyLeft(y, endIndex, v);
+        return v;
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.cloudecho.bnb.math;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * An exact rational number num/den, in lowest terms with den &gt; 0.
+ */
+public final class Rational extends Number implements Comparable<Rational> {
+    private static final long serialVersionUID = 1L;
+
+    public static final Rational ZERO = new Rational(BigInteger.ZERO, BigInteger.ONE);
+    public static final Rational ONE = new Rational(BigInteger.ONE, BigInteger.ONE);
+
+    private final BigInteger num;
+    private final BigInteger den;
+
+    private Rational(BigInteger num, BigInteger den) {
+        this.num = num;
+        this.den = den;
+    }
+
+    /**
+     * Return num/den in lowest terms
+     */
+    public static Rational of(BigInteger num, BigInteger den) {
+        if (den.signum() == 0) {
+            throw new ArithmeticException("zero denominator");
+        }
+        if (num.signum() == 0) {
+            return ZERO;
+        }
+        if (den.signum() < 0) {
+            num = num.negate();
+            den = den.negate();
+        }
+        final BigInteger g = num.gcd(den);
+        if (!BigInteger.ONE.equals(g)) {
+            num = num.divide(g);
+            den = den.divide(g);
+        }
+        return new Rational(num, den);
+    }
+
+    public static Rational of(long num, long den) {
+        return of(BigInteger.valueOf(num), BigInteger.valueOf(den));
+    }
+
+    /**
+     * The decimal value of a double as written, e.g. 0.1 is 1/10, see {@link BigDecimal#valueOf(double)}
+     */
+    public static Rational valueOf(double v) {
+        return valueOf(BigDecimal.valueOf(v));
+    }
+
+    public static Rational valueOf(BigDecimal v) {
+        final int scale = v.scale();
+        if (scale > 0) {
+            return of(v.unscaledValue(), BigInteger.TEN.pow(scale));
+        }
+        return of(v.unscaledValue().multiply(BigInteger.TEN.pow(-scale)), BigInteger.ONE);
+    }
+
+    public BigInteger numerator() {
+        return num;
+    }
+
+    public BigInteger denominator() {
+        return den;
+    }
+
+    public Rational add(Rational that) {
+        return of(num.multiply(that.den).add(that.num.multiply(den)), den.multiply(that.den));
+    }
+
+    public Rational subtract(Rational that) {
+        return of(num.multiply(that.den).subtract(that.num.multiply(den)), den.multiply(that.den));
+    }
+
+    public Rational multiply(Rational that) {
+        return of(num.multiply(that.num), den.multiply(that.den));
+    }
+
+    public Rational divide(Rational that) {
+        return of(num.multiply(that.den), den.multiply(that.num));
+    }
+
+    public Rational negate() {
+        return new Rational(num.negate(), den);
+    }
+
+    public int signum() {
+        return num.signum();
+    }
+
+    /**
+     * Return {@code true} if both num and den fit in a long
+     */
+    public boolean fitsLong() {
+        return num.bitLength() < Long.SIZE && den.bitLength() < Long.SIZE;
+    }
+
+    @Override
+    public int compareTo(Rational that) {
+        return num.multiply(that.den).compareTo(that.num.multiply(den));
+    }
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public long longValue() {
+        return num.divide(den).longValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        if (num.bitLength() < 53 && den.bitLength() < 53) {
+            return num.doubleValue() / den.doubleValue(); // correctly rounded
+        }
+        return new BigDecimal(num).divide(new BigDecimal(den), MathContext.DECIMAL64).doubleValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Rational)) {
+            return false;
+        }
+        final Rational that = (Rational) o;
+        return num.equals(that.num) && den.equals(that.den);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * num.hashCode() + den.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return BigInteger.ONE.equals(den) ? num.toString() : num + "/" + den;
+    }
+}
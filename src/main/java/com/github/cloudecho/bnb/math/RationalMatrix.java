@@ -0,0 +1,433 @@
+package com.github.cloudecho.bnb.math;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * An exact tableau of rational numbers t<sub>ij</sub>/d, integers over one common denominator d &gt; 0.
+ * <p>
+ * A pivot is the integer-preserving step of J. Edmonds (1967, a.k.a. Bareiss):
+ * <pre>
+ *  t'<sub>ij</sub> = (t<sub>ij</sub>t<sub>rc</sub> - t<sub>ic</sub>t<sub>rj</sub>) / d,  d' = t<sub>rc</sub>
+ * </pre>
+ * where the division is exact, so no gcd is ever computed and the integers stay as small as the subdeterminants
+ * of the input. A cell is a primitive long while it fits, the arithmetic on it checks for overflow; a cell which
+ * overflows is kept as a BigInteger instead, and goes back to a long as soon as it fits again.
+ * The long of such a cell holds its sign, so the sign tests never look at the BigIntegers.
+ * <p>
+ * The input doubles are read as the decimals they print as (see {@link BigDecimal#valueOf(double)}),
+ * e.g. 0.1 is 1/10. A row with k fractional digits is multiplied by s = 10<sup>k</sup> into integers and
+ * read as t/(d*s) until it is pivoted on, the pivots keep the other rows scaled.
+ */
+public class RationalMatrix extends AbstractMatrix<Rational> {
+    protected long[][] t;
+    protected BigInteger[][] big; // null rows and cells for the longs
+    protected long d;
+    protected BigInteger bigD; // null if d fits
+    private int width; // the columns kept over d
+    protected BigInteger[] scale; // the scale of the rows, null for 1
+
+    public RationalMatrix(double[][] table, int max_n) {
+        super(table, max_n);
+        this.tolerance = Tolerance.EXACT;
+        this.t = new long[m][n];
+        this.big = new BigInteger[m][];
+        this.width = n;
+        this.scale = new BigInteger[m];
+        this.d = 1;
+
+        final BigDecimal[] decimals = new BigDecimal[n];
+        for (int i = 0; i < m; i++) {
+            int k = 0;
+            for (int j = 0; j < n; j++) {
+                decimals[j] = BigDecimal.valueOf(table[i][j]).stripTrailingZeros();
+                k = Math.max(k, decimals[j].scale());
+            }
+            if (k > 0) {
+                scale[i] = BigInteger.TEN.pow(k);
+            }
+            for (int j = 0; j < n; j++) {
+                put(i, j, decimals[j].movePointRight(k).toBigIntegerExact());
+            }
+        }
+    }
+
+    private boolean isBig(int r, int c) {
+        final BigInteger[] row = big[r];
+        return row != null && row[c] != null;
+    }
+
+    private BigInteger bigValue(int r, int c) {
+        return isBig(r, c) ? big[r][c] : BigInteger.valueOf(t[r][c]);
+    }
+
+    private BigInteger bigD() {
+        return null == bigD ? BigInteger.valueOf(d) : bigD;
+    }
+
+    /**
+     * d * s<sub>r</sub>, the denominator of the row r
+     */
+    private BigInteger denominator(int r) {
+        return null == scale[r] ? bigD() : bigD().multiply(scale[r]);
+    }
+
+    private void putLong(int r, int c, long v) {
+        t[r][c] = v;
+        if (big[r] != null) {
+            big[r][c] = null;
+        }
+    }
+
+    private void put(int r, int c, BigInteger v) {
+        if (v.bitLength() < Long.SIZE) {
+            putLong(r, c, v.longValue());
+            return;
+        }
+        if (null == big[r]) {
+            big[r] = new BigInteger[t[r].length];
+        }
+        big[r][c] = v;
+        t[r][c] = v.signum();
+    }
+
+    private void putD(BigInteger v) {
+        if (v.bitLength() < Long.SIZE) {
+            this.d = v.longValue();
+            this.bigD = null;
+        } else {
+            this.d = 1;
+            this.bigD = v;
+        }
+    }
+
+    @Override
+    public Rational get(int r, int c) {
+        return Rational.of(bigValue(r, c), denominator(r));
+    }
+
+    @Override
+    public double getAsDouble(int r, int c) {
+        if (!isBig(r, c) && null == bigD && null == scale[r]) {
+            return (double) t[r][c] / d;
+        }
+        return quotient(bigValue(r, c), denominator(r));
+    }
+
+    private static double quotient(BigInteger a, BigInteger b) {
+        if (a.bitLength() < 53 && b.bitLength() < 53) {
+            return a.doubleValue() / b.doubleValue(); // correctly rounded
+        }
+        return new BigDecimal(a).divide(new BigDecimal(b), MathContext.DECIMAL64).doubleValue();
+    }
+
+    @Override
+    public void set(int r, int c, Number num) {
+        set(r, c, num instanceof Rational ? (Rational) num : Rational.valueOf(num.doubleValue()));
+    }
+
+    @Override
+    public void set(int r, int c, double num) {
+        set(r, c, Rational.valueOf(num));
+    }
+
+    /**
+     * t = v * d * s<sub>r</sub>, multiplying the whole tableau and d first if it is not an integer.
+     * Such a common factor carries over the pivots, which stay exact.
+     */
+    private void set(int r, int c, Rational v) {
+        final BigInteger q = v.denominator();
+        final BigInteger k = q.divide(q.gcd(denominator(r)));
+        if (!BigInteger.ONE.equals(k)) {
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (t[i][j] != 0) {
+                        put(i, j, bigValue(i, j).multiply(k));
+                    }
+                }
+            }
+            putD(bigD().multiply(k));
+        }
+        put(r, c, v.numerator().multiply(denominator(r)).divide(q));
+    }
+
+    @Override
+    public void gaussian(int r, int c) {
+        final long trc = t[r][c];
+        if (0 == trc) {
+            return;
+        }
+
+        final int s = trc > 0 ? 1 : -1;
+        final boolean bigPivot = isBig(r, c) || bigD != null;
+        final BigInteger bigTrc = bigValue(r, c);
+        final BigInteger bigDOld = bigD();
+        final long[] tr = t[r];
+        BigInteger[] bigRow = null; // the row r in BigIntegers, on demand
+
+        // for each row except r-th
+        for (int i = 0; i < m; i++) {
+            if (r == i) {
+                continue;
+            }
+            final long[] ti = t[i];
+            final long tic = ti[c];
+            if (0 == tic && !bigPivot && s * trc == d) {
+                continue; // t'(i,j) = t(i,j)
+            }
+            final boolean bigCells = bigPivot || isBig(i, c);
+            BigInteger bigTic = null;
+            for (int j = 0; j < n; j++) {
+                if (j == c || 0 == ti[j] && (0 == tic || 0 == tr[j])) {
+                    continue;
+                }
+                if (!bigCells && !isBig(i, j) && !isBig(r, j) && update(i, j, ti[j], tic, tr[j], trc, s)) {
+                    continue;
+                }
+                BigInteger v = bigValue(i, j).multiply(bigTrc);
+                if (tic != 0 && tr[j] != 0) {
+                    if (null == bigRow) {
+                        bigRow = new BigInteger[n];
+                    }
+                    if (null == bigRow[j]) {
+                        bigRow[j] = bigValue(r, j);
+                    }
+                    if (null == bigTic) {
+                        bigTic = bigValue(i, c);
+                    }
+                    v = v.subtract(bigTic.multiply(bigRow[j]));
+                }
+                final BigInteger[] qr = v.divideAndRemainder(bigDOld);
+                if (qr[1].signum() != 0) {
+                    throw new IllegalStateException("inexact division at (" + i + ',' + j + ')');
+                }
+                put(i, j, s > 0 ? qr[0] : qr[0].negate());
+            }
+            putLong(i, c, 0);
+        }
+
+        // the pivot row over d' = |t(r,c)|, unscaled
+        scale[r] = null;
+        if (s < 0) {
+            for (int j = 0; j < n; j++) {
+                if (isBig(r, j)) {
+                    put(r, j, big[r][j].negate());
+                } else {
+                    tr[j] = -tr[j];
+                }
+            }
+        }
+        putD(s > 0 ? bigTrc : bigTrc.negate());
+    }
+
+    /**
+     * t(i,j) = s * (tij * trc - tic * trj) / d in longs, return {@code false} on overflow
+     */
+    private boolean update(int i, int j, long tij, long tic, long trj, long trc, int s) {
+        try {
+            long v = Math.subtractExact(Math.multiplyExact(tij, trc), Math.multiplyExact(tic, trj));
+            if (v % d != 0) {
+                throw new IllegalStateException("inexact division at (" + i + ',' + j + ')');
+            }
+            v /= d;
+            t[i][j] = s > 0 ? v : Math.negateExact(v);
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    /**
+     * t(r,j) / t(r,c) is t(r,j) * k over d * s<sub>r</sub>' where g = gcd(d, t(r,c)), k = &plusmn;d/g and
+     * s<sub>r</sub>' = |t(r,c)|/g. The row is only multiplied by the integer k and rescaled, so that the
+     * divisions of the next pivots stay exact.
+     */
+    @Override
+    public void normalize(int r, int c) {
+        if (0 == t[r][c]) {
+            return;
+        }
+        final BigInteger trc = bigValue(r, c);
+        if (trc.equals(denominator(r))) {
+            return;
+        }
+
+        final BigInteger g = bigD().gcd(trc);
+        final BigInteger k = trc.signum() > 0 ? bigD().divide(g) : bigD().divide(g).negate();
+        final BigInteger s = trc.abs().divide(g);
+        final boolean longK = k.bitLength() < Long.SIZE;
+        final long[] tr = t[r];
+        for (int j = 0; j < n; j++) {
+            if (0 == tr[j]) {
+                continue;
+            }
+            if (longK && !isBig(r, j)) {
+                try {
+                    tr[j] = Math.multiplyExact(tr[j], k.longValue());
+                    continue;
+                } catch (ArithmeticException e) {
+                    // kept as a BigInteger below
+                }
+            }
+            put(r, j, bigValue(r, j).multiply(k));
+        }
+        scale[r] = BigInteger.ONE.equals(s) ? null : s;
+    }
+
+    @Override
+    public Rational[] getRow(int r) {
+        final Rational[] row = new Rational[n];
+        for (int j = 0; j < n; j++) {
+            row[j] = get(r, j);
+        }
+        return row;
+    }
+
+    @Override
+    public void setRow(int r, Object rowData) {
+        final Number[] row = (Number[]) rowData;
+        for (int j = 0; j < Math.min(row.length, n); j++) {
+            set(r, j, row[j]);
+        }
+    }
+
+    @Override
+    public void removeRow(int r) {
+        if (r < 0 || m - 1 - r < 0) {
+            return;
+        }
+        System.arraycopy(t, r + 1, t, r, m - 1 - r);
+        System.arraycopy(big, r + 1, big, r, m - 1 - r);
+        System.arraycopy(scale, r + 1, scale, r, m - 1 - r);
+        t[m - 1] = null;
+        big[m - 1] = null;
+        scale[m - 1] = null;
+        decreaseRows();
+    }
+
+    @Override
+    public void negate(int r, int c) {
+        if (isBig(r, c)) {
+            put(r, c, big[r][c].negate());
+        } else {
+            t[r][c] = -t[r][c];
+        }
+    }
+
+    /**
+     * The common denominator cancels
+     */
+    @Override
+    public Rational divide(int r1, int c1, int r2, int c2) {
+        return Rational.of(scaled(r1, c1, r2), scaled(r2, c2, r1));
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        if (!isBig(r1, c1) && !isBig(r2, c2) && scale[r1] == scale[r2]) {
+            return (double) t[r1][c1] / t[r2][c2];
+        }
+        return quotient(scaled(r1, c1, r2), scaled(r2, c2, r1));
+    }
+
+    /**
+     * t(r,c) * s<sub>other</sub> / s<sub>r</sub> with the common factor of the scales cancelled,
+     * i.e. over the same denominator as the cell of the other row
+     */
+    private BigInteger scaled(int r, int c, int other) {
+        final BigInteger v = bigValue(r, c);
+        final BigInteger s1 = scale[r];
+        final BigInteger s2 = scale[other];
+        if (s1 == s2 || null == s2) {
+            return v;
+        }
+        return null == s1 ? v.multiply(s2) : v.multiply(s2.divide(s1.gcd(s2)));
+    }
+
+    @Override
+    public boolean existsPositiveInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            if (t[r][j] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsNonZeroInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            if (t[r][j] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isPositive(int r, int c) {
+        return t[r][c] > 0;
+    }
+
+    @Override
+    public boolean isNegative(int r, int c) {
+        return t[r][c] < 0;
+    }
+
+    @Override
+    public boolean isZero(int r, int c) {
+        return t[r][c] == 0;
+    }
+
+    /**
+     * The common denominator cancels
+     */
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        if (!isBig(r1, c1) && !isBig(r2, c2) && scale[r1] == scale[r2]) {
+            return Long.compare(t[r1][c1], t[r2][c2]);
+        }
+        return scaled(r1, c1, r2).compareTo(scaled(r2, c2, r1));
+    }
+
+    /**
+     * Return the number of cells kept as BigIntegers
+     */
+    public int bigCells() {
+        int count = 0;
+        for (int i = 0; i < m; i++) {
+            if (null == big[i]) {
+                continue;
+            }
+            for (BigInteger v : big[i]) {
+                if (v != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The hidden columns are not kept over d, they are cleared when shown again
+     */
+    @Override
+    protected void extendColumn() {
+        if (growColumn(n - t[0].length) > 0) {
+            for (int i = 0; i < m; i++) {
+                t[i] = Arrays.copyOf(t[i], n2);
+                if (big[i] != null) {
+                    big[i] = Arrays.copyOf(big[i], n2);
+                }
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            for (int j = width; j < n; j++) {
+                putLong(i, j, 0);
+            }
+        }
+        this.width = n;
+    }
+}
@@ -22,7 +22,7 @@ public class RevisedDoubleMatrix extends AbstractMatrix<Double> {
     }
 
     double[][] transpose(double[][] table) {
-        double[][] t = new double[n][m];
+        double[][] t = Buffers.take(n, m);
         for (int i = 0; i < m; i++) {
             for (int j = 0; j < n; j++) {
                 t[j][i] = table[i][j];
@@ -108,28 +108,78 @@ public class RevisedDoubleMatrix extends AbstractMatrix<Double> {
 
         normalize(r, c);
 
-        // for each row except r-th
-        for (int i = 0; i < m; i++) {
-            if (r == i) {
-                continue;
+        if (null == pivotColumn || pivotColumn.length < m) {
+            pivotColumn = Buffers.take(m);
+        }
+        copyColumn(c, pivotColumn, 0, m);
+        pivotColumn[r] = 0d;
+
+        if (Parallel.isParallel(m, n)) {
+            Parallel.forEach(0, n, Parallel.grain(m), (from, to) -> eliminate(r, c, from, to));
+        } else {
+            eliminate(r, c, 0, n);
+        }
+
+        identifyColumn(r, c);
+        pivoted(nonZeros(r));
+    }
+
+    private int nonZeros(int r) {
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            if (0d != getAsDouble(r, j)) {
+                k++;
             }
-            v = getAsDouble(i, c);
-            if (0d == v) {
+        }
+        return k;
+    }
+
+    @Override
+    protected int sparsify() {
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            if (identifyColumn[j] >= 0) {
+                k++;
                 continue;
             }
+            final double[] column = table[j];
+            for (int i = 0; i < m; i++) {
+                if (tolerance.isZero(column[i])) {
+                    column[i] = 0d;
+                } else {
+                    k++;
+                }
+            }
+        }
+        return k;
+    }
 
-            // for each element in this row
-            for (int j = 0; j < n; j++) {
-                // skip while j==c as matrix(i,c) will be 0
-                if (isZero(r, j) || j == c) {
+    // the pivot column, zero at the pivot row
+    private double[] pivotColumn;
+
+    /**
+     * Eliminate the column c from the columns in [from, to), the pivot row r is the only non-zero of the
+     * identify columns after {@link #normalize(int, int)}
+     */
+    private void eliminate(int r, int c, int from, int to) {
+        final double[] pivotColumn = this.pivotColumn;
+        // for each column with a non-zero in the pivot row
+        for (int j = from; j < to; j++) {
+            // skip while j==c as matrix(i,c) will be 0
+            if (isZero(r, j) || j == c) {
+                continue;
+            }
+            final double a = getAsDouble(r, j);
+            final double[] column = table[j];
+            for (int i = 0; i < m; i++) {
+                final double v = pivotColumn[i];
+                if (0d == v) {
                     continue;
                 }
-                double v2 = -v * getAsDouble(r, j) + getAsDouble(i, j);
-                set(i, j, Double.isNaN(v2) ? 0 : v2);
+                final double v2 = -v * a + column[i];
+                column[i] = tolerance.drop(v2, column[i]);
             }
         }
-
-        identifyColumn(r, c);
     }
 
     @Override
@@ -205,7 +255,7 @@ public class RevisedDoubleMatrix extends AbstractMatrix<Double> {
         if (i >= 0) {
             return i == r;
         }
-        return table[c][r] > 0d;
+        return table[c][r] > tolerance.zero;
     }
 
     @Override
@@ -214,7 +264,7 @@ public class RevisedDoubleMatrix extends AbstractMatrix<Double> {
         if (i >= 0) {
             return false;
         }
-        return table[c][r] < 0d;
+        return table[c][r] < -tolerance.zero;
     }
 
     @Override
@@ -223,12 +273,12 @@ public class RevisedDoubleMatrix extends AbstractMatrix<Double> {
         if (i >= 0) {
             return i != r;
         }
-        return table[c][r] == 0d;
+        return tolerance.isZero(table[c][r]);
     }
 
     public boolean existsPositiveInRow(int r, int endIndex) {
         for (int j = 0; j < endIndex; j++) {
-            if (getAsDouble(r, j) > 0d) {
+            if (getAsDouble(r, j) > tolerance.zero) {
                 return true;
             }
         }
@@ -244,11 +294,32 @@ public class RevisedDoubleMatrix extends AbstractMatrix<Double> {
         return false;
     }
 
+    @Override
+    public void copyColumn(int c, double[] dst, int from, int to) {
+        final int k = identifyColumn[c];
+        if (k < 0) {
+            System.arraycopy(table[c], from, dst, from, to - from);
+            return;
+        }
+        Arrays.fill(dst, from, to, 0d);
+        if (k >= from && k < to) {
+            dst[k] = 1d;
+        }
+    }
+
     @Override
     public int compare(int r1, int c1, int r2, int c2) {
         return Double.compare(getAsDouble(r1, c1), getAsDouble(r2, c2));
     }
 
+    @Override
+    public void recycle() {
+        Buffers.give(table);
+        Buffers.give(pivotColumn);
+        this.table = null;
+        this.pivotColumn = null;
+    }
+
     @Override
     protected void extendColumn() {
         int nGrow = growColumn(n - table.length);
@@ -256,7 +327,7 @@ public class RevisedDoubleMatrix extends AbstractMatrix<Double> {
             table = Arrays.copyOf(table, n2);
             // init table[j]
             for (int j = n2 - nGrow; j < n2; j++) {
-                table[j] = new double[m];
+                table[j] = Buffers.take(m);
             }
         }
     }
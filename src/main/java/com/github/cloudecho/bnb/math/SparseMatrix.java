@@ -0,0 +1,500 @@
+package com.github.cloudecho.bnb.math;
+
+import java.util.Arrays;
+
+/**
+ * A tableau in compressed columns, each column keeps its non-zeros sorted by row index.
+ * <p>
+ * An element is found by a binary search in its column. A pivot only touches the columns with a non-zero in the
+ * pivot row: the pivot column is gathered once into a sparse accumulator, and merged into each of these columns.
+ * So the memory and the time per pivot scale with the non-zeros of the tableau instead of m*n.
+ */
+public class SparseMatrix extends AbstractMatrix<Double> {
+    /**
+     * Columns [0, max_n), row indexes start from 0 (the objective)
+     */
+    protected final int[][] colIndex;
+    protected final double[][] colValue;
+    protected final int[] colSize;
+
+    // the pivot column without the pivot row, gathered by gaussian()
+    private final int[] pivotIndex;
+    private final double[] pivotValue;
+    private int pivotSize = 0;
+    // the sparse accumulator: the pivot column scattered by row, valid where mark[i] == pivots
+    private final double[] scattered;
+    private final int[] mark;
+    private int pivots = 0;
+
+    // the column merged by gaussian()
+    private final int[] mergeIndex;
+    private final double[] mergeValue;
+
+    /**
+     * A column read again within the last {@value} column reads is scattered by row, e.g. the entering column and
+     * the b column of a ratio test
+     */
+    static final int CACHED_COLUMNS = 2;
+    private final double[][] cached;
+    private final int[] cachedColumns = new int[CACHED_COLUMNS];
+    private final int[] lastColumns = new int[CACHED_COLUMNS];
+    private int cacheCount = 0;
+    private int lastCount = 0;
+    private int lastNext = 0;
+
+    private static final int[] NO_INDEX = new int[0];
+    private static final double[] NO_VALUE = new double[0];
+
+    public SparseMatrix(double[][] table, int max_n) {
+        this(CsrMatrix.of(table), max_n);
+    }
+
+    /**
+     * A tableau of the non-zeros of the table in compressed rows, never dense
+     */
+    public SparseMatrix(CsrMatrix table, int max_n) {
+        super(table.getRows(), table.getColumns(), max_n);
+        this.colIndex = new int[max_n][];
+        this.colValue = new double[max_n][];
+        this.colSize = new int[max_n];
+        Arrays.fill(colIndex, NO_INDEX);
+        Arrays.fill(colValue, NO_VALUE);
+        for (int k = 0; k < table.nonZeros(); k++) {
+            colSize[table.columnAt(k)]++;
+        }
+        for (int j = 0; j < n; j++) {
+            colIndex[j] = new int[colSize[j]];
+            colValue[j] = new double[colSize[j]];
+            colSize[j] = 0;
+        }
+        // row by row, so that each column is sorted
+        for (int i = 0; i < m; i++) {
+            for (int k = table.rowStart(i); k < table.rowEnd(i); k++) {
+                final int j = table.columnAt(k);
+                colIndex[j][colSize[j]] = i;
+                colValue[j][colSize[j]++] = table.valueAt(k);
+            }
+        }
+        this.pivotIndex = new int[max_m];
+        this.pivotValue = new double[max_m];
+        this.scattered = new double[max_m];
+        this.mark = new int[max_m];
+        this.mergeIndex = new int[max_m];
+        this.mergeValue = new double[max_m];
+        this.cached = new double[CACHED_COLUMNS][max_m];
+    }
+
+    /**
+     * Return the position of the row r in the column c, or {@code -(insertion point) - 1} if zero
+     */
+    private int find(int r, int c) {
+        return Arrays.binarySearch(colIndex[c], 0, colSize[c], r);
+    }
+
+    private double valueAt(int r, int c) {
+        final int k = find(r, c);
+        return k >= 0 ? colValue[c][k] : 0d;
+    }
+
+    /**
+     * The number of non-zeros in the visible columns
+     */
+    public long nonZeros() {
+        long count = 0;
+        for (int j = 0; j < n; j++) {
+            count += colSize[j];
+        }
+        return count;
+    }
+
+    @Override
+    public Double get(int r, int c) {
+        return getAsDouble(r, c);
+    }
+
+    /**
+     * A column scan reads the scattered column, a row scan searches each column
+     */
+    @Override
+    public double getAsDouble(int r, int c) {
+        for (int t = 0; t < cacheCount; t++) {
+            if (c == cachedColumns[t]) {
+                return cached[t][r];
+            }
+        }
+        if (0 == r) { // the objective is the first row
+            return colSize[c] > 0 && 0 == colIndex[c][0] ? colValue[c][0] : 0d;
+        }
+        for (int t = 0; t < lastCount; t++) {
+            if (c == lastColumns[t]) {
+                return scatter(c)[r];
+            }
+        }
+        lastColumns[lastNext] = c;
+        this.lastNext = (lastNext + 1) % CACHED_COLUMNS;
+        this.lastCount = Math.min(lastCount + 1, CACHED_COLUMNS);
+        return valueAt(r, c);
+    }
+
+    private double[] scatter(int c) {
+        final int t = cacheCount < CACHED_COLUMNS ? cacheCount++ : evict();
+        final double[] column = cached[t];
+        for (int k = 0; k < colSize[c]; k++) {
+            column[colIndex[c][k]] = colValue[c][k];
+        }
+        cachedColumns[t] = c;
+        return column;
+    }
+
+    /**
+     * Clear the oldest scattered column, and move the others forward
+     */
+    private int evict() {
+        final double[] column = cached[0];
+        clear(column, cachedColumns[0]);
+        System.arraycopy(cached, 1, cached, 0, CACHED_COLUMNS - 1);
+        System.arraycopy(cachedColumns, 1, cachedColumns, 0, CACHED_COLUMNS - 1);
+        cached[CACHED_COLUMNS - 1] = column;
+        return CACHED_COLUMNS - 1;
+    }
+
+    private void clear(double[] column, int c) {
+        for (int k = 0; k < colSize[c]; k++) {
+            column[colIndex[c][k]] = 0d;
+        }
+    }
+
+    /**
+     * Called before any change
+     */
+    private void uncache() {
+        for (int t = 0; t < cacheCount; t++) {
+            clear(cached[t], cachedColumns[t]);
+        }
+        this.cacheCount = 0;
+        this.lastCount = 0;
+    }
+
+    @Override
+    public void set(int r, int c, Number num) {
+        set(r, c, num.doubleValue());
+    }
+
+    @Override
+    public void set(int r, int c, double num) {
+        uncache();
+        final int k = find(r, c);
+        if (k >= 0) {
+            if (0d == num) {
+                // remove
+                System.arraycopy(colIndex[c], k + 1, colIndex[c], k, colSize[c] - k - 1);
+                System.arraycopy(colValue[c], k + 1, colValue[c], k, colSize[c] - k - 1);
+                colSize[c]--;
+            } else {
+                colValue[c][k] = num;
+            }
+            return;
+        }
+        if (0d == num) {
+            return;
+        }
+        // insert
+        final int p = -k - 1;
+        final int size = colSize[c];
+        if (size == colIndex[c].length) {
+            final int capacity = Math.min(max_m, size + (size >> 1) + 1);
+            colIndex[c] = Arrays.copyOf(colIndex[c], capacity);
+            colValue[c] = Arrays.copyOf(colValue[c], capacity);
+        }
+        System.arraycopy(colIndex[c], p, colIndex[c], p + 1, size - p);
+        System.arraycopy(colValue[c], p, colValue[c], p + 1, size - p);
+        colIndex[c][p] = r;
+        colValue[c][p] = num;
+        colSize[c]++;
+    }
+
+    @Override
+    public void gaussian(int r, int c) {
+        uncache();
+        final double v = valueAt(r, c);
+        if (0d == v) {
+            return;
+        }
+
+        // gather and scatter the pivot column, except the pivot row
+        this.pivotSize = 0;
+        this.pivots++;
+        for (int k = 0; k < colSize[c]; k++) {
+            final int i = colIndex[c][k];
+            if (i != r) {
+                pivotIndex[pivotSize] = i;
+                pivotValue[pivotSize++] = colValue[c][k];
+                scattered[i] = colValue[c][k];
+                mark[i] = pivots;
+            }
+        }
+
+        // for each column with a non-zero in the pivot row
+        int nonZeros = 1;
+        for (int j = 0; j < n; j++) {
+            final int size = colSize[j];
+            if (j == c || 0 == size || colIndex[j][0] > r || colIndex[j][size - 1] < r) {
+                continue;
+            }
+            final int k = find(r, j);
+            if (k < 0) {
+                continue;
+            }
+            merge(j, r, colValue[j][k] / v);
+            nonZeros++;
+        }
+
+        // the pivot column is the unit vector e(r)
+        colSize[c] = 0;
+        set(r, c, 1d);
+        pivoted(nonZeros);
+    }
+
+    /**
+     * a(i,j) -= a(i,c) * t for each row i &ne; r, and a(r,j) = t
+     */
+    private void merge(int j, int r, double t) {
+        final int[] index = colIndex[j];
+        final double[] value = colValue[j];
+        final int size = colSize[j];
+
+        // update the non-zeros of the column in place
+        int matched = 0;
+        boolean cancelled = false;
+        for (int p = 0; p < size; p++) {
+            final int i = index[p];
+            if (i == r) {
+                value[p] = t;
+            } else if (mark[i] == pivots) {
+                value[p] = tolerance.drop(value[p] - t * scattered[i], value[p]);
+                cancelled |= 0d == value[p];
+                matched++;
+            }
+        }
+        if (matched == pivotSize) { // no fill-in
+            if (cancelled) {
+                compact(j);
+            }
+            return;
+        }
+
+        // merge the fill-in
+        int p = 0;
+        int q = 0;
+        int k = 0;
+        while (p < size || q < pivotSize) {
+            final int i1 = p < size ? index[p] : Integer.MAX_VALUE;
+            final int i2 = q < pivotSize ? pivotIndex[q] : Integer.MAX_VALUE;
+            final int i;
+            final double x;
+            if (i1 <= i2) {
+                i = i1;
+                x = value[p++]; // updated
+                if (i1 == i2) {
+                    q++;
+                }
+            } else {
+                i = i2;
+                x = -t * pivotValue[q++];
+            }
+            if (0d != x && !Double.isNaN(x)) {
+                mergeIndex[k] = i;
+                mergeValue[k++] = x;
+            }
+        }
+
+        if (k > index.length) {
+            final int capacity = Math.min(max_m, k + (k >> 1));
+            colIndex[j] = new int[capacity];
+            colValue[j] = new double[capacity];
+        }
+        System.arraycopy(mergeIndex, 0, colIndex[j], 0, k);
+        System.arraycopy(mergeValue, 0, colValue[j], 0, k);
+        colSize[j] = k;
+    }
+
+    @Override
+    protected int sparsify() {
+        uncache();
+        int k = 0;
+        for (int j = 0; j < n; j++) {
+            for (int p = 0; p < colSize[j]; p++) {
+                if (tolerance.isZero(colValue[j][p])) {
+                    colValue[j][p] = 0d;
+                }
+            }
+            compact(j);
+            k += colSize[j];
+        }
+        return k;
+    }
+
+    /**
+     * Remove the zeros of the column j
+     */
+    private void compact(int j) {
+        int k = 0;
+        for (int p = 0; p < colSize[j]; p++) {
+            if (0d != colValue[j][p]) {
+                colIndex[j][k] = colIndex[j][p];
+                colValue[j][k++] = colValue[j][p];
+            }
+        }
+        colSize[j] = k;
+    }
+
+    @Override
+    public void normalize(int r, int c) {
+        uncache();
+        final double v = valueAt(r, c);
+        if (1d == v || 0d == v) {
+            return;
+        }
+
+        for (int j = 0; j < n; j++) {
+            final int k = find(r, j);
+            if (k < 0) {
+                continue;
+            }
+            colValue[j][k] = (j == c) ? 1d : colValue[j][k] / v;
+        }
+    }
+
+    @Override
+    public double[] getRow(int r) {
+        final double[] row = new double[n];
+        for (int j = 0; j < n; j++) {
+            row[j] = getAsDouble(r, j);
+        }
+        return row;
+    }
+
+    @Override
+    public void setRow(int r, Object rowData) {
+        final double[] row = (double[]) rowData;
+        for (int j = 0; j < n; j++) {
+            set(r, j, j < row.length ? row[j] : 0d);
+        }
+    }
+
+    @Override
+    public void removeRow(int r) {
+        uncache();
+        if (r < 0 || m - 1 - r < 0) {
+            return;
+        }
+        for (int j = 0; j < n; j++) {
+            final int[] index = colIndex[j];
+            int k = 0;
+            for (int p = 0; p < colSize[j]; p++) {
+                if (index[p] == r) {
+                    continue;
+                }
+                index[k] = index[p] > r ? index[p] - 1 : index[p];
+                colValue[j][k++] = colValue[j][p];
+            }
+            colSize[j] = k;
+        }
+        decreaseRows();
+    }
+
+    @Override
+    public void negate(int r, int c) {
+        uncache();
+        final int k = find(r, c);
+        if (k >= 0) {
+            colValue[c][k] *= -1;
+        }
+    }
+
+    @Override
+    public Double divide(int r1, int c1, int r2, int c2) {
+        return divideAsDouble(r1, c1, r2, c2);
+    }
+
+    @Override
+    public double divideAsDouble(int r1, int c1, int r2, int c2) {
+        return getAsDouble(r1, c1) / getAsDouble(r2, c2);
+    }
+
+    @Override
+    public boolean isPositive(int r, int c) {
+        return getAsDouble(r, c) > tolerance.zero;
+    }
+
+    @Override
+    public boolean isNegative(int r, int c) {
+        return getAsDouble(r, c) < -tolerance.zero;
+    }
+
+    @Override
+    public boolean isZero(int r, int c) {
+        return tolerance.isZero(getAsDouble(r, c));
+    }
+
+    @Override
+    public boolean existsPositiveInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            final int k = find(r, j);
+            if (k >= 0 && colValue[j][k] > tolerance.zero) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsNonZeroInRow(int r, int endIndex) {
+        for (int j = 0; j < endIndex; j++) {
+            final int k = find(r, j);
+            if (k >= 0 && !tolerance.isZero(colValue[j][k])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int compare(int r1, int c1, int r2, int c2) {
+        return Double.compare(getAsDouble(r1, c1), getAsDouble(r2, c2));
+    }
+
+    /**
+     * One sparse dot product per column
+     */
+    @Override
+    public void multiplyLeft(double[] y, int endIndex, double[] dst) {
+        for (int j = 0; j < endIndex; j++) {
+            double s = 0d;
+            for (int k = 0; k < colSize[j] && colIndex[j][k] < m; k++) {
+                s += y[colIndex[j][k]] * colValue[j][k];
+            }
+            dst[j] = s;
+        }
+    }
+
+    /**
+     * The hidden columns [n, n2) are cleared, so they are zero if visible again
+     */
+    /**
+     * The reads scatter columns into a cache
+     */
+    @Override
+    public boolean isConcurrentReadable() {
+        return false;
+    }
+
+    @Override
+    protected void extendColumn() {
+        uncache();
+        for (int j = n; j < n2; j++) {
+            colSize[j] = 0;
+        }
+        this.n2 = n;
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.cloudecho.bnb.math;
+
+/**
+ * Numerical tolerances of a matrix and of the simplex working on it.
+ * <ul>
+ * <li>{@link #zero}: elements with |v| &le; zero are treated as 0 by the sign tests of a matrix</li>
+ * <li>{@link #primal}: b<sub>i</sub> &ge; -primal is feasible</li>
+ * <li>{@link #dual}: a reduced cost d<sub>j</sub> &gt; dual is attractive</li>
+ * <li>{@link #pivot}: elements with |v| &le; pivot are never pivoted on</li>
+ * <li>{@link #drop}: an element updated by a pivot from v to |v'| &le; drop * |v| is cancellation round-off,
+ * and stored as 0</li>
+ * </ul>
+ * The double matrices use {@link #DEFAULT}, which could be set by system properties.
+ * {@link BigDecimalMatrix}, {@link FixedPointMatrix} and {@link RationalMatrix} use {@link #EXACT}.
+ */
+public final class Tolerance {
+    public static final String ZERO_TOLERANCE_PROP = "com.github.cloudecho.bnb.ZERO_TOLERANCE";
+    public static final String PRIMAL_TOLERANCE_PROP = "com.github.cloudecho.bnb.PRIMAL_TOLERANCE";
+    public static final String DUAL_TOLERANCE_PROP = "com.github.cloudecho.bnb.DUAL_TOLERANCE";
+    public static final String PIVOT_TOLERANCE_PROP = "com.github.cloudecho.bnb.PIVOT_TOLERANCE";
+    public static final String DROP_TOLERANCE_PROP = "com.github.cloudecho.bnb.DROP_TOLERANCE";
+
+    public static final Tolerance EXACT = new Tolerance(0d, 0d, 0d, 0d, 0d);
+
+    public static final Tolerance DEFAULT = new Tolerance(
+            Double.parseDouble(System.getProperty(ZERO_TOLERANCE_PROP, "1e-12")),
+            Double.parseDouble(System.getProperty(PRIMAL_TOLERANCE_PROP, "1e-9")),
+            Double.parseDouble(System.getProperty(DUAL_TOLERANCE_PROP, "1e-9")),
+            Double.parseDouble(System.getProperty(PIVOT_TOLERANCE_PROP, "1e-9")),
+            Double.parseDouble(System.getProperty(DROP_TOLERANCE_PROP, "1e-12")));
+
+    public final double zero;
+    public final double primal;
+    public final double dual;
+    public final double pivot;
+    public final double drop;
+
+    public Tolerance(double zero, double primal, double dual, double pivot) {
+        this(zero, primal, dual, pivot, 0d);
+    }
+
+    public Tolerance(double zero, double primal, double dual, double pivot, double drop) {
+        if (zero < 0d || primal < 0d || dual < 0d || pivot < 0d || drop < 0d) {
+            throw new IllegalArgumentException("negative tolerance");
+        }
+        this.zero = zero;
+        this.primal = primal;
+        this.dual = dual;
+        this.pivot = pivot;
+        this.drop = drop;
+    }
+
+    public boolean isExact() {
+        return 0d == zero && 0d == primal && 0d == dual && 0d == pivot && 0d == drop;
+    }
+
+    /**
+     * Return the element v updated to v2 by a pivot, or 0 if v2 is NaN or cancellation round-off
+     */
+    public double drop(double v2, double v) {
+        return Double.isNaN(v2) || Math.abs(v2) <= drop * Math.abs(v) ? 0d : v2;
+    }
+
+    public boolean isZero(double v) {
+        return Math.abs(v) <= zero;
+    }
+
+    public boolean isPositive(double v) {
+        return v > zero;
+    }
+
+    public boolean isNegative(double v) {
+        return v < -zero;
+    }
+
+    @Override
+    public String toString() {
+        return "Tolerance{" +
+                "zero=" + zero +
+                ", primal=" + primal +
+                ", dual=" + dual +
+                ", pivot=" + pivot +
+                ", drop=" + drop +
+                '}';
+    }
+}
@@ -11,7 +11,11 @@ public class Maths {
 
     public static double round(double value, int precision) {
         double scale = Math.pow(10, precision);
-        return Math.round(value * scale) / scale;
+        final double v = value * scale;
+        if (Math.abs(v) >= 0x1p52) { // no fraction left, or beyond a long
+            return value;
+        }
+        return Math.round(v) / scale;
     }
 
     public static double round(Number value, int precision) {
@@ -8,6 +8,7 @@ public class NamedThreadFactory implements ThreadFactory {
     private ThreadGroup group;
     private final AtomicInteger threadNumber = new AtomicInteger(1);
     private String namePrefix = "noname-thread";
+    private boolean daemon = false;
 
     public NamedThreadFactory() {
         group = Thread.currentThread().getThreadGroup();
@@ -20,6 +21,14 @@ public class NamedThreadFactory implements ThreadFactory {
         return this;
     }
 
+    /**
+     * Create daemon threads, which do not keep the JVM alive
+     */
+    public NamedThreadFactory daemon(boolean daemon) {
+        this.daemon = daemon;
+        return this;
+    }
+
     public NamedThreadFactory group(ThreadGroup group) {
         if (group != null) {
             this.group = group;
@@ -31,8 +40,8 @@ public class NamedThreadFactory implements ThreadFactory {
         Thread t = new Thread(group, r,
                 namePrefix + '-' + threadNumber.getAndIncrement(),
                 0);
-        if (t.isDaemon())
-            t.setDaemon(false);
+        if (t.isDaemon() != daemon)
+            t.setDaemon(daemon);
         if (t.getPriority() != Thread.NORM_PRIORITY)
             t.setPriority(Thread.NORM_PRIORITY);
         return t;
@@ -0,0 +1,54 @@
+package com.github.cloudecho.bnb.math;
+
+/**
+ * The vector kernels of the dense tableaus, using the vector API if the module {@code jdk.incubator.vector}
+ * is in the boot layer, or plain loops otherwise.
+ */
+public final class Kernels {
+    static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /**
+     * Shorter vectors are computed by plain loops
+     */
+    static final int MIN_LENGTH = 16;
+
+    private Kernels() {
+
+    }
+
+    /**
+     * Return {@code true} if the vector API is used
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    /**
+     * y[yOffset + j] += a * x[xOffset + j] for j in [0, length)
+     */
+    public static void axpy(double a, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        if (VECTORIZED && length >= MIN_LENGTH) {
+            VectorKernels.axpy(a, x, xOffset, y, yOffset, length);
+            return;
+        }
+        for (int j = 0; j < length; j++) {
+            y[yOffset + j] += a * x[xOffset + j];
+        }
+    }
+
+    /**
+     * As {@link #axpy}, and y[yOffset + j] is set to 0 if it is updated from v to |v'| &le; drop * |v| or to NaN,
+     * as by {@link Tolerance#drop}
+     */
+    public static void axpyDrop(double a, double[] x, int xOffset, double[] y, int yOffset, int length, double drop) {
+        if (VECTORIZED && length >= MIN_LENGTH) {
+            VectorKernels.axpyDrop(a, x, xOffset, y, yOffset, length, drop);
+            return;
+        }
+        for (int j = 0; j < length; j++) {
+            final double v = y[yOffset + j];
+            final double v2 = v + a * x[xOffset + j];
+            y[yOffset + j] = Double.isNaN(v2) || Math.abs(v2) <= drop * Math.abs(v) ? 0d : v2;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.cloudecho.bnb.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The kernels in vector lanes, loaded only if the module {@code jdk.incubator.vector} is present.
+ * Multiply and add are kept separate (no FMA), so that the values are the same as the plain loops.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+
+    }
+
+    static void axpy(double a, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        final int bound = SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            final DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + j);
+            final DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + j);
+            vy.add(vx.mul(a)).intoArray(y, yOffset + j);
+        }
+        for (; j < length; j++) {
+            y[yOffset + j] += a * x[xOffset + j];
+        }
+    }
+
+    static void axpyDrop(double a, double[] x, int xOffset, double[] y, int yOffset, int length, double drop) {
+        final int bound = SPECIES.loopBound(length);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            final DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + j);
+            final DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + j);
+            final DoubleVector v2 = vy.add(vx.mul(a));
+            final VectorMask<Double> dropped = v2.abs().compare(VectorOperators.LE, vy.abs().mul(drop))
+                    .or(v2.test(VectorOperators.IS_NAN));
+            v2.blend(0d, dropped).intoArray(y, yOffset + j);
+        }
+        for (; j < length; j++) {
+            final double v = y[yOffset + j];
+            final double v2 = v + a * x[xOffset + j];
+            y[yOffset + j] = Double.isNaN(v2) || Math.abs(v2) <= drop * Math.abs(v) ? 0d : v2;
+        }
+    }
+}
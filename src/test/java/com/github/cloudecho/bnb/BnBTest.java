@@ -1,5 +1,6 @@
 package com.github.cloudecho.bnb;
 
+import com.github.cloudecho.bnb.math.CsrMatrix;
 import com.github.cloudecho.bnb.util.Sign;
 import org.junit.Assert;
 import org.junit.Test;
@@ -63,6 +64,35 @@ public class BnBTest {
         Assert.assertEquals("x[4]", 0, (int) x[4]);
     }
 
+    @Test
+    public void testSolve01Sparse() {
+        double[] c = {-8, -2, -4, -7, -5};
+        double[][] a = {
+                {-3, -3, 1, 2, 3},
+                {-5, -3, -2, -1, 1}
+        };
+        Sign[] signs = {Sign.LE, Sign.LE};
+        double[] b = {-2, -4};
+        int[] binVars = new int[]{1, 2, 3, 4, 5};
+
+        BnB dense = new BnB(ObjectiveType.max, 10, c, a, signs, b, null, null, binVars);
+        dense.solve();
+        BnB sparse = new BnB(ObjectiveType.max, 10, c, CsrMatrix.of(a), signs, b, null, null, binVars);
+        sparse.solve();
+
+        Assert.assertEquals("state", State.SOLVED, sparse.getState());
+        Assert.assertEquals("objective", dense.getObjective(), sparse.getObjective(), 1e-6);
+        Assert.assertArrayEquals("x", dense.getX(), sparse.getX(), 1e-6);
+
+        // integer vars, branched by the rows added
+        BnB mixed = new BnB(ObjectiveType.min, 4, new double[]{3, 2, 0, 0},
+                CsrMatrix.of(new double[][]{{1, -2, 1, 0}, {2, 1, 0, 1}}),
+                new Sign[]{Sign.EQ, Sign.EQ}, new double[]{2.5, 1.5}, null, new int[]{2, 3});
+        mixed.solve();
+        Assert.assertEquals("state", State.SOLVED, mixed.getState());
+        Assert.assertEquals("objective", 5.5, mixed.getObjective(), 1e-6);
+    }
+
     @Test
     public void testSolveMixed() {
         double[] c = {3, 2, 0, 0};
@@ -138,4 +168,49 @@ public class BnBTest {
         Assert.assertEquals("state", State.SOLVED, bnb.getState());
         Assert.assertEquals("min", 62.522, bnb.getObjective(), 0.0001);
     }
+
+    @Test
+    public void testSolveCached() {
+        double[] c = {-8, -2, -4, -7, -6};
+        double[][] a = {
+                {-3, -3, 1, 2, 3},
+                {-5, -3, -2, -1, 1}
+        };
+        Sign[] signs = {Sign.LE, Sign.LE};
+        double[] b = {-2, -4};
+        int[] binVars = new int[]{1, 2, 3, 4, 5};
+
+        Assert.assertFalse("shared cache", BnB.getSharedLpCache().isEnabled());
+        final LpCache cache = new LpCache(64);
+        BnB bnb = new BnB(ObjectiveType.max, 10, c, a, signs, b, null, null, binVars);
+        bnb.setLpCache(cache);
+        bnb.solve();
+        // a fixing set is never reached twice in one tree
+        Assert.assertEquals("hits", 0, cache.getHits());
+
+        // an equal model, not the same arrays
+        BnB bnb2 = new BnB(ObjectiveType.max, 10, c.clone(), new double[][]{a[0].clone(), a[1].clone()},
+                signs, b, null, null, binVars);
+        bnb2.setLpCache(cache);
+        bnb2.solve();
+        Assert.assertTrue("hits", cache.getHits() > 0);
+        Assert.assertEquals("state", bnb.getState(), bnb2.getState());
+        Assert.assertEquals("objective", bnb.getObjective(), bnb2.getObjective(), 0d);
+        Assert.assertArrayEquals("x", bnb.getX(), bnb2.getX(), 0d);
+
+        // the cached vectors are copies
+        bnb2.getX()[0] = -1d;
+        BnB bnb3 = new BnB(ObjectiveType.max, 10, c, a, signs, b, null, null, binVars);
+        bnb3.setLpCache(cache);
+        bnb3.solve();
+        Assert.assertArrayEquals("x", bnb.getX(), bnb3.getX(), 0d);
+
+        // another model misses
+        final long hits = cache.getHits();
+        c[4] = -5;
+        BnB other = new BnB(ObjectiveType.max, 10, c, a, signs, b, null, null, binVars);
+        other.setLpCache(cache);
+        other.solve();
+        Assert.assertEquals("hits", hits, cache.getHits());
+    }
 }
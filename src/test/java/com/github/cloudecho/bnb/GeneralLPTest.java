@@ -1,9 +1,17 @@
 package com.github.cloudecho.bnb;
 
+import com.github.cloudecho.bnb.math.Buffers;
+import com.github.cloudecho.bnb.math.CsrMatrix;
 import com.github.cloudecho.bnb.util.Sign;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.logging.Level;
 
 public class GeneralLPTest {
@@ -67,4 +75,175 @@ public class GeneralLPTest {
         Assert.assertEquals("y[1]", 0.028571, y[1], 0.000001);
         Assert.assertEquals("y[2]", 0, y[2], 0.000001);
     }
+
+    @Test
+    public void testSafeBound() {
+        double[][] a = {
+                {6, 5, 8},
+                {10, 20, 10},
+                {1, 0, 0},
+        };
+        GeneralLP max = new GeneralLP(ObjectiveType.max, 0, new double[]{5, 4.5, 6}, a,
+                new Sign[]{Sign.LE, Sign.LE, Sign.LE}, new double[]{60, 150, 8}, null);
+        max.solve();
+        double bound = SafeBound.of(max);
+        Assert.assertTrue("upper bound", bound >= max.getObjective());
+        Assert.assertEquals("upper bound", 51.428571, bound, 0.00001);
+
+        // the vars are not bounded, the dual of the rows is exact
+        GeneralLP min = new GeneralLP(ObjectiveType.min, 0, new double[]{5, 4.5, 6}, a,
+                new Sign[]{Sign.GE, Sign.GE, Sign.LE}, new double[]{60, 15, 8}, null);
+        min.solve();
+        Assert.assertEquals("lower bound", 45, SafeBound.of(min), 0d);
+
+        // a free var, bounded by the rows
+        GeneralLP free = new GeneralLP(ObjectiveType.min, 3, new double[]{2, -1}, new double[][]{{1, 1}, {3, 2}, {1, 2}},
+                new Sign[]{Sign.GE, Sign.LE, Sign.EQ}, new double[]{-2, 4, 23}, new int[]{1});
+        free.solve();
+        Assert.assertEquals("lower bound", -76, SafeBound.of(free), 0d);
+    }
+
+    @Test
+    public void testSafeBoundRounding() {
+        Random random = new Random(45);
+        for (int k = 0; k < 10000; k++) {
+            double x = Math.scalb(random.nextDouble() - 0.5d, random.nextInt(80) - 40);
+            double y = Math.scalb(random.nextDouble() - 0.5d, random.nextInt(80) - 40);
+            BigDecimal product = new BigDecimal(x).multiply(new BigDecimal(y));
+            assertEnclosed("x*y", product, SafeBound.mulDown(x, y), SafeBound.mulUp(x, y));
+            BigDecimal quotient = new BigDecimal(x).divide(new BigDecimal(y), MathContext.DECIMAL128);
+            assertEnclosed("x/y", quotient, SafeBound.divDown(x, y), SafeBound.divUp(x, y));
+        }
+        // exact: not widened
+        Assert.assertEquals("3*0.5", 1.5d, SafeBound.mulUp(3d, 0.5d), 0d);
+        Assert.assertEquals("3*0.5", 1.5d, SafeBound.mulDown(3d, 0.5d), 0d);
+        Assert.assertEquals("3/4", 0.75d, SafeBound.divUp(3d, 4d), 0d);
+        Assert.assertEquals("3/4", 0.75d, SafeBound.divDown(3d, 4d), 0d);
+    }
+
+    private static void assertEnclosed(String message, BigDecimal exact, double down, double up) {
+        Assert.assertTrue(message + " down", new BigDecimal(down).compareTo(exact) <= 0);
+        Assert.assertTrue(message + " up", new BigDecimal(up).compareTo(exact) >= 0);
+        Assert.assertTrue(message + " width", Math.nextUp(down) >= up);
+    }
+
+    @Test
+    public void testSolveScaled() {
+        // testSolve2 with the rows scaled by 1e-4, 1e3, 1 and x2 in thousandths
+        double[] c = {5, 4.5e-3, 6};
+        double[][] a = {
+                {6e-4, 5e-7, 8e-4},
+                {1e4, 20, 1e4},
+                {1, 0, 0},
+        };
+        Sign[] signs = {Sign.LE, Sign.GE, Sign.LE};
+        double[] b = {60e-4, 150e3, 8};
+
+        Assert.assertEquals("default", Scaling.ScalingType.NONE,
+                new GeneralLP(ObjectiveType.max, 0, c, a, signs, b, null).scaling);
+        GeneralLP[] lps = new GeneralLP[Scaling.ScalingType.values().length];
+        for (Scaling.ScalingType t : Scaling.ScalingType.values()) {
+            GeneralLP lp = new GeneralLP(ObjectiveType.max, 0, c, a, signs, b, null);
+            lp.setScaling(t);
+            lp.solve();
+            Assert.assertEquals(t + " state", State.SOLVED, lp.getState());
+            lps[t.ordinal()] = lp;
+        }
+        GeneralLP none = lps[Scaling.ScalingType.NONE.ordinal()];
+        for (GeneralLP lp : lps) {
+            Assert.assertEquals("objective", none.getObjective(), lp.getObjective(), 1e-6);
+            Assert.assertArrayEquals("x", none.getX(), lp.getX(), 1e-6);
+            Assert.assertArrayEquals("reduced cost", none.getReducedCost(), lp.getReducedCost(), 1e-6);
+            Assert.assertArrayEquals("shadow price", none.getShadowPrice(), lp.getShadowPrice(), 1e-6);
+            Assert.assertArrayEquals("slack", none.getSlack(), lp.getSlack(), 1e-6);
+        }
+    }
+
+    @Test
+    public void testSolveSparse() {
+        // a free var, mixed signs and badly scaled rows
+        double[] c = {2, -1, 3e-3};
+        double[][] a = {
+                {1, 1, 0},
+                {3e4, 2e4, 1},
+                {1, 2, 0},
+                {0, 1e-3, 2e-3},
+        };
+        Sign[] signs = {Sign.GE, Sign.LE, Sign.EQ, Sign.LE};
+        double[] b = {-2, 4e4, 23, 1};
+        CsrMatrix csr = CsrMatrix.of(4, 3,
+                new int[]{3, 0, 1, 2, 1, 1, 2, 3, 0},
+                new int[]{2, 0, 0, 0, 2, 1, 1, 1, 1},
+                new double[]{2e-3, 1, 3e4, 1, 1, 2e4, 2, 1e-3, 1});
+        for (Scaling.ScalingType t : Scaling.ScalingType.values()) {
+            GeneralLP dense = new GeneralLP(ObjectiveType.min, 3, c, a, signs, b, new int[]{1});
+            GeneralLP sparse = new GeneralLP(ObjectiveType.min, 3, c, csr, signs, b, new int[]{1});
+            dense.setScaling(t);
+            sparse.setScaling(t);
+            dense.solve();
+            sparse.solve();
+
+            Assert.assertEquals(t + " state", State.SOLVED, sparse.getState());
+            Assert.assertEquals("objective", dense.getObjective(), sparse.getObjective(), 1e-6);
+            Assert.assertArrayEquals("x", dense.getX(), sparse.getX(), 1e-6);
+            Assert.assertArrayEquals("reduced cost", dense.getReducedCost(), sparse.getReducedCost(), 1e-6);
+            Assert.assertArrayEquals("shadow price", dense.getShadowPrice(), sparse.getShadowPrice(), 1e-6);
+            Assert.assertArrayEquals("slack", dense.getSlack(), sparse.getSlack(), 1e-6);
+            Assert.assertEquals("safe bound", SafeBound.of(dense), SafeBound.of(sparse), 1e-6);
+        }
+    }
+
+    @Test
+    public void testSolvePooled() {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+        // the engines of a race are released by their threads
+        Assume.assumeFalse(SimplexPortfolio.getDefault().isEnabled());
+        final long thread = Thread.currentThread().getId();
+
+        final int m = 40, n = 60;
+        final Random random = new Random(1);
+        double[] c = new double[n];
+        double[][] a = new double[m][n];
+        double[] b = new double[m];
+        Sign[] signs = new Sign[m];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 1 + random.nextInt(9);
+            }
+            b[i] = 100 + random.nextInt(100);
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = 1 + random.nextInt(20);
+        }
+        Arrays.fill(signs, Sign.LE);
+
+        GeneralLP.LOG.setLevel(Level.INFO);
+        Simplex.LOG.setLevel(Level.INFO);
+        try {
+            final long[] bytes = new long[2]; // the least of each, as class loading or compiling may allocate
+            final double[] objectives = new double[2];
+            Arrays.fill(bytes, Long.MAX_VALUE);
+            for (int pooled = 0; pooled < 2; pooled++) {
+                if (1 == pooled) {
+                    Buffers.enable();
+                }
+                for (int k = 0; k < 20; k++) {
+                    final long b0 = bean.getThreadAllocatedBytes(thread);
+                    GeneralLP lp = new GeneralLP(ObjectiveType.max, 0, c, a, signs, b, null);
+                    lp.solve();
+                    bytes[pooled] = Math.min(bytes[pooled], bean.getThreadAllocatedBytes(thread) - b0);
+                    objectives[pooled] = lp.getObjective();
+                    Assert.assertEquals("state", State.SOLVED, lp.getState());
+                }
+            }
+            Assert.assertEquals("objective", objectives[0], objectives[1], 0d);
+            // the tableau alone is 8 * (m + 1) * (n + m + 1) bytes
+            Assert.assertTrue("allocated " + bytes[1] + " of " + bytes[0], bytes[1] < bytes[0] / 3);
+        } finally {
+            Buffers.disable();
+            GeneralLP.LOG.setLevel(Level.ALL);
+            Simplex.LOG.setLevel(Level.ALL);
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.github.cloudecho.bnb;
+
+import java.util.Random;
+
+/**
+ * Random LP in standard form with slack variables, i.e. {@code max cx s.t. [A I]x = b, x >= 0}.
+ * A &ge; 0 and b &gt; 0 so that it is feasible and bounded. The coefficients have 2 fractional digits.
+ */
+final class RandomLP {
+    final int m;
+    final int n;
+    final double[] c;
+    final double[][] a;
+    final double[] b;
+
+    private RandomLP(int m, int n) {
+        this.m = m;
+        this.n = n;
+        this.c = new double[n];
+        this.a = new double[m][n];
+        this.b = new double[m];
+    }
+
+    /**
+     * @param seed    The seed of the random numbers
+     * @param m       The number of rows
+     * @param n       The number of structural variables
+     * @param density The density of A
+     * @param range   Coefficients are log-uniform in [1, range]
+     */
+    static RandomLP of(long seed, int m, int n, double density, double range) {
+        final Random random = new Random(seed);
+        RandomLP lp = new RandomLP(m, n + m);
+        for (int j = 0; j < n; j++) {
+            lp.c[j] = coefficient(random, range);
+            // at least one non-zero in each column
+            lp.a[random.nextInt(m)][j] = coefficient(random, range);
+            for (int i = 0; i < m; i++) {
+                if (random.nextDouble() < density) {
+                    lp.a[i][j] = coefficient(random, range);
+                }
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            lp.a[i][n + i] = 1d;
+            double row = 0d;
+            for (int j = 0; j < n; j++) {
+                row += lp.a[i][j];
+            }
+            lp.b[i] = Math.round(row * (50d + 100d * random.nextDouble())) / 100d;
+        }
+        return lp;
+    }
+
+    private static double coefficient(Random random, double range) {
+        return Math.round(100d * Math.pow(range, random.nextDouble())) / 100d;
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.cloudecho.bnb;
+
+import com.github.cloudecho.bnb.SimplexFactory.SimplexType;
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Each engine on the same LPs, against {@link SimplexType#BIG}
+ */
+@RunWith(Parameterized.class)
+public class SimplexFactoryTest {
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> types() {
+        return Arrays.asList(Arrays.stream(SimplexType.values()).map(t -> new Object[]{t}).toArray(Object[][]::new));
+    }
+
+    private final SimplexType type;
+
+    public SimplexFactoryTest(SimplexType type) {
+        this.type = type;
+    }
+
+    @Test
+    public void testSolve() {
+        double[] c = {5, 4, 6, 0, 0, 0, 0};
+        double[][] a = {
+                {1, 1, 1, 1, 0, 0, 0},
+                {1, 0.5, 0, 0, 1, 0, 0},
+                {3, 0, 1, 0, 0, 1, 0},
+                {0, -2, -3, 0, 0, 0, -1},
+        };
+        double[] b = {60, 32, 43, -86};
+        Simplex simplex = SimplexFactory.newSimplex(type, c, a, b);
+        simplex.solve();
+        Assert.assertEquals("state", State.SOLVED, simplex.getState());
+        Assert.assertEquals("max", 3091d / 13, simplex.getMax(), 1e-7);
+    }
+
+    @Test
+    public void testSolveRandom() {
+        RandomLP lp = RandomLP.of(29, 12, 24, 0.5d, 100d);
+        assertSolved(lp, SimplexFactory.newSimplex(type, lp.c, lp.a, lp.b));
+    }
+
+    @Test
+    public void testSolveSparse() {
+        RandomLP lp = RandomLP.of(35, 16, 48, 0.1d, 100d);
+        assertSolved(lp, SimplexFactory.newSimplex(type, lp.c, lp.a, lp.b));
+        assertSolved(lp, SimplexFactory.newSimplex(type, lp.c, CsrMatrix.of(lp.a), lp.b));
+    }
+
+    @Test
+    public void testSolveCycling() {
+        // Beale's example, Dantzig's rule cycles on it; the exact engines cannot perturb and fall back to Bland's rule
+        double[] c = {0.75, -20, 0.5, -6, 0, 0, 0};
+        double[][] a = {
+                {0.25, -8, -1, 9, 1, 0, 0},
+                {0.5, -12, -0.5, 3, 0, 1, 0},
+                {0, 0, 1, 0, 0, 0, 1}};
+        double[] b = {0, 0, 1};
+
+        Simplex simplex = SimplexFactory.newSimplex(type, c, a, b);
+        simplex.solve();
+        Assert.assertEquals("state", State.SOLVED, simplex.getState());
+        Assert.assertEquals("max", 1.25, simplex.getMax(), 1e-9);
+        Assert.assertArrayEquals("x", new double[]{1, 0, 1, 0, 0.75, 0, 0}, simplex.getX(), 1e-9);
+    }
+
+    @Test
+    public void testSolveKleeMinty() {
+        // the vars enter again and again without cycling, the engines turn to Bland's rule after the last
+        // perturbation if any, whose long run is no cycle either
+        final int d = 11;
+        // the scales of the BigDecimals grow with each pivot, and underflow on so many
+        Assume.assumeFalse("BIG", SimplexType.BIG == type);
+        double[] c = new double[2 * d];
+        double[][] a = new double[d][2 * d];
+        double[] b = new double[d];
+        for (int i = 0; i < d; i++) {
+            c[i] = Math.pow(2, d - 1 - i);
+            for (int j = 0; j < i; j++) {
+                a[i][j] = Math.pow(2, i - j + 1);
+            }
+            a[i][i] = 1;
+            a[i][d + i] = 1;
+            b[i] = Math.pow(5, i + 1);
+        }
+
+        Simplex simplex = SimplexFactory.newSimplex(type, c, a, b);
+        simplex.solve();
+        Assert.assertEquals("state", State.SOLVED, simplex.getState());
+        Assert.assertEquals("max", Math.pow(5, d), simplex.getMax(), 1e-9 * Math.pow(5, d));
+    }
+
+    /**
+     * The same max as {@link SimplexType#BIG}, and x is feasible
+     */
+    private void assertSolved(RandomLP lp, Simplex simplex) {
+        Simplex big = SimplexFactory.newSimplex(SimplexType.BIG, lp.c, lp.a, lp.b);
+        big.solve();
+        simplex.solve();
+
+        Assert.assertEquals("state", State.SOLVED, big.getState());
+        Assert.assertEquals("state", big.getState(), simplex.getState());
+        Assert.assertEquals("max", big.getMax(), simplex.getMax(), 1e-9 * (1d + Math.abs(big.getMax())));
+        final double[] x = simplex.getX();
+        for (int i = 0; i < lp.m; i++) {
+            double v = 0;
+            for (int j = 0; j < lp.n; j++) {
+                v += lp.a[i][j] * x[j];
+            }
+            Assert.assertEquals("row " + i, lp.b[i], v, 1e-6 * (1d + lp.b[i]));
+        }
+        for (int j = 0; j < lp.n; j++) {
+            Assert.assertTrue("x" + j + " >= 0", x[j] >= -1e-9);
+        }
+    }
+}
@@ -1,8 +1,36 @@
 package com.github.cloudecho.bnb;
 
+import com.github.cloudecho.bnb.math.AbstractMatrix;
+import com.github.cloudecho.bnb.math.BigDecimalMatrix;
+import com.github.cloudecho.bnb.math.CsrMatrix;
+import com.github.cloudecho.bnb.math.DoubleMatrix;
+import com.github.cloudecho.bnb.math.FlatDoubleMatrix;
+import com.github.cloudecho.bnb.math.LuFactorizedMatrix;
+import com.github.cloudecho.bnb.math.Matrix;
+import com.github.cloudecho.bnb.math.Parallels;
+import com.github.cloudecho.bnb.math.RevisedDoubleMatrix;
+import com.github.cloudecho.bnb.math.SparseMatrix;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 public class SimplexTest {
@@ -140,6 +168,66 @@ public class SimplexTest {
         Assert.assertEquals("x[3]", 0, (int) x[3]);
     }
 
+    /**
+     * Equality, &ge; and &le; rows: the aVars are driven out on the largest elements of their rows, a pivot on the
+     * first element just above the pivot tolerance would blow up the other rows
+     */
+    @Test
+    public void testSolveDrivingAvarsLargest() {
+        final int m = 60, structural = 2 * m;
+        final Random random = new Random(241);
+        final int[] kind = new int[m]; // 0: =, 1: >=, 2: <=
+        int n = structural;
+        for (int i = 0; i < m; i++) {
+            final double u = random.nextDouble();
+            kind[i] = u < 0.45 ? 0 : u < 0.9 ? 1 : 2;
+            n += 0 == kind[i] ? 0 : 1;
+        }
+        final double[][] a = new double[m][n];
+        final double[] b = new double[m];
+        final double[] c = new double[n];
+        final double[] x0 = new double[structural];
+        for (int j = 0; j < structural; j++) {
+            x0[j] = random.nextDouble() < 0.5 ? random.nextDouble() * 5 : 0;
+        }
+        for (int i = 0, s = structural; i < m; i++) {
+            double v = 0;
+            for (int j = 0; j < structural; j++) {
+                if (random.nextDouble() < 0.1) {
+                    a[i][j] = random.nextInt(9) + 1;
+                    v += a[i][j] * x0[j];
+                }
+            }
+            if (0 == kind[i]) {
+                b[i] = v;
+            } else if (1 == kind[i]) {
+                a[i][s++] = -1;
+                b[i] = Math.floor(v * 0.8);
+            } else {
+                a[i][s++] = 1;
+                b[i] = Math.ceil(v * 1.2) + 1;
+            }
+        }
+        for (int j = 0; j < structural; j++) {
+            c[j] = -(1 + random.nextInt(20));
+        }
+
+        for (boolean crash : new boolean[]{false, true}) {
+            Simplex simplex = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, c, a, b);
+            simplex.setCrash(crash);
+            simplex.solve();
+
+            Assert.assertEquals("crash " + crash + " state", State.SOLVED, simplex.getState());
+            for (int i = 0; i < m; i++) {
+                double v = 0;
+                for (int j = 0; j < n; j++) {
+                    v += a[i][j] * simplex.getX()[j];
+                }
+                Assert.assertEquals("crash " + crash + " row " + i, b[i], v, 1e-4);
+            }
+        }
+    }
+
     @Test
     public void testSolvePivotOnNegative() {
         double[] c = {1, 0, 0, 0, 0, 0};
@@ -258,4 +346,717 @@ public class SimplexTest {
         Assert.assertEquals("x[6]", 0, (int) x[6]);
         Assert.assertEquals("x[7]", 0, (int) x[7]);
     }
+
+    @Test
+    public void testSolvePortfolio() {
+        double[] c = {5, 4, 6, 0, 0, 0, 0};
+        double[][] a = {
+                {1, 1, 1, 1, 0, 0, 0},
+                {1, 0.5, 0, 0, 1, 0, 0},
+                {3, 0, 1, 0, 0, 1, 0},
+                {0, -2, -3, 0, 0, 0, -1},
+        };
+        double[] b = {60, 32, 43, -86};
+
+        SimplexFactory.SimplexType[] types = {
+                SimplexFactory.SimplexType.NORMAL,
+                SimplexFactory.SimplexType.REVISED,
+                SimplexFactory.SimplexType.BIG};
+        SimplexPortfolio portfolio = new SimplexPortfolio(types, true);
+        for (int k = 0; k < 2 * SimplexPortfolio.MIN_RACES; k++) {
+            Simplex simplex = portfolio.solve(c, a, b, Solver.DEFAULT_PRECISION);
+            Assert.assertEquals("state", State.SOLVED, simplex.getState());
+            Assert.assertEquals("max", 237, (int) simplex.getMax());
+        }
+        // a losing engine never keeps the JVM alive
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("simplex-race")) {
+                Assert.assertTrue(t.getName() + " daemon", t.isDaemon());
+            }
+        }
+    }
+
+    @Test
+    public void testSolvePortfolioRelease() throws IOException, InterruptedException {
+        // one thread, the engines after the first wait for the end of the race: NORMAL wins,
+        // MAPPED is cancelled before it starts, and its file is deleted all the same
+        RandomLP lp = RandomLP.of(44, 10, 20, 0.5d, 100d);
+        final BufferPoolMXBean mapped = bufferPool("mapped");
+        final long used = mapped.getMemoryUsed();
+        final Set<Path> files = tableauFiles();
+        final CountDownLatch raced = new CountDownLatch(1);
+        final AtomicInteger tasks = new AtomicInteger();
+        final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+            @Override
+            protected void beforeExecute(Thread t, Runnable r) {
+                if (tasks.getAndIncrement() > 0) {
+                    try {
+                        raced.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        try {
+            SimplexFactory.SimplexType[] types = {SimplexFactory.SimplexType.NORMAL, SimplexFactory.SimplexType.MAPPED};
+            Simplex simplex = new SimplexPortfolio(types, false, executor).solve(lp.c, lp.a, lp.b, Solver.DEFAULT_PRECISION);
+            Assert.assertEquals("state", State.SOLVED, simplex.getState());
+            Assert.assertFalse("winner", simplex instanceof MappedSimplex);
+        } finally {
+            raced.countDown();
+            executor.shutdown();
+            Assert.assertTrue("terminated", executor.awaitTermination(10L, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals("unmapped", used, mapped.getMemoryUsed());
+        Assert.assertEquals("deleted", files, tableauFiles());
+    }
+
+    @Test
+    public void testSelect() {
+        double[][] a = {
+                {1, 1, 1, 1, 0, 0, 0},
+                {1, 0.5, 0, 0, 1, 0, 0},
+                {3, 0, 1, 0, 0, 1, 0},
+                {0, -2, -3, 0, 0, 0, -1},
+        };
+        Assert.assertEquals("small", SimplexFactory.SimplexType.NORMAL, SimplexSelector.select(a));
+
+        a[0][0] = 1e-14;
+        Assert.assertEquals("ill-conditioned", SimplexFactory.SimplexType.BIG, SimplexSelector.select(a));
+
+        // the flat dense tableau is faster than the revised one up to DENSE_MAX_CELLS, 300 x 300 included
+        Assert.assertEquals("medium", SimplexFactory.SimplexType.NORMAL, SimplexSelector.select(new double[300][300]));
+        SimplexSelector.Shape dense = new SimplexSelector.Shape();
+        dense.m = 1;
+        dense.n = (int) SimplexSelector.DENSE_MAX_CELLS;
+        dense.nonZeros = dense.n;
+        Assert.assertEquals("dense max", SimplexFactory.SimplexType.NORMAL, SimplexSelector.select(dense));
+        dense.n++;
+        dense.nonZeros++;
+        Assert.assertEquals("large", SimplexFactory.SimplexType.REVISED, SimplexSelector.select(dense));
+
+        SimplexSelector.Shape shape = new SimplexSelector.Shape();
+        shape.m = 3000;
+        shape.n = 3000;
+        shape.nonZeros = 9000;
+        Assert.assertEquals("sparse", SimplexFactory.SimplexType.SPARSE, SimplexSelector.select(shape));
+    }
+
+    @Test
+    public void testSolveFactorized() {
+        // m pivots to init the base, and enough iterations to refactorize the basis after the eta file is full
+        RandomLP lp = RandomLP.of(29, 60, 120, 0.2d, 100d);
+        final int[] refactors = {0};
+        Simplex normal = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, lp.c, lp.a, lp.b);
+        Simplex lu = new FactorizedSimplex(lp.c, lp.a, lp.b) {
+            @Override
+            protected Matrix<?> createMatrix(double[][] table, int max_n) {
+                return new LuFactorizedMatrix(table, max_n) {
+                    @Override
+                    protected void refactor() {
+                        refactors[0]++;
+                        super.refactor();
+                    }
+                };
+            }
+        };
+        normal.setPricing(Pricing.PricingType.DANTZIG);
+        lu.setPricing(Pricing.PricingType.DANTZIG);
+        Simplex.LOG.setLevel(Level.INFO);
+        try {
+            normal.solve();
+            lu.solve();
+        } finally {
+            Simplex.LOG.setLevel(Level.ALL);
+        }
+
+        Assert.assertTrue("refactorized " + refactors[0], refactors[0] > 1); // the first one is the identity
+        Assert.assertEquals("state", normal.getState(), lu.getState());
+        Assert.assertEquals("max", normal.getMax(), lu.getMax(), 1e-6);
+        Assert.assertArrayEquals("x", normal.getX(), lu.getX(), 1e-6);
+    }
+
+    @Test
+    public void testCsrTriplets() {
+        // unordered, a duplicate summed and one cancelled to 0
+        CsrMatrix a = CsrMatrix.of(3, 4,
+                new int[]{2, 0, 2, 1, 0, 2, 1},
+                new int[]{3, 1, 0, 2, 1, 3, 0},
+                new double[]{1, 2, 5, -1, 3, -1, 1});
+        double[][] dense = {
+                {0, 5, 0, 0},
+                {1, 0, -1, 0},
+                {5, 0, 0, 0},
+        };
+        Assert.assertEquals("csr", CsrMatrix.of(dense), a);
+        Assert.assertEquals("nonZeros", 4, a.nonZeros());
+        Assert.assertArrayEquals("row 1", dense[1], a.toArray()[1], 0d);
+        Assert.assertEquals("a(1,2)", -1d, a.getAsDouble(1, 2), 0d);
+        Assert.assertEquals("a(2,3)", 0d, a.getAsDouble(2, 3), 0d);
+    }
+
+    @Test
+    public void testSolveOffHeap() {
+        // the tableau is freed at once after solving, not when the buffers are collected
+        RandomLP lp = RandomLP.of(40, 30, 90, 0.2d, 100d);
+        final BufferPoolMXBean direct = bufferPool("direct");
+        final long used = direct.getMemoryUsed();
+        Simplex offHeap = SimplexFactory.newSimplex(SimplexFactory.SimplexType.OFF_HEAP, lp.c, lp.a, lp.b);
+        Assert.assertTrue("allocated", direct.getMemoryUsed() >= used + 8L * lp.m * lp.n);
+        offHeap.solve();
+
+        Assert.assertEquals("state", State.SOLVED, offHeap.getState());
+        Assert.assertTrue("released", offHeap.toString().contains("released"));
+        Assert.assertEquals("freed", used, direct.getMemoryUsed());
+    }
+
+    @Test
+    public void testSolveOffHeapUnstaged() {
+        // the tableau is written into the direct buffers from c, a and b, or from the compressed rows
+        RandomLP lp = RandomLP.of(43, 30, 90, 0.2d, 100d);
+        Simplex normal = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, lp.c, lp.a, lp.b);
+        normal.solve();
+
+        Simplex dense = new OffHeapSimplex(lp.c, lp.a, lp.b) {
+            @Override
+            protected Matrix<?> createMatrix(double[][] table, int max_n) {
+                throw new AssertionError("staged");
+            }
+        };
+        Simplex sparse = new OffHeapSimplex(lp.c, CsrMatrix.of(lp.a), lp.b) {
+            @Override
+            protected Matrix<?> createMatrix(double[][] table, int max_n) {
+                throw new AssertionError("staged");
+            }
+        };
+        Simplex factory = SimplexFactory.newSimplex(SimplexFactory.SimplexType.OFF_HEAP, lp.c, CsrMatrix.of(lp.a), lp.b);
+        Assert.assertTrue("factory", factory instanceof OffHeapSimplex);
+        for (Simplex simplex : new Simplex[]{dense, sparse, factory}) {
+            simplex.solve();
+            Assert.assertEquals("state", State.SOLVED, simplex.getState());
+            Assert.assertEquals("max", normal.getMax(), simplex.getMax(), 1e-9 * (1d + Math.abs(normal.getMax())));
+        }
+    }
+
+    @Test
+    public void testSolveMapped() throws IOException {
+        // the file is unmapped and deleted after solving
+        RandomLP lp = RandomLP.of(41, 30, 90, 0.2d, 100d);
+        final BufferPoolMXBean mapped = bufferPool("mapped");
+        final long used = mapped.getMemoryUsed();
+        final Set<Path> files = tableauFiles();
+        Simplex simplex = SimplexFactory.newSimplex(SimplexFactory.SimplexType.MAPPED, lp.c, lp.a, lp.b);
+        Assert.assertEquals("file", files.size() + 1, tableauFiles().size());
+        simplex.solve();
+
+        Assert.assertEquals("state", State.SOLVED, simplex.getState());
+        Assert.assertTrue("released", simplex.toString().contains("released"));
+        Assert.assertEquals("unmapped", used, mapped.getMemoryUsed());
+        Assert.assertEquals("deleted", files, tableauFiles());
+    }
+
+    @Test
+    public void testSolveMappedUnstaged() {
+        // the tableau is written into the file from c, a and b, or from the compressed rows, never staged on the heap
+        RandomLP lp = RandomLP.of(42, 30, 90, 0.2d, 100d);
+        Simplex normal = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, lp.c, lp.a, lp.b);
+        normal.solve();
+
+        Simplex dense = new MappedSimplex(lp.c, lp.a, lp.b) {
+            @Override
+            protected Matrix<?> createMatrix(double[][] table, int max_n) {
+                throw new AssertionError("staged");
+            }
+        };
+        Simplex sparse = new MappedSimplex(lp.c, CsrMatrix.of(lp.a), lp.b) {
+            @Override
+            protected Matrix<?> createMatrix(double[][] table, int max_n) {
+                throw new AssertionError("staged");
+            }
+        };
+        Simplex factory = SimplexFactory.newSimplex(SimplexFactory.SimplexType.MAPPED, lp.c, CsrMatrix.of(lp.a), lp.b);
+        Assert.assertTrue("factory", factory instanceof MappedSimplex);
+        for (Simplex simplex : new Simplex[]{dense, sparse, factory}) {
+            simplex.solve();
+            Assert.assertEquals("state", State.SOLVED, simplex.getState());
+            Assert.assertEquals("max", normal.getMax(), simplex.getMax(), 1e-9 * (1d + Math.abs(normal.getMax())));
+        }
+    }
+
+    private static BufferPoolMXBean bufferPool(String name) {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (name.equals(pool.getName())) {
+                return pool;
+            }
+        }
+        throw new IllegalStateException("no buffer pool " + name);
+    }
+
+    /**
+     * The files of {@link com.github.cloudecho.bnb.math.MappedDoubleMatrix} in the temporary directory
+     */
+    private static Set<Path> tableauFiles() throws IOException {
+        final Set<Path> files = new HashSet<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(Paths.get(System.getProperty("java.io.tmpdir")),
+                "bnb-*.tableau")) {
+            dir.forEach(files::add);
+        }
+        return files;
+    }
+
+    @Test
+    public void testSolveRational() {
+        // large integers, the cells overflow to BigIntegers
+        Random random = new Random(42);
+        int m = 8, n = 16;
+        double[] c = new double[n];
+        double[][] a = new double[m][n];
+        double[] b = new double[m];
+        for (int i = 0; i < m; i++) {
+            b[i] = 1 + random.nextInt(1000000);
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 1 + random.nextInt(1000000);
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = 1 + random.nextInt(1000000);
+        }
+        Simplex big = SimplexFactory.newSimplex(SimplexFactory.SimplexType.BIG, c, a, b);
+        big.solve();
+        Simplex rational = SimplexFactory.newSimplex(SimplexFactory.SimplexType.RATIONAL, c, a, b);
+        rational.solve();
+        Assert.assertEquals("state", big.getState(), rational.getState());
+        Assert.assertEquals("max", big.getMax(), rational.getMax(), 1e-9 * Math.abs(big.getMax()));
+    }
+
+    @Test
+    public void testSolveFixedPoint() {
+        // prices with 2 fractional digits and slack variables, the same values as BigSimplex
+        Random random = new Random(43);
+        int m = 10, n = 30;
+        double[] c = new double[n];
+        double[][] a = new double[m][n];
+        double[] b = new double[m];
+        for (int i = 0; i < m; i++) {
+            b[i] = random.nextInt(100000) / 100d;
+            for (int j = 0; j < n - m; j++) {
+                a[i][j] = random.nextInt(10000) / 100d;
+            }
+            a[i][n - m + i] = 1;
+        }
+        for (int j = 0; j < n - m; j++) {
+            c[j] = random.nextInt(10000) / 100d;
+        }
+        Simplex big = SimplexFactory.newSimplex(SimplexFactory.SimplexType.BIG, c, a, b);
+        big.solve();
+        Simplex fixed = SimplexFactory.newSimplex(SimplexFactory.SimplexType.FIXED, c, a, b);
+        fixed.solve();
+        Assert.assertEquals("state", State.SOLVED, fixed.getState());
+        Assert.assertEquals("state", big.getState(), fixed.getState());
+        Assert.assertEquals("max", big.getMax(), fixed.getMax(), 0d);
+        Assert.assertArrayEquals("x", big.getX(), fixed.getX(), 0d);
+    }
+
+    @Test
+    public void testSolveRefined() {
+        double[] c = {5, 4, 6, 0, 0, 0, 0};
+        double[][] a = {
+                {1, 1, 1, 1, 0, 0, 0},
+                {1, 0.5, 0, 0, 1, 0, 0},
+                {3, 0, 1, 0, 0, 1, 0},
+                {0, -2, -3, 0, 0, 0, -1},
+        };
+        double[] b = {60, 32, 43, -86};
+        Simplex simplex = SimplexRefinement.solve(c, a, b, Solver.DEFAULT_PRECISION);
+        Assert.assertEquals("state", State.SOLVED, simplex.getState());
+        Assert.assertEquals("max", 3091d / 13, simplex.getMax(), 1e-7);
+        Assert.assertEquals("iter", 0, simplex.getIterations()); // verified without pivots
+
+        // a wrong start base, repaired by exact pivots
+        for (int[] base : new int[][]{{3, 4, 5, 6}, {0, 1, 2, 4}}) {
+            simplex = SimplexFactory.newSimplex(SimplexFactory.SimplexType.RATIONAL, c, a, b);
+            simplex.setStartBase(base);
+            simplex.solve();
+            Assert.assertEquals("state", State.SOLVED, simplex.getState());
+            Assert.assertEquals("max", 3091d / 13, simplex.getMax(), 1e-7);
+        }
+    }
+
+    @Test
+    public void testSolvePricing() {
+        RandomLP lp = RandomLP.of(30, 30, 90, 0.2d, 100d);
+        Simplex dantzig = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, lp.c, lp.a, lp.b);
+        dantzig.setPricing(Pricing.PricingType.DANTZIG);
+        dantzig.solve();
+
+        for (Pricing.PricingType t : new Pricing.PricingType[]{
+                Pricing.PricingType.DEVEX, Pricing.PricingType.STEEPEST_EDGE}) {
+            for (SimplexFactory.SimplexType type : new SimplexFactory.SimplexType[]{
+                    SimplexFactory.SimplexType.NORMAL, SimplexFactory.SimplexType.LU}) {
+                Simplex simplex = SimplexFactory.newSimplex(type, lp.c, lp.a, lp.b);
+                simplex.setPricing(t);
+                simplex.solve();
+                Assert.assertEquals(t + " state", State.SOLVED, simplex.getState());
+                Assert.assertEquals(t + " max", dantzig.getMax(), simplex.getMax(), 1e-6);
+                Assert.assertTrue(t + " iterations", simplex.getIterations() <= dantzig.getIterations());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelPricing() {
+        // a wide row 0 of few distinct values, many ties across the ranges
+        final int n2 = 1000, n = 500;
+        final Random random = new Random(39);
+        double[][] table = new double[3][n2 + 1];
+        for (int i = 0; i < table.length; i++) {
+            for (int j = 0; j <= n2; j++) {
+                table[i][j] = random.nextInt(4) - 1;
+            }
+        }
+        final int minLength = Parallels.setMinLength(0);
+        final int grainCells = Parallels.setGrainCells(16);
+        try {
+            for (Pricing.PricingType t : new Pricing.PricingType[]{Pricing.PricingType.DANTZIG,
+                    Pricing.PricingType.DEVEX, Pricing.PricingType.STEEPEST_EDGE}) {
+                for (Matrix<?> matrix : new Matrix<?>[]{
+                        new DoubleMatrix(table, n2 + 1), new BigDecimalMatrix(table, n2 + 1)}) {
+                    Pricing pricing = Pricing.newPricing(t, n2 + 1);
+                    Parallels.setMinLength(0);
+                    final int sequential = pricing.enter(matrix, n, n2);
+                    Parallels.setMinLength(1);
+                    Assert.assertTrue("parallel", Pricing.isParallel(matrix, n2));
+                    Assert.assertEquals(t + " " + matrix.getClass().getSimpleName(),
+                            sequential, pricing.enter(matrix, n, n2));
+                }
+            }
+        } finally {
+            Parallels.setMinLength(minLength);
+            Parallels.setGrainCells(grainCells);
+        }
+    }
+
+    @Test
+    public void testSolveParallel() {
+        // set partitioning, tall enough for the ratio test to be split into ranges of 16 rows,
+        // many rows tie on the ratio and the pivot
+        final int m = 128, n = 256;
+        final Random random = new Random(39);
+        double[][] a = new double[m][n];
+        double[] b = new double[m];
+        double[] c = new double[n];
+        Arrays.fill(b, 1);
+        for (int j = 0; j < n; j++) {
+            if (j < m) { // a feasible partition of no value
+                a[j][j] = 1;
+            } else {
+                for (int k = 0; k < 4; k++) {
+                    a[random.nextInt(m)][j] = 1;
+                }
+                c[j] = 1 + random.nextInt(8);
+            }
+        }
+        final int minLength = Parallels.setMinLength(0);
+        final int grainCells = Parallels.setGrainCells(16);
+        Simplex.LOG.setLevel(Level.INFO);
+        try {
+            for (Pricing.PricingType t : new Pricing.PricingType[]{Pricing.PricingType.DANTZIG,
+                    Pricing.PricingType.DEVEX, Pricing.PricingType.STEEPEST_EDGE}) {
+                for (SimplexFactory.SimplexType type : new SimplexFactory.SimplexType[]{
+                        SimplexFactory.SimplexType.NORMAL, SimplexFactory.SimplexType.REVISED}) {
+                    Parallels.setMinLength(0);
+                    Simplex sequential = SimplexFactory.newSimplex(type, c, a, b);
+                    sequential.setPricing(t);
+                    sequential.solve();
+                    Parallels.setMinLength(1);
+                    Simplex parallel = SimplexFactory.newSimplex(type, c, a, b);
+                    parallel.setPricing(t);
+                    parallel.solve();
+
+                    // the same entering and leaving choices, i.e. the same path
+                    final String name = t + " " + type;
+                    Assert.assertEquals(name + " state", State.SOLVED, parallel.getState());
+                    Assert.assertEquals(name + " iterations", sequential.getIterations(), parallel.getIterations());
+                    Assert.assertEquals(name + " max", sequential.getMax(), parallel.getMax(), 0d);
+                    Assert.assertArrayEquals(name + " x", sequential.getX(), parallel.getX(), 0d);
+                    Assert.assertArrayEquals(name + " base", sequential.getBase(), parallel.getBase());
+                }
+            }
+        } finally {
+            Parallels.setMinLength(minLength);
+            Parallels.setGrainCells(grainCells);
+            Simplex.LOG.setLevel(Level.ALL);
+        }
+    }
+
+    @Test
+    public void testSolvePartialPricing() {
+        // several windows of columns
+        RandomLP lp = RandomLP.of(31, 8, 160, 0.2d, 100d);
+        Simplex dantzig = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, lp.c, lp.a, lp.b);
+        dantzig.setPricing(Pricing.PricingType.DANTZIG);
+        dantzig.solve();
+
+        for (Pricing.PricingType t : new Pricing.PricingType[]{
+                Pricing.PricingType.PARTIAL, Pricing.PricingType.MULTIPLE}) {
+            for (SimplexFactory.SimplexType type : new SimplexFactory.SimplexType[]{
+                    SimplexFactory.SimplexType.NORMAL, SimplexFactory.SimplexType.LU}) {
+                Simplex simplex = SimplexFactory.newSimplex(type, lp.c, lp.a, lp.b);
+                simplex.setPricing(t);
+                simplex.solve();
+                Assert.assertEquals(t + " state", State.SOLVED, simplex.getState());
+                Assert.assertEquals(t + " max", dantzig.getMax(), simplex.getMax(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testSolveRoundOff() {
+        double[] c = {1, 2, 3, 1};
+        double[][] a = {
+                {0.1, 0.7, 0.3, 0.9},
+                {0.3, 0.2, 0.6, 0.1},
+                new double[4],
+        };
+        double[] b = {1.1, 0.7, 0};
+        // redundant row, zero only up to round-off
+        for (int j = 0; j < 4; j++) {
+            a[2][j] = 0.3 * a[0][j] + 0.7 * a[1][j];
+        }
+        b[2] = 0.3 * b[0] + 0.7 * b[1];
+
+        Simplex simplex = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, c, a, b);
+        simplex.solve();
+
+        Assert.assertEquals("state", State.SOLVED, simplex.getState());
+        Assert.assertEquals("max", 4.75, simplex.getMax(), 1e-6);
+    }
+
+    @Test
+    public void testSolveDegenerate() {
+        // set partitioning, every basis is highly degenerate
+        final int m = 12, n = 48;
+        final Random random = new Random(11);
+        double[][] a = new double[m][n];
+        double[] b = new double[m];
+        double[] c = new double[n];
+        Arrays.fill(b, 1);
+        for (int i = 0, j = 0; i < m; j++) { // a feasible partition
+            for (int k = 0; k < 3 && i < m; k++, i++) {
+                a[i][j] = 1;
+            }
+        }
+        for (int j = m / 3; j < n; j++) {
+            for (int k = 0; k < 2 + random.nextInt(4); k++) {
+                a[random.nextInt(m)][j] = 1;
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            c[j] = -1 - random.nextInt(3);
+            for (int i = 0; i < m; i++) {
+                c[j] -= a[i][j];
+            }
+        }
+
+        Simplex exact = SimplexFactory.newSimplex(SimplexFactory.SimplexType.BIG, c, a, b);
+        exact.solve();
+        Simplex simplex = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, c, a, b);
+        simplex.solve();
+
+        Assert.assertEquals("state", State.SOLVED, simplex.getState());
+        Assert.assertEquals("max", exact.getMax(), simplex.getMax(), 1e-6);
+        // the perturbation is removed
+        for (int i = 0; i < m; i++) {
+            double v = 0;
+            for (int j = 0; j < n; j++) {
+                v += a[i][j] * simplex.getX()[j];
+            }
+            Assert.assertEquals("row " + i, 1d, v, 1e-6);
+        }
+    }
+
+    @Test
+    public void testSolveCrash() {
+        // min cost flow of 4 units from s to t, the conservation rows of a and b have b = 0
+        // x: sa, sb, ab, at, bt, surplus
+        double[] c = {-1, -2, -1, -3, -1, 0};
+        double[][] a = {
+                {-1, -1, 0, 0, 0, 0}, // s
+                {1, 0, -1, -1, 0, 0}, // a
+                {0, 1, 1, 0, -1, 0}, // b
+                {0, 0, 0, 1, 1, 0}, // t
+                {0, 0, 1, 0, 0, -1}, // ab >= 1
+        };
+        double[] b = {-4, 0, 0, 4, 1};
+
+        for (boolean crash : new boolean[]{false, true}) {
+            Simplex simplex = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, c, a, b);
+            simplex.setCrash(crash);
+            simplex.solve();
+
+            Assert.assertEquals("crash " + crash + " state", State.SOLVED, simplex.getState());
+            Assert.assertEquals("crash " + crash + " max", -12, simplex.getMax(), 1e-9);
+            Assert.assertTrue("crash " + crash + " ab", simplex.getX()[2] >= 1 - 1e-9);
+        }
+    }
+
+    /**
+     * Set partitioning, of a feasible partition scattered among the columns: the natural order of the columns misses
+     * some rows, the triangular crash covers more of them
+     */
+    @Test
+    public void testSolveCrashSetPartitioning() {
+        final int m = 30, n = 6 * m;
+        final int[] avars = new int[2];
+        final int[] iterations = new int[2];
+        for (int seed = 40; seed < 45; seed++) {
+            final Random random = new Random(seed);
+            final double[] c = new double[n];
+            final double[][] a = new double[m][n];
+            final double[] b = new double[m];
+            Arrays.fill(b, 1d);
+            final int[] at = new int[n];
+            for (int j = 0; j < n; j++) {
+                at[j] = j;
+            }
+            for (int j = n - 1; j > 0; j--) {
+                final int q = random.nextInt(j + 1);
+                final int t = at[j];
+                at[j] = at[q];
+                at[q] = t;
+            }
+            int k = 0;
+            for (int i = 0; i < m; k++) {
+                for (int s = 2 + random.nextInt(4); s > 0 && i < m; s--, i++) {
+                    a[i][at[k]] = 1d;
+                }
+            }
+            for (; k < n; k++) {
+                for (int s = 2 + random.nextInt(4); s > 0; s--) {
+                    a[random.nextInt(m)][at[k]] = 1d;
+                }
+            }
+            for (int j = 0; j < n; j++) {
+                int count = 0;
+                for (int i = 0; i < m; i++) {
+                    count += (int) a[i][j];
+                }
+                c[j] = -(count + random.nextInt(3));
+            }
+
+            double max = Double.NaN;
+            for (int t = 0; t < 2; t++) {
+                Simplex simplex = SimplexFactory.newSimplex(SimplexFactory.SimplexType.NORMAL, c, a, b);
+                simplex.setCrash(1 == t);
+                simplex.solve();
+
+                Assert.assertEquals("seed " + seed + " state", State.SOLVED, simplex.getState());
+                if (0 == t) {
+                    max = simplex.getMax();
+                } else {
+                    Assert.assertEquals("seed " + seed + " max", max, simplex.getMax(), 1e-6);
+                }
+                avars[t] += simplex.getAvars();
+                iterations[t] += simplex.getIterations();
+            }
+        }
+        Assert.assertTrue("aVars " + Arrays.toString(avars), avars[1] < avars[0]);
+        Assert.assertTrue("iterations " + Arrays.toString(iterations), iterations[1] < iterations[0]);
+    }
+
+    @Test
+    public void testSolveAllocation() {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+        final long thread = Thread.currentThread().getId();
+
+        // the same tableau solved in 1 and in several iterations, the slacks are the initial base
+        final int m = 30, n = 30;
+        final Random random = new Random(1);
+        double[][] a = new double[m][n + m];
+        double[] b = new double[m];
+        double[] one = new double[n + m];
+        double[] several = new double[n + m];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                a[i][j] = 1 + random.nextInt(9);
+            }
+            a[i][n + i] = 1;
+            b[i] = 100 + random.nextInt(100);
+        }
+        for (int j = 0; j < n; j++) {
+            several[j] = 1 + random.nextInt(20);
+        }
+        one[0] = 1;
+
+        Simplex.LOG.setLevel(Level.INFO);
+        try {
+            for (SimplexFactory.SimplexType t : new SimplexFactory.SimplexType[]{
+                    SimplexFactory.SimplexType.NORMAL, SimplexFactory.SimplexType.REVISED}) {
+                long bytes = Long.MAX_VALUE; // the least, as class loading or compiling may allocate
+                int iterations = 0;
+                for (int k = 0; k < 50; k++) {
+                    final long b0 = bean.getThreadAllocatedBytes(thread);
+                    Simplex s1 = SimplexFactory.newSimplex(t, several, a, b);
+                    s1.solve();
+                    final long b1 = bean.getThreadAllocatedBytes(thread);
+                    Simplex s2 = SimplexFactory.newSimplex(t, one, a, b);
+                    s2.solve();
+                    final long b2 = bean.getThreadAllocatedBytes(thread);
+                    bytes = Math.min(bytes, (b1 - b0) - (b2 - b1));
+                    iterations = s1.getIterations() - s2.getIterations();
+                }
+                Assert.assertTrue(t + " iterations", iterations > 5);
+                Assert.assertTrue(t + " garbage per iteration: " + bytes, bytes < iterations);
+            }
+        } finally {
+            Simplex.LOG.setLevel(Level.ALL);
+        }
+    }
+
+    @Test
+    public void testGaussianDrop() {
+        // 0.3 - 3 * 0.1 is -5.55e-17 in doubles, the cancellation is dropped to 0
+        final double[][] t = {{1, 0.1, 1}, {3, 0.3, 0}, {2, 0.5, 1}};
+        final AbstractMatrix<?>[] matrices = {
+                new DoubleMatrix(copy(t), 3), new FlatDoubleMatrix(copy(t), 3),
+                new RevisedDoubleMatrix(copy(t), 3), new SparseMatrix(copy(t), 3)};
+        for (AbstractMatrix<?> matrix : matrices) {
+            matrix.gaussian(0, 0);
+            final String name = matrix.getClass().getSimpleName();
+            Assert.assertEquals(name + " (1,1)", 0d, matrix.getAsDouble(1, 1), 0d);
+            Assert.assertEquals(name + " (2,1)", 0.3d, matrix.getAsDouble(2, 1), 1e-15);
+            Assert.assertEquals(name + " pivots", 1, matrix.getPivotCount());
+            Assert.assertEquals(name + " non-zeros", 3d, matrix.getPivotNonZeros(), 0d);
+        }
+    }
+
+    @Test
+    public void testGaussianNaN() {
+        // inf - inf is NaN, dropped to 0 by the dense pivot row (Kernels.axpyDrop) and the sparse one alike
+        final double inf = Double.POSITIVE_INFINITY;
+        final double[][] dense = {{1, inf, 1, 1}, {1, inf, 2, 0}, {2, 1, 0.2, 0.4}};
+        final double[][] sparse = {{1, inf, 0, 0, 0}, {1, inf, 2, 0, 1}, {2, 1, 0.2, 0.4, 0}};
+        for (double[][] t : new double[][][]{dense, sparse}) {
+            final AbstractMatrix<?> expected = new DoubleMatrix(copy(t), t[0].length);
+            final AbstractMatrix<?> flat = new FlatDoubleMatrix(copy(t), t[0].length);
+            expected.gaussian(0, 0);
+            flat.gaussian(0, 0);
+            Assert.assertEquals("(1,1)", 0d, flat.getAsDouble(1, 1), 0d);
+            for (int i = 0; i < t.length; i++) {
+                for (int j = 0; j < t[0].length; j++) {
+                    Assert.assertEquals("(" + i + "," + j + ")", expected.getAsDouble(i, j), flat.getAsDouble(i, j), 0d);
+                }
+            }
+        }
+    }
+
+    private static double[][] copy(double[][] t) {
+        final double[][] r = new double[t.length][];
+        for (int i = 0; i < t.length; i++) {
+            r[i] = t[i].clone();
+        }
+        return r;
+    }
 }
@@ -0,0 +1,97 @@
+package com.github.cloudecho.bnb.math;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Random;
+
+/**
+ * The Java 17 {@code VectorKernels} against the plain {@link Kernels}. The tests run on the classes directory, so
+ * {@link Kernels} is the plain one, and the Java 17 classes are appended to the class path by the java17 profile.
+ */
+public class KernelsTest {
+    private Method axpy;
+    private Method axpyDrop;
+
+    @Before
+    public void vectorKernels() throws ReflectiveOperationException {
+        final String version = System.getProperty("java.specification.version");
+        Assume.assumeFalse("before Java 17", version.startsWith("1.") || Integer.parseInt(version) < 17);
+        Assert.assertFalse("plain loops", Kernels.isVectorized());
+        final Class<?> k = Class.forName("com.github.cloudecho.bnb.math.VectorKernels");
+        this.axpy = k.getDeclaredMethod("axpy",
+                double.class, double[].class, int.class, double[].class, int.class, int.class);
+        this.axpyDrop = k.getDeclaredMethod("axpyDrop",
+                double.class, double[].class, int.class, double[].class, int.class, int.class, double.class);
+        axpy.setAccessible(true);
+        axpyDrop.setAccessible(true);
+    }
+
+    @Test
+    public void testAxpy() throws ReflectiveOperationException {
+        final Random random = new Random(37);
+        for (int length = 0; length <= 70; length++) {
+            for (int offset = 0; offset < 3; offset++) {
+                final double a = random.nextGaussian();
+                final double[] x = vector(random, offset + length);
+                final double[] y = vector(random, offset + length + 1);
+                final double[] expected = y.clone();
+                Kernels.axpy(a, x, offset, expected, 1, length);
+                invoke(axpy, a, x, offset, y, 1, length);
+                Assert.assertArrayEquals("length " + length + " offset " + offset, expected, y, 0d);
+            }
+        }
+    }
+
+    @Test
+    public void testAxpyDrop() throws ReflectiveOperationException {
+        final Random random = new Random(37);
+        final double drop = 1e-11;
+        for (int length = 0; length <= 70; length++) {
+            for (int offset = 0; offset < 3; offset++) {
+                final double a = random.nextGaussian();
+                final double[] x = vector(random, offset + length);
+                final double[] y = vector(random, offset + length + 1);
+                for (int j = 0; j < length; j += 3) {
+                    // cancelled exactly, or up to round-off below the drop
+                    y[1 + j] = -a * x[offset + j] * (0 == j % 2 ? 1d : 1d + 0x1p-50);
+                }
+                for (int j = 1; j < length; j += 5) {
+                    // inf - inf is NaN, dropped to 0
+                    y[1 + j] = Double.POSITIVE_INFINITY;
+                    x[offset + j] = -Math.copySign(Double.POSITIVE_INFINITY, a);
+                }
+                final double[] expected = y.clone();
+                Kernels.axpyDrop(a, x, offset, expected, 1, length, drop);
+                invoke(axpyDrop, a, x, offset, y, 1, length, drop);
+                Assert.assertArrayEquals("length " + length + " offset " + offset, expected, y, 0d);
+                for (int j = 1; j < length; j += 5) {
+                    Assert.assertEquals("NaN", 0d, y[1 + j], 0d);
+                }
+            }
+        }
+    }
+
+    private static double[] vector(Random random, int length) {
+        final double[] v = new double[length];
+        for (int j = 0; j < length; j++) {
+            v[j] = 0 == random.nextInt(4) ? 0d : random.nextGaussian() * 100d;
+        }
+        return v;
+    }
+
+    private static void invoke(Method method, Object... args) throws ReflectiveOperationException {
+        try {
+            method.invoke(null, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
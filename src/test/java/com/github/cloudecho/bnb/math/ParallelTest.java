@@ -0,0 +1,94 @@
+package com.github.cloudecho.bnb.math;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.BiFunction;
+
+public class ParallelTest {
+    private long minCells;
+
+    @Before
+    public void parallel() {
+        this.minCells = Parallel.setMinCells(1);
+    }
+
+    @After
+    public void restore() {
+        Parallel.setMinCells(minCells);
+    }
+
+    @Test
+    public void testGaussian() {
+        testGaussian("DoubleMatrix", DoubleMatrix::new);
+        testGaussian("FlatDoubleMatrix", FlatDoubleMatrix::new);
+        testGaussian("RevisedDoubleMatrix", RevisedDoubleMatrix::new);
+        testGaussian("OffHeapDoubleMatrix", OffHeapDoubleMatrix::new);
+        testGaussian("MappedDoubleMatrix", MappedDoubleMatrix::new);
+    }
+
+    /**
+     * The parallel pivots give the same tableau as the sequential ones, bit for bit
+     */
+    private void testGaussian(String name, BiFunction<double[][], Integer, Matrix<?>> factory) {
+        // tall enough to be split into several ranges of rows, and of columns for the revised tableau
+        final int m = 2000, n = 40;
+        final Random random = new Random(38);
+        double[][] table = new double[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                // half of the cells are zero, so that both the sparse and dense row updates are run
+                table[i][j] = random.nextBoolean() ? 0d : random.nextInt(19) - 9 + random.nextDouble();
+            }
+        }
+        Assert.assertTrue("parallel", Parallel.isParallel(m, n));
+
+        Matrix<?> parallel = factory.apply(copy(table), n);
+        Parallel.setMinCells(0);
+        Matrix<?> sequential = factory.apply(copy(table), n);
+        try {
+            for (int k = 0; k < n / 2; k++) {
+                final int r = 1 + 97 * k, c = k;
+                if (0d == table[r][c]) {
+                    continue;
+                }
+                Parallel.setMinCells(1);
+                parallel.gaussian(r, c);
+                Parallel.setMinCells(0);
+                sequential.gaussian(r, c);
+
+                for (int i = 0; i < m; i++) {
+                    for (int j = 0; j < n; j++) {
+                        Assert.assertEquals(name + " pivot " + k + " (" + i + "," + j + ")",
+                                sequential.getAsDouble(i, j), parallel.getAsDouble(i, j), 0d);
+                    }
+                }
+            }
+        } finally {
+            Parallel.setMinCells(1);
+            close(parallel);
+            close(sequential);
+        }
+    }
+
+    private static double[][] copy(double[][] table) {
+        double[][] t = new double[table.length][];
+        for (int i = 0; i < table.length; i++) {
+            t[i] = table[i].clone();
+        }
+        return t;
+    }
+
+    private static void close(Matrix<?> matrix) {
+        if (matrix instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) matrix).close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
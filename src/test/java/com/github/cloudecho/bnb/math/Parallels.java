@@ -0,0 +1,22 @@
+package com.github.cloudecho.bnb.math;
+
+/**
+ * The thresholds of {@link Parallel} for the tests of the other packages
+ */
+public final class Parallels {
+    private Parallels() {
+
+    }
+
+    public static long setMinCells(long cells) {
+        return Parallel.setMinCells(cells);
+    }
+
+    public static int setMinLength(int length) {
+        return Parallel.setMinLength(length);
+    }
+
+    public static int setGrainCells(int cells) {
+        return Parallel.setGrainCells(cells);
+    }
+}
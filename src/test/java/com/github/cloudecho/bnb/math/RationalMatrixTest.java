@@ -0,0 +1,83 @@
+package com.github.cloudecho.bnb.math;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class RationalMatrixTest {
+    @Test
+    public void testNormalize() {
+        Assert.assertEquals("big cells", 0, testNormalize(1d));
+    }
+
+    /**
+     * The cells overflow the longs, so that they are kept as BigIntegers
+     */
+    @Test
+    public void testNormalizeBig() {
+        Assert.assertTrue("big cells", testNormalize(1e13) > 0);
+    }
+
+    /**
+     * Rows normalized in between the pivots, against the same row operations on {@link Rational}s
+     *
+     * @return The max number of cells kept as BigIntegers
+     */
+    private int testNormalize(double range) {
+        final int m = 6, n = 9;
+        final Random random = new Random(42);
+        final double[][] table = new double[m][n];
+        final Rational[][] expected = new Rational[m][n];
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < n; j++) {
+                table[i][j] = random.nextInt(4) == 0 ? 0d : Math.round(range * (random.nextInt(199) - 99)) / 100d;
+                expected[i][j] = Rational.valueOf(table[i][j]);
+            }
+        }
+        final RationalMatrix matrix = new RationalMatrix(table, n);
+        int bigCells = 0;
+
+        for (int k = 0; k < 2 * m; k++) {
+            final int r = random.nextInt(m), c = random.nextInt(n);
+            if (0 == expected[r][c].signum()) {
+                continue;
+            }
+            if (0 == k % 2) {
+                matrix.normalize(r, c);
+                normalize(expected, r, c);
+                Assert.assertEquals("pivot", Rational.ONE, matrix.get(r, c));
+            } else {
+                matrix.gaussian(r, c);
+                gaussian(expected, r, c);
+            }
+            for (int i = 0; i < m; i++) {
+                for (int j = 0; j < n; j++) {
+                    Assert.assertEquals("step " + k + " (" + i + "," + j + ")", expected[i][j], matrix.get(i, j));
+                }
+            }
+            bigCells = Math.max(bigCells, matrix.bigCells());
+        }
+        return bigCells;
+    }
+
+    private static void normalize(Rational[][] t, int r, int c) {
+        final Rational v = t[r][c];
+        for (int j = 0; j < t[r].length; j++) {
+            t[r][j] = t[r][j].divide(v);
+        }
+    }
+
+    private static void gaussian(Rational[][] t, int r, int c) {
+        normalize(t, r, c);
+        for (int i = 0; i < t.length; i++) {
+            if (i == r) {
+                continue;
+            }
+            final Rational v = t[i][c];
+            for (int j = 0; j < t[i].length; j++) {
+                t[i][j] = t[i][j].subtract(v.multiply(t[r][j]));
+            }
+        }
+    }
+}